@@ -0,0 +1,181 @@
+package io.immutables.codec.processor;
+
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates registry of datatypes per package for top level types annotated with {@code @Data}, and
+ * lists these registries in {@code META-INF/services} of the module, so that
+ * {@code io.immutables.codec.Datatypes} finds generated {@code Datatypes_*} classes without reflection,
+ * and knows which accessors have codec qualifiers without scanning declared methods. Registered are
+ * the abstract types among the annotated type and its nested types, the same which would otherwise be
+ * tried by reflective lookup.
+ */
+@SupportedAnnotationTypes(DatatypeRegistryProcessor.DATA_ANNOTATION)
+public final class DatatypeRegistryProcessor extends AbstractProcessor {
+	static final String DATA_ANNOTATION = "org.immutables.data.Data";
+	static final String REGISTRY_SIMPLE_NAME = "DatatypeRegistry_";
+
+	private static final String CODEC_QUALIFIER = "io.immutables.codec.CodecQualifier";
+	private static final String SERVICES = "META-INF/services/io.immutables.codec.Datatypes$Registry";
+	private static final ClassName DATATYPES = ClassName.get("io.immutables.codec", "Datatypes");
+
+	private final Set<String> registries = new HashSet<>();
+	private final List<String> generated = new ArrayList<>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+		if (round.processingOver()) {
+			if (!generated.isEmpty()) writeServices();
+			return false;
+		}
+
+		Map<PackageElement, List<TypeElement>> byPackage = new LinkedHashMap<>();
+		for (TypeElement annotation : annotations) {
+			for (TypeElement type : ElementFilter.typesIn(round.getElementsAnnotatedWith(annotation))) {
+				if (type.getNestingKind().isNested()) continue; // conventions are for top level definers
+				byPackage.computeIfAbsent(processingEnv.getElementUtils().getPackageOf(type), p -> new ArrayList<>())
+						.add(type);
+			}
+		}
+		for (var e : byPackage.entrySet()) {
+			writeRegistry(e.getKey(), e.getValue());
+		}
+		return false;
+	}
+
+	private void writeRegistry(PackageElement packageElement, List<TypeElement> definers) {
+		String packageName = packageElement.getQualifiedName().toString();
+		// unlikely but possible: more definers in the same package in the later rounds
+		String simpleName = REGISTRY_SIMPLE_NAME;
+		for (int i = 2; !registries.add(packageName + "." + simpleName); i++) {
+			simpleName = REGISTRY_SIMPLE_NAME + i;
+		}
+
+		CodeBlock.Builder registrations = CodeBlock.builder();
+		for (TypeElement definer : definers) {
+			String constructor = "_" + definer.getSimpleName();
+			registrations.addStatement("$T.Constructor $N = $T::constuct",
+					DATATYPES, constructor, ClassName.get(packageName, "Datatypes_" + definer.getSimpleName()));
+
+			for (TypeElement type : definitions(definer, new ArrayList<>())) {
+				CodeBlock.Builder arguments = CodeBlock.builder()
+						.add("$S, $N", processingEnv.getElementUtils().getBinaryName(type), constructor);
+				for (String feature : qualifiedFeatures(type)) {
+					arguments.add(", $S", feature);
+				}
+				registrations.addStatement("registrations.datatype($L)", arguments.build());
+			}
+		}
+
+		TypeSpec.Builder registry = TypeSpec.classBuilder(simpleName)
+				.addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+				.addSuperinterface(DATATYPES.nestedClass("Registry"))
+				.addMethod(MethodSpec.methodBuilder("register")
+						.addAnnotation(Override.class)
+						.addModifiers(Modifier.PUBLIC)
+						.addParameter(DATATYPES.nestedClass("Registrations"), "registrations")
+						.addCode(registrations.build())
+						.build());
+
+		for (TypeElement definer : definers) {
+			registry.addOriginatingElement(definer);
+		}
+		if (processingEnv.getElementUtils().getTypeElement("javax.annotation.processing.Generated") != null) {
+			registry.addAnnotation(AnnotationSpec.builder(ClassName.get("javax.annotation.processing", "Generated"))
+					.addMember("value", "$S", DatatypeRegistryProcessor.class.getName())
+					.build());
+		}
+
+		try {
+			JavaFile.builder(packageName, registry.build())
+					.skipJavaLangImports(true)
+					.build()
+					.writeTo(processingEnv.getFiler());
+			generated.add(packageName.isEmpty() ? simpleName : packageName + "." + simpleName);
+		} catch (IOException ex) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"Cannot write datatype registry " + simpleName + ": " + ex, definers.get(0));
+		}
+	}
+
+	/** Abstract types among type and its nested types, recursively. */
+	private List<TypeElement> definitions(TypeElement type, List<TypeElement> collected) {
+		if (type.getKind() == ElementKind.INTERFACE
+				|| (type.getKind() == ElementKind.CLASS && type.getModifiers().contains(Modifier.ABSTRACT))) {
+			collected.add(type);
+		}
+		for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+			definitions(nested, collected);
+		}
+		return collected;
+	}
+
+	/** Names of declared accessors annotated with codec qualifiers. */
+	private List<String> qualifiedFeatures(TypeElement type) {
+		List<String> features = new ArrayList<>();
+		for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+			if (method.getParameters().isEmpty() && hasQualifier(method)) {
+				features.add(method.getSimpleName().toString());
+			}
+		}
+		return features;
+	}
+
+	private boolean hasQualifier(Element element) {
+		for (AnnotationMirror a : element.getAnnotationMirrors()) {
+			for (AnnotationMirror meta : a.getAnnotationType().asElement().getAnnotationMirrors()) {
+				if (((TypeElement) meta.getAnnotationType().asElement()).getQualifiedName().contentEquals(CODEC_QUALIFIER)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void writeServices() {
+		try {
+			FileObject services = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICES);
+			try (Writer writer = services.openWriter()) {
+				for (String name : generated) {
+					writer.write(name);
+					writer.write('\n');
+				}
+			}
+		} catch (IOException ex) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write " + SERVICES + ": " + ex);
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package io.immutables.codec.processor;
+
+import com.google.common.reflect.TypeToken;
+import io.immutables.codec.Datatypes;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.immutables.data.Datatype;
+import org.junit.Test;
+import static io.immutables.that.Assert.that;
+
+public class TestDatatypeRegistryProcessor {
+	@Test
+	public void registry() throws Exception {
+		Path dir = Files.createTempDirectory("registry");
+		Path sources = Files.createDirectories(dir.resolve("reg"));
+		Files.writeString(sources.resolve("Sample.java"), String.join("\n",
+				"package reg;",
+				"@org.immutables.data.Data",
+				"public interface Sample {",
+				"  @Q String qualified();",
+				"  String plain();",
+				"  interface Nested {}",
+				"  final class Concrete {}",
+				"}"));
+		Files.writeString(sources.resolve("Q.java"), String.join("\n",
+				"package reg;",
+				"@io.immutables.codec.CodecQualifier",
+				"@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)",
+				"public @interface Q {}"));
+		// stands for what is generated for @Data by immutables, only the method called by registry
+		Files.writeString(sources.resolve("Datatypes_Sample.java"), String.join("\n",
+				"package reg;",
+				"import com.google.common.reflect.TypeToken;",
+				"import org.immutables.data.Datatype;",
+				"public final class Datatypes_Sample {",
+				"  @SuppressWarnings(\"unchecked\")",
+				"  public static <T> Datatype<T> constuct(TypeToken<T> type) {",
+				"    return (Datatype<T>) io.immutables.codec.Datatypes.forStruct(Datatypes_Sample.class);",
+				"  }",
+				"}"));
+
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, Locale.ROOT, null)) {
+			JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics,
+					List.of("-d", dir.toString(), "-s", dir.toString(),
+							"-classpath", System.getProperty("java.class.path")),
+					null,
+					files.getJavaFileObjects(
+							sources.resolve("Sample.java"),
+							sources.resolve("Q.java"),
+							sources.resolve("Datatypes_Sample.java")));
+			task.setProcessors(List.of(new DatatypeRegistryProcessor()));
+			that(task.call()).is(true);
+		}
+
+		that(Files.readString(dir.resolve("META-INF/services/io.immutables.codec.Datatypes$Registry")))
+				.is("reg.DatatypeRegistry_\n");
+
+		String generated = Files.readString(sources.resolve("DatatypeRegistry_.java"));
+		that(generated).contains("registrations.datatype(\"reg.Sample\", _Sample, \"qualified\");");
+		that(generated).contains("registrations.datatype(\"reg.Sample$Nested\", _Sample);");
+		that(generated.contains("Concrete")).is(false);
+
+		try (var loader = new URLClassLoader(new URL[] {dir.toUri().toURL()}, getClass().getClassLoader())) {
+			Datatypes.register((Datatypes.Registry) loader.loadClass("reg.DatatypeRegistry_")
+					.getConstructor()
+					.newInstance());
+			Datatype<?> datatype = Datatypes.findDatatype(TypeToken.of(loader.loadClass("reg.Sample$Nested")));
+			that(datatype).notNull();
+			that(datatype.name()).is("Datatypes_Sample");
+		}
+	}
+}
@@ -90,7 +90,12 @@ public final class Codecs {
 		public @Nullable <T> Codec<T> get(Resolver lookup, TypeToken<T> type) {
 			@Nullable Datatype<T> t = null;
 			try {
-				t = Datatypes.construct(type);
+				t = Datatypes.findDatatype(type);
+				if (t == null) {
+					// not a generated datatype and cannot be a struct, no need to even try
+					if (!Datatypes.isStruct(type.getRawType())) return null;
+					t = Datatypes.forStruct(type);
+				}
 			} catch (Exception cannotConstructDatatype) {
 				// FIXME...
 				cannotConstructDatatype.printStackTrace();
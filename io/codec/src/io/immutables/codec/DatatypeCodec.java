@@ -6,8 +6,10 @@ import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import com.google.common.base.CaseFormat;
 import org.immutables.data.Datatype;
 import org.immutables.data.Datatype.Builder;
@@ -71,11 +73,12 @@ public final class DatatypeCodec<T> extends Codec<T> {
 
 	private Codec<Object>[] collectCodecs(Resolver lookup, Datatype<T> meta, Feature<T, ?>[] features) {
 		Class<? super T> rawType = meta.type().getRawType();
+		Map<String, Annotation> qualifiers = findQualifiers(rawType, features);
 		Codec<Object>[] codecs = new Codec[features.length];
 		for (int i = 0; i < features.length; i++) {
 			Feature<T, ?> f = features[i];
 			// TODO how to extract qualifier, should be part of Feature API?
-			@Nullable Annotation qualifier = findQualifier(rawType, f);
+			@Nullable Annotation qualifier = qualifiers.get(f.name());
 			Codec<Object> c = (Codec<Object>) lookup.get(f.type(), qualifier);
 			if (f.nullable()) {
 				c = c.toNullable();
@@ -85,13 +88,36 @@ public final class DatatypeCodec<T> extends Codec<T> {
 		return codecs;
 	}
 
-	private @Nullable Annotation findQualifier(Class<? super T> rawType, Feature<T, ?> f) {
+	/**
+	 * Qualifiers of accessors by name. For datatypes registered at build time, only accessors known to
+	 * have qualifiers are looked up, otherwise declared methods are scanned, once per datatype.
+	 */
+	private static Map<String, Annotation> findQualifiers(Class<?> rawType, Feature<?, ?>[] features) {
+		Map<String, Annotation> qualifiers = new HashMap<>();
+		@Nullable Set<String> qualified = Datatypes.qualifiedFeatures(rawType);
+		if (qualified != null) {
+			for (String name : qualified) {
+				try {
+					@Nullable Annotation q = Codecs.findQualifier(rawType.getDeclaredMethod(name));
+					if (q != null) qualifiers.put(name, q);
+				} catch (NoSuchMethodException ex) {
+					// registry out of sync, ignore as there's no such accessor anyway
+				}
+			}
+			return qualifiers;
+		}
+		Set<String> names = new HashSet<>();
+		for (Feature<?, ?> f : features) {
+			names.add(f.name());
+		}
+		Set<String> seen = new HashSet<>();
 		for (Method method : rawType.getDeclaredMethods()) {
-			if (method.getParameterCount() == 0 && method.getName().equals(f.name())) {
-				return Codecs.findQualifier(method);
+			if (method.getParameterCount() == 0 && names.contains(method.getName()) && seen.add(method.getName())) {
+				@Nullable Annotation q = Codecs.findQualifier(method);
+				if (q != null) qualifiers.put(method.getName(), q);
 			}
 		}
-		return null;
+		return qualifiers;
 	}
 
 	private FieldIndex indexFields(Feature<T, ?>[] features, boolean asCase) {
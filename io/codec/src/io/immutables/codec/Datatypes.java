@@ -3,9 +3,15 @@ package io.immutables.codec;
 import io.immutables.Nullable;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.reflect.TypeToken;
@@ -26,10 +32,104 @@ public final class Datatypes {
 		return forStruct(type);
 	}
 
+	/**
+	 * Finds datatype generated for the type. Datatype constructors registered at build time (see
+	 * {@link Registry}) are used first, otherwise generated classes are looked up reflectively using
+	 * naming conventions. Results of both, including misses, are cached per raw type.
+	 */
 	@SuppressWarnings("unchecked") // based on type token runtime check and convention
 	public static @Nullable <T> Datatype<T> findDatatype(TypeToken<T> type) {
 		Class<?> rawType = type.getRawType();
 		if (rawType.isPrimitive() || rawType.isArray()) return null;
+		@Nullable Constructor constructor = constructors.get(rawType).orElse(null);
+		return constructor != null ? (Datatype<T>) constructor.construct(type) : null;
+	}
+
+	/**
+	 * Constructs datatype for a type token, this is how generated {@code Datatypes_*.constuct} methods
+	 * are referenced from build time registries.
+	 */
+	@FunctionalInterface
+	public interface Constructor {
+		Datatype<?> construct(TypeToken<?> type);
+	}
+
+	/**
+	 * Registry of datatypes of a module, generated at build time by {@code DatatypeRegistryProcessor}
+	 * and discovered using {@link ServiceLoader}, or registered explicitly using
+	 * {@link Datatypes#register(Registry)}.
+	 */
+	public interface Registry {
+		void register(Registrations registrations);
+	}
+
+	/** Receives datatype constructors and qualified features from {@link Registry}. */
+	public static final class Registrations {
+		private final Map<String, Constructor> constructors = new ConcurrentHashMap<>();
+		private final Map<String, Set<String>> qualified = new ConcurrentHashMap<>();
+
+		private Registrations() {}
+
+		/**
+		 * Registers datatype constructor for the definition class by its binary name, along with names of
+		 * its features (accessors) having {@link CodecQualifier} annotations.
+		 */
+		public void datatype(String definition, Constructor constructor, String... qualifiedFeatures) {
+			constructors.put(definition, constructor);
+			qualified.put(definition, Set.of(qualifiedFeatures));
+		}
+
+		@Override
+		public String toString() {
+			return "Datatypes.Registrations(" + constructors.size() + " datatypes)";
+		}
+	}
+
+	private static final class Registered {
+		static final Registrations registrations = new Registrations();
+		static {
+			for (Registry registry : ServiceLoader.load(Registry.class)) {
+				registry.register(registrations);
+			}
+		}
+	}
+
+	/**
+	 * Registers datatypes explicitly, in addition to those discovered using {@link ServiceLoader}.
+	 * Should be done before datatypes are looked up, as lookup results are cached.
+	 */
+	public static void register(Registry registry) {
+		registry.register(Registered.registrations);
+	}
+
+	/**
+	 * Names of features of registered datatype having codec qualifiers, or {@code null} if datatype
+	 * definition is not registered, so qualifiers are to be found reflectively.
+	 */
+	static @Nullable Set<String> qualifiedFeatures(Class<?> definitionClass) {
+		return Registered.registrations.qualified.get(definitionClass.getName());
+	}
+
+	private static final ClassValue<Optional<Constructor>> constructors = new ClassValue<>() {
+		@Override
+		protected Optional<Constructor> computeValue(Class<?> rawType) {
+			@Nullable Constructor registered = Registered.registrations.constructors.get(definitionName(rawType));
+			if (registered != null) return Optional.of(registered);
+			return Optional.ofNullable(lookupConstructor(rawType));
+		}
+	};
+
+	/** Binary name of the definition class, derived from the name without loading any classes. */
+	private static String definitionName(Class<?> c) {
+		String name = c.getName();
+		int at = name.lastIndexOf(IMMUTABLE_PREFIX);
+		if (c.getCanonicalName() != null && at >= 0) {
+			return name.substring(0, at + 1) + name.substring(at + IMMUTABLE_PREFIX.length());
+		}
+		return name;
+	}
+
+	private static @Nullable Constructor lookupConstructor(Class<?> rawType) {
 		// these transitions are based on current datatype generation conventions
 		Class<?> definitionClass = getDefinitionClass(rawType);
 		// don't torture classes which are not probable to be datatype definition
@@ -39,19 +139,24 @@ public final class Datatypes {
 		@Nullable Class<?> datatypeConstructor = loadFromTheSamePackage(
 				topLevelDefiner, DATATYPES_PREFIX + topLevelDefiner.getSimpleName());
 
-		if (datatypeConstructor != null) {
+		if (datatypeConstructor == null) return null;
+
+		Method construct;
+		try {
+			construct = datatypeConstructor.getMethod(CONSTRUCT_METHOD, TypeToken.class);
+		} catch (NoSuchMethodException | SecurityException ex) {
+			throw new RuntimeException(ex);
+		}
+		return type -> {
 			try {
-				return (Datatype<T>) datatypeConstructor
-						.getMethod(CONSTRUCT_METHOD, TypeToken.class)
-						.invoke(null, type);
+				return (Datatype<?>) construct.invoke(null, type);
 			} catch (InvocationTargetException ex) {
 				throwIfUnchecked(ex.getCause());
 				throw new RuntimeException(ex.getCause());
-			} catch (ReflectiveOperationException | SecurityException ex) {
+			} catch (ReflectiveOperationException ex) {
 				throw new RuntimeException(ex);
 			}
-		}
-		return null;
+		};
 	}
 
 	private static Class<?> getDefinitionClass(Class<?> c) {
@@ -76,10 +181,10 @@ public final class Datatypes {
 		if (!prefix.isEmpty()) prefix += ".";
 		try {
 			return Class.forName(prefix + name, false, c.getClassLoader());
-		} catch (Exception ex) {
-			ex.printStackTrace();
+		} catch (ClassNotFoundException ex) {
+			// not following the convention, which is expected for many classes
+			return null;
 		}
-		return null;
 	}
 
 	private static Class<?> getTopLevel(Class<?> c) {
@@ -97,6 +202,16 @@ public final class Datatypes {
 		return forStruct(TypeToken.of(type));
 	}
 
+	/** If {@link #forStruct(TypeToken)} can be used for the class. */
+	static boolean isStruct(Class<?> raw) {
+		return !raw.isInterface()
+				&& !raw.isEnum()
+				&& !raw.isPrimitive()
+				&& !raw.isArray()
+				&& !Modifier.isAbstract(raw.getModifiers())
+				&& raw.getCanonicalName() != null;
+	}
+
 	@SuppressWarnings("unchecked") // covariant immutable cast + runtime checks
 	public static <T> Datatype<T> forStruct(TypeToken<T> type) {
 		Class<?> raw = type.getRawType();
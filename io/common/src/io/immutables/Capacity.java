@@ -81,6 +81,30 @@ public final class Capacity {
 		return Arrays.copyOf(elements, newCapacity);
 	}
 
+	public static double[] ensure(double[] elements, int limit, int increment) {
+		int oldCapacity = elements.length;
+		// check is made this way to avoid overflow
+		if (oldCapacity - limit >= increment) return elements;
+
+		int requiredCapacity = oldCapacity + increment;
+		int newCapacity;
+		// checking for overflow
+		if (requiredCapacity < oldCapacity) {
+			newCapacity = Integer.MAX_VALUE;
+		} else {
+			newCapacity = oldCapacity << 1;
+			if (newCapacity < requiredCapacity) {
+				newCapacity = Integer.highestOneBit(requiredCapacity - 1) << 1;
+			}
+			if (newCapacity == 0) {
+				newCapacity = requiredCapacity;
+			} else if (newCapacity < 0) {
+				newCapacity = Integer.MAX_VALUE;
+			}
+		}
+		return Arrays.copyOf(elements, newCapacity);
+	}
+
 	public static <T> T[] ensure(T[] elements, int limit, int increment) {
 		int oldCapacity = elements.length;
 		// check is made this way to avoid overflow
@@ -1,10 +1,17 @@
 package io.immutables;
 
 import com.google.common.base.Strings;
+import java.io.IOException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
 import static com.google.common.base.Preconditions.checkPositionIndex;
 import static com.google.common.base.Preconditions.checkPositionIndexes;
 import static com.google.common.base.Preconditions.checkState;
@@ -113,14 +120,12 @@ public interface Source {
 	}
 
 	final class Excerpt {
-		private final int gutterWidth;
 		private final CharSequence source;
 		private final Lines lines;
 
 		private Excerpt(CharSequence source, Lines lines) {
 			this.source = source;
 			this.lines = lines;
-			this.gutterWidth = Math.max(1, computeLineNumberMagnitude(lines.count()));
 		}
 
 		public static Excerpt from(CharSequence source) {
@@ -131,6 +136,15 @@ public interface Source {
 			return new Excerpt(source, lines);
 		}
 
+		/**
+		 * Gutter fits all line numbers if lines are indexed completely, otherwise lazily indexed lines are
+		 * not indexed further than the last line shown.
+		 */
+		private int computeGutterWidth(int lastShownLine) {
+			int size = lines.input == null ? lines.count() : lastShownLine;
+			return Math.max(1, computeLineNumberMagnitude(size));
+		}
+
 		private static int computeLineNumberMagnitude(int size) {
 			for (int m = 10, i = 1; m < Integer.MAX_VALUE; m *= 10, i++) {
 				if (size / m == 0) return i;
@@ -154,18 +168,19 @@ public interface Source {
 				columnEnd = columnStart + 1;
 			}
 
+			int gutterWidth = computeGutterWidth(lineNumber + 2);
 			StringBuilder sb = new StringBuilder();
 
-			appendLinesAbove(sb, lineNumber);
-			appendLine(sb, lineNumber);
-			appendSquiggles(sb, lineNumber, columnStart, columnEnd);
-			appendLinesBelow(sb, lineNumber);
+			appendLinesAbove(sb, gutterWidth, lineNumber);
+			appendLine(sb, gutterWidth, lineNumber);
+			appendSquiggles(sb, gutterWidth, lineNumber, columnStart, columnEnd);
+			appendLinesBelow(sb, gutterWidth, lineNumber);
 
 			return sb;
 		}
 
-		private void appendSquiggles(StringBuilder sb, int lineNumber, int columnStart, int columnEnd) {
-			gutterFill(sb, '^');
+		private void appendSquiggles(StringBuilder sb, int gutterWidth, int lineNumber, int columnStart, int columnEnd) {
+			gutterFill(sb, gutterWidth, '^');
 
 			CharSequence line = getLine(lineNumber);
 			int squiggleStart = columnStart - 1;
@@ -190,34 +205,34 @@ public interface Source {
 			sb.append('\n');
 		}
 
-		private void appendLinesAbove(StringBuilder sb, int lineNumber) {
+		private void appendLinesAbove(StringBuilder sb, int gutterWidth, int lineNumber) {
 			if (lineNumber > 1) {
 				if (lineNumber == 3) {
-					appendLine(sb, lineNumber - 2);
+					appendLine(sb, gutterWidth, lineNumber - 2);
 				} else if (lineNumber > 3) {
-					appendLine(sb, lineNumber - 2, ELLIPSIS);
+					appendLine(sb, gutterWidth, lineNumber - 2, ELLIPSIS);
 				}
-				appendLine(sb, lineNumber - 1);
+				appendLine(sb, gutterWidth, lineNumber - 1);
 			}
 		}
 
-		private void appendLinesBelow(StringBuilder sb, int lineNumber) {
-			if (lineNumber + 1 <= lines.count()) {
-				appendLine(sb, lineNumber + 1);
-				if (lineNumber + 2 == lines.count()) {
-					appendLine(sb, lineNumber + 2);
-				} else if (lineNumber + 2 < lines.count()) {
-					appendLine(sb, lineNumber + 2, ELLIPSIS);
+		private void appendLinesBelow(StringBuilder sb, int gutterWidth, int lineNumber) {
+			if (lines.hasLine(lineNumber + 1)) {
+				appendLine(sb, gutterWidth, lineNumber + 1);
+				if (lines.hasLine(lineNumber + 3)) {
+					appendLine(sb, gutterWidth, lineNumber + 2, ELLIPSIS);
+				} else if (lines.hasLine(lineNumber + 2)) {
+					appendLine(sb, gutterWidth, lineNumber + 2);
 				}
 			}
 		}
 
-		private void appendLine(StringBuilder sb, int lineNumber) {
-			appendLine(sb, lineNumber, getLine(lineNumber));
+		private void appendLine(StringBuilder sb, int gutterWidth, int lineNumber) {
+			appendLine(sb, gutterWidth, lineNumber, getLine(lineNumber));
 		}
 
-		private void appendLine(StringBuilder sb, int lineNumber, CharSequence content) {
-			gutter(sb, String.valueOf(lineNumber));
+		private void appendLine(StringBuilder sb, int gutterWidth, int lineNumber, CharSequence content) {
+			gutter(sb, gutterWidth, String.valueOf(lineNumber));
 			for (int i = 0; i < content.length(); i++) {
 				char c = content.charAt(i);
 				if (c == '\t') {
@@ -229,11 +244,11 @@ public interface Source {
 			sb.append('\n');
 		}
 
-		private StringBuilder gutter(StringBuilder sb, String gutter) {
+		private StringBuilder gutter(StringBuilder sb, int gutterWidth, String gutter) {
 			return sb.append(Strings.padStart(gutter, gutterWidth, ' ')).append(GUTTER_SEPARATOR);
 		}
 
-		private StringBuilder gutterFill(StringBuilder sb, char c) {
+		private StringBuilder gutterFill(StringBuilder sb, int gutterWidth, char c) {
 			return appendRepeat(sb, c, gutterWidth).append(GUTTER_SEPARATOR);
 		}
 
@@ -246,9 +261,10 @@ public interface Source {
 
 		@Override
 		public String toString() {
+			int gutterWidth = computeGutterWidth(lines.count());
 			StringBuilder sb = new StringBuilder();
 			for (int l = 1; l <= lines.count(); l++) {
-				appendLine(sb, l);
+				appendLine(sb, gutterWidth, l);
 			}
 			return sb.toString();
 		}
@@ -284,19 +300,41 @@ public interface Source {
 	}
 
 	final class Lines {
-		private final int[] lines;
-		private final int count;
+		private static final int SCAN_CHUNK = 64 * 1024;
+
+		private int[] lines;
+		private int count;
+		/** Input which is not yet completely indexed, {@code null} if all lines are indexed. */
+		private @Nullable CharSequence input;
+		/** Position up to which input is indexed. */
+		private int scanned;
 
 		private Lines(int[] lines, int count) {
 			this.lines = lines;
 			this.count = count;
 		}
 
+		private Lines(CharSequence input) {
+			this.lines = new int[128];
+			this.lines[0] = -1;
+			this.count = 1;
+			this.input = input;
+		}
+
 		public int count() {
+			while (input != null) scanChunk();
 			return count;
 		}
 
+		/** If line with number exists. Lazily indexed lines are indexed only up to that line. */
+		public boolean hasLine(int lineNumber) {
+			while (input != null && count < lineNumber) scanChunk();
+			return lineNumber >= 1 && lineNumber <= count;
+		}
+
 		public Range getLineRange(int lineNumber) {
+			// line range needs the end of the line, i.e. the start of the next one
+			while (input != null && count <= lineNumber) scanChunk();
 			checkPositionIndex(lineNumber - 1, count);
 			int before = lines[lineNumber - 1];
 			int after = lines[lineNumber];
@@ -307,6 +345,7 @@ public interface Source {
 
 		public Position get(int position) {
 			checkArgument(position >= 0, "position >= 0");
+			while (input != null && scanned <= position) scanChunk();
 			int lineIndex = Arrays.binarySearch(lines, 0, count, position);
 			if (lineIndex < 0) {
 				lineIndex = -lineIndex - 2;
@@ -321,10 +360,39 @@ public interface Source {
 			return Position.of(position, lineNumber, columnNumber);
 		}
 
+		private void scanChunk() {
+			CharSequence in = input;
+			assert in != null;
+			int length = in.length();
+			int end = length - scanned > SCAN_CHUNK ? scanned + SCAN_CHUNK : length;
+			for (int i = scanned; i < end; i++) {
+				if (in.charAt(i) == '\n') {
+					// reserving one more for the end of the last line
+					lines = Capacity.ensure(lines, count, 2);
+					lines[count++] = i;
+				}
+			}
+			scanned = end;
+			if (end == length) {
+				lines = Capacity.ensure(lines, count, 1);
+				lines[count] = length;
+				input = null;
+			}
+		}
+
 		public static Lines from(char[] input) {
 			return from(wrap(input));
 		}
 
+		/**
+		 * Lines which are indexed lazily, in chunks, only as far as requested positions and line numbers,
+		 * so reporting positions near the beginning of a large input does not scan the whole input.
+		 * Such lines are mutable and so are not thread safe until {@link #count()} is called.
+		 */
+		public static Lines lazy(CharSequence input) {
+			return new Lines(input);
+		}
+
 		public static Lines from(CharSequence input) {
 			Tracker t = new Tracker();
 			int length = input.length();
@@ -518,6 +586,94 @@ public interface Source {
 		}
 	}
 
+	/**
+	 * Source backed by a memory-mapped file, so that large files are not read onto the heap. Use with
+	 * {@link Lines#lazy(CharSequence)} to report problems in large files. Character sequence cannot be
+	 * longer than {@code int} positions can address, so files larger than that (2GB) are to be mapped in
+	 * windows, see {@link #map(Path, long, int)}.
+	 * <p>
+	 * Each byte is read as a character, as in ISO-8859-1, which is exact for ASCII content only. For
+	 * UTF-8 content having non-ASCII characters, positions and columns count bytes and excerpts show
+	 * each byte of a multibyte character as a separate garbled character. Read such files into a string
+	 * if problems are to be reported with excerpts.
+	 */
+	final class Mapped implements CharSequence {
+		private final ByteBuffer buffer;
+		private final int begin;
+		private final int end;
+		private final long offset;
+
+		private Mapped(ByteBuffer buffer, int begin, int end, long offset) {
+			this.buffer = buffer;
+			this.begin = begin;
+			this.end = end;
+			this.offset = offset;
+		}
+
+		/**
+		 * Maps the whole file.
+		 * @throws IllegalArgumentException if file is larger than 2GB, use {@link #map(Path, long, int)}
+		 */
+		public static Mapped map(Path file) throws IOException {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				long size = channel.size();
+				checkArgument(size <= Integer.MAX_VALUE,
+						"file is too large to map as a whole, map it in windows: %s", file);
+				return map(channel, 0, (int) size);
+			}
+		}
+
+		/**
+		 * Maps window of the file starting at position, window is truncated if file ends sooner. Windows
+		 * can be used to read files of any size, but positions, and so lines and ranges, computed over the
+		 * window are relative to its beginning. Positions can be translated to file positions by adding
+		 * {@link #offset()}, but lines cannot be translated without reading the file up to the window, so
+		 * windows are not to be used to report problems with line numbers, map whole file for that.
+		 */
+		public static Mapped map(Path file, long position, int size) throws IOException {
+			checkArgument(position >= 0 && size >= 0, "negative position or size");
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				long start = Math.min(position, channel.size());
+				return map(channel, start, (int) Math.min(size, channel.size() - start));
+			}
+		}
+
+		private static Mapped map(FileChannel channel, long position, int size) throws IOException {
+			// mapping stays valid after channel is closed
+			return new Mapped(channel.map(FileChannel.MapMode.READ_ONLY, position, size), 0, size, position);
+		}
+
+		/** Position in the file of the first character, non-zero for windows and their subsequences. */
+		public long offset() {
+			return offset;
+		}
+
+		@Override
+		public int length() {
+			return end - begin;
+		}
+
+		@Override
+		public char charAt(int index) {
+			checkElementIndex(index, end - begin);
+			return (char) (buffer.get(begin + index) & 0xff);
+		}
+
+		/** Shallow subsequence sharing the mapping. */
+		@Override
+		public CharSequence subSequence(int begin, int end) {
+			checkPositionIndexes(begin, end, length());
+			return new Mapped(buffer, this.begin + begin, this.begin + end, offset + begin);
+		}
+
+		@Override
+		public String toString() {
+			byte[] bytes = new byte[end - begin];
+			buffer.duplicate().position(begin).get(bytes);
+			return new String(bytes, StandardCharsets.ISO_8859_1);
+		}
+	}
+
 	final class SourceWrapper implements CharSequence {
 		private final char[] data;
 		private final int begin;
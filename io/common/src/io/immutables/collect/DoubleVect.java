@@ -0,0 +1,259 @@
+package io.immutables.collect;
+
+import io.immutables.Capacity;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Immutable vector of {@code double} values, primitive counterpart of {@link Vect} which avoids boxing.
+ * Like {@link Vect}, it is a range of backing array, so {@link #range(int, int)} is a view sharing the
+ * array. Spliterator is over the backing array, so it is sized and splits evenly for parallel streams.
+ */
+@Immutable
+public final class DoubleVect {
+	private static final double[] EMPTY_ARRAY = new double[]{};
+	private static final DoubleVect EMPTY = new DoubleVect(EMPTY_ARRAY);
+
+	/** Backing array, can be larger than this vector and shared with other vectors. */
+	final double[] elements;
+	final int offset;
+	final int size;
+
+	DoubleVect(double[] elements) {
+		this(elements, 0, elements.length);
+	}
+
+	private DoubleVect(double[] elements, int offset, int size) {
+		this.elements = elements;
+		this.offset = offset;
+		this.size = size;
+	}
+
+	public double get(int index) {
+		checkElementIndex(index, size);
+		return elements[offset + index];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public double first() {
+		if (isEmpty()) throw new NoSuchElementException("first()");
+		return elements[offset];
+	}
+
+	public double last() {
+		if (isEmpty()) throw new NoSuchElementException("last()");
+		return elements[offset + size - 1];
+	}
+
+	public DoubleVect map(DoubleUnaryOperator to) {
+		if (size == 0) return EMPTY;
+		double[] newElements = new double[size];
+		for (int i = 0; i < size; i++) {
+			newElements[i] = to.applyAsDouble(elements[offset + i]);
+		}
+		return new DoubleVect(newElements);
+	}
+
+	public <R> Vect<R> mapToObj(DoubleFunction<? extends R> to) {
+		if (size == 0) return Vect.of();
+		Object[] newElements = new Object[size];
+		for (int i = 0; i < size; i++) {
+			newElements[i] = requireNonNull(to.apply(elements[offset + i]));
+		}
+		return new Vect<>(newElements);
+	}
+
+	public DoubleVect filter(DoublePredicate is) {
+		if (size == 0) return EMPTY;
+		double[] newElements = new double[size];
+		int count = 0;
+		for (int i = offset, end = offset + size; i < end; i++) {
+			double e = elements[i];
+			if (is.test(e)) {
+				newElements[count++] = e;
+			}
+		}
+		if (count == size) return this;
+		return count == 0 ? of() : new DoubleVect(Arrays.copyOf(newElements, count));
+	}
+
+	public boolean any(DoublePredicate is) {
+		for (int i = offset, end = offset + size; i < end; i++) {
+			if (is.test(elements[i])) return true;
+		}
+		return false;
+	}
+
+	public boolean all(DoublePredicate is) {
+		for (int i = offset, end = offset + size; i < end; i++) {
+			if (!is.test(elements[i])) return false;
+		}
+		return true;
+	}
+
+	public boolean contains(double element) {
+		for (int i = offset, end = offset + size; i < end; i++) {
+			if (Double.compare(elements[i], element) == 0) return true;
+		}
+		return false;
+	}
+
+	public void forEach(DoubleConsumer consumer) {
+		for (int i = offset, end = offset + size; i < end; i++) {
+			consumer.accept(elements[i]);
+		}
+	}
+
+	public double fold(double left, DoubleBinaryOperator folder) {
+		double a = left;
+		for (int i = offset, end = offset + size; i < end; i++) {
+			a = folder.applyAsDouble(a, elements[i]);
+		}
+		return a;
+	}
+
+	public double reduce(DoubleBinaryOperator reducer) {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		double a = elements[offset];
+		for (int i = offset + 1, end = offset + size; i < end; i++) {
+			a = reducer.applyAsDouble(a, elements[i]);
+		}
+		return a;
+	}
+
+	public double sum() {
+		double sum = 0;
+		for (int i = offset, end = offset + size; i < end; i++) {
+			sum += elements[i];
+		}
+		return sum;
+	}
+
+	/** View of the range of this vector, which shares the backing array. */
+	public DoubleVect range(int from, int to) {
+		checkPositionIndexes(from, to, size);
+		if (from == to) return EMPTY;
+		if (from == 0 && to == size) return this;
+		return new DoubleVect(elements, offset + from, to - from);
+	}
+
+	public double[] toArray() {
+		return Arrays.copyOfRange(elements, offset, offset + size);
+	}
+
+	public Spliterator.OfDouble spliterator() {
+		return Spliterators.spliterator(elements, offset, offset + size, Spliterator.IMMUTABLE);
+	}
+
+	public DoubleStream stream() {
+		return StreamSupport.doubleStream(spliterator(), false);
+	}
+
+	@Override
+	public int hashCode() {
+		int h = 1;
+		for (int i = offset, end = offset + size; i < end; i++) {
+			h = 31 * h + Double.hashCode(elements[i]);
+		}
+		return h;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) return true;
+		if (!(obj instanceof DoubleVect)) return false;
+		DoubleVect other = (DoubleVect) obj;
+		return Arrays.equals(
+				elements, offset, offset + size,
+				other.elements, other.offset, other.offset + other.size);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("[");
+		for (int i = offset, end = offset + size; i < end; i++) {
+			if (i > offset) builder.append(", ");
+			builder.append(elements[i]);
+		}
+		return builder.append(']').toString();
+	}
+
+	public static DoubleVect of(double... elements) {
+		if (elements.length == 0) return EMPTY;
+		return new DoubleVect(elements.clone());
+	}
+
+	public static DoubleVect of() {
+		return EMPTY;
+	}
+
+	public static Builder builder() {
+		return new Builder(10);
+	}
+
+	public static Builder builderWithExpectedSize(int size) {
+		return new Builder(size);
+	}
+
+	@NotThreadSafe
+	public static final class Builder {
+		private double[] elements = EMPTY_ARRAY;
+		private int size;
+
+		Builder(int expectedSize) {
+			elements = Capacity.ensure(elements, 0, expectedSize);
+		}
+
+		public Builder add(double element) {
+			elements = Capacity.ensure(elements, size, 1);
+			elements[size++] = element;
+			return this;
+		}
+
+		public Builder addAll(double... elements) {
+			return addAll(elements, 0, elements.length);
+		}
+
+		public Builder addAll(DoubleVect vect) {
+			return addAll(vect.elements, vect.offset, vect.size);
+		}
+
+		private Builder addAll(double[] elements, int offset, int length) {
+			this.elements = Capacity.ensure(this.elements, size, length);
+			System.arraycopy(elements, offset, this.elements, size, length);
+			size += length;
+			return this;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public DoubleVect build() {
+			return size == 0 ? of() : new DoubleVect(Arrays.copyOf(elements, size));
+		}
+	}
+}
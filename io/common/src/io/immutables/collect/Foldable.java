@@ -9,4 +9,12 @@ public interface Foldable<E> {
 	<A> A fold(BiFunction<E, A, A> reducer, A right);
 
 	E reduce(BiFunction<E, E, E> reducer);
+
+	/**
+	 * Reduces using associative reducer, implementations may split elements and reduce parts in
+	 * parallel. By default, it is the same as sequential {@link #reduce(BiFunction)}.
+	 */
+	default E parallelReduce(BiFunction<E, E, E> reducer) {
+		return reduce(reducer);
+	}
 }
@@ -0,0 +1,259 @@
+package io.immutables.collect;
+
+import io.immutables.Capacity;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Immutable vector of {@code int} values, primitive counterpart of {@link Vect} which avoids boxing.
+ * Like {@link Vect}, it is a range of backing array, so {@link #range(int, int)} is a view sharing the
+ * array. Spliterator is over the backing array, so it is sized and splits evenly for parallel streams.
+ */
+@Immutable
+public final class IntVect {
+	private static final int[] EMPTY_ARRAY = new int[]{};
+	private static final IntVect EMPTY = new IntVect(EMPTY_ARRAY);
+
+	/** Backing array, can be larger than this vector and shared with other vectors. */
+	final int[] elements;
+	final int offset;
+	final int size;
+
+	IntVect(int[] elements) {
+		this(elements, 0, elements.length);
+	}
+
+	private IntVect(int[] elements, int offset, int size) {
+		this.elements = elements;
+		this.offset = offset;
+		this.size = size;
+	}
+
+	public int get(int index) {
+		checkElementIndex(index, size);
+		return elements[offset + index];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int first() {
+		if (isEmpty()) throw new NoSuchElementException("first()");
+		return elements[offset];
+	}
+
+	public int last() {
+		if (isEmpty()) throw new NoSuchElementException("last()");
+		return elements[offset + size - 1];
+	}
+
+	public IntVect map(IntUnaryOperator to) {
+		if (size == 0) return EMPTY;
+		int[] newElements = new int[size];
+		for (int i = 0; i < size; i++) {
+			newElements[i] = to.applyAsInt(elements[offset + i]);
+		}
+		return new IntVect(newElements);
+	}
+
+	public <R> Vect<R> mapToObj(IntFunction<? extends R> to) {
+		if (size == 0) return Vect.of();
+		Object[] newElements = new Object[size];
+		for (int i = 0; i < size; i++) {
+			newElements[i] = requireNonNull(to.apply(elements[offset + i]));
+		}
+		return new Vect<>(newElements);
+	}
+
+	public IntVect filter(IntPredicate is) {
+		if (size == 0) return EMPTY;
+		int[] newElements = new int[size];
+		int count = 0;
+		for (int i = offset, end = offset + size; i < end; i++) {
+			int e = elements[i];
+			if (is.test(e)) {
+				newElements[count++] = e;
+			}
+		}
+		if (count == size) return this;
+		return count == 0 ? of() : new IntVect(Arrays.copyOf(newElements, count));
+	}
+
+	public boolean any(IntPredicate is) {
+		for (int i = offset, end = offset + size; i < end; i++) {
+			if (is.test(elements[i])) return true;
+		}
+		return false;
+	}
+
+	public boolean all(IntPredicate is) {
+		for (int i = offset, end = offset + size; i < end; i++) {
+			if (!is.test(elements[i])) return false;
+		}
+		return true;
+	}
+
+	public boolean contains(int element) {
+		for (int i = offset, end = offset + size; i < end; i++) {
+			if (elements[i] == element) return true;
+		}
+		return false;
+	}
+
+	public void forEach(IntConsumer consumer) {
+		for (int i = offset, end = offset + size; i < end; i++) {
+			consumer.accept(elements[i]);
+		}
+	}
+
+	public int fold(int left, IntBinaryOperator folder) {
+		int a = left;
+		for (int i = offset, end = offset + size; i < end; i++) {
+			a = folder.applyAsInt(a, elements[i]);
+		}
+		return a;
+	}
+
+	public int reduce(IntBinaryOperator reducer) {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		int a = elements[offset];
+		for (int i = offset + 1, end = offset + size; i < end; i++) {
+			a = reducer.applyAsInt(a, elements[i]);
+		}
+		return a;
+	}
+
+	public long sum() {
+		long sum = 0;
+		for (int i = offset, end = offset + size; i < end; i++) {
+			sum += elements[i];
+		}
+		return sum;
+	}
+
+	/** View of the range of this vector, which shares the backing array. */
+	public IntVect range(int from, int to) {
+		checkPositionIndexes(from, to, size);
+		if (from == to) return EMPTY;
+		if (from == 0 && to == size) return this;
+		return new IntVect(elements, offset + from, to - from);
+	}
+
+	public int[] toArray() {
+		return Arrays.copyOfRange(elements, offset, offset + size);
+	}
+
+	public Spliterator.OfInt spliterator() {
+		return Spliterators.spliterator(elements, offset, offset + size, Spliterator.IMMUTABLE);
+	}
+
+	public IntStream stream() {
+		return StreamSupport.intStream(spliterator(), false);
+	}
+
+	@Override
+	public int hashCode() {
+		int h = 1;
+		for (int i = offset, end = offset + size; i < end; i++) {
+			h = 31 * h + elements[i];
+		}
+		return h;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) return true;
+		if (!(obj instanceof IntVect)) return false;
+		IntVect other = (IntVect) obj;
+		return Arrays.equals(
+				elements, offset, offset + size,
+				other.elements, other.offset, other.offset + other.size);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("[");
+		for (int i = offset, end = offset + size; i < end; i++) {
+			if (i > offset) builder.append(", ");
+			builder.append(elements[i]);
+		}
+		return builder.append(']').toString();
+	}
+
+	public static IntVect of(int... elements) {
+		if (elements.length == 0) return EMPTY;
+		return new IntVect(elements.clone());
+	}
+
+	public static IntVect of() {
+		return EMPTY;
+	}
+
+	public static Builder builder() {
+		return new Builder(10);
+	}
+
+	public static Builder builderWithExpectedSize(int size) {
+		return new Builder(size);
+	}
+
+	@NotThreadSafe
+	public static final class Builder {
+		private int[] elements = EMPTY_ARRAY;
+		private int size;
+
+		Builder(int expectedSize) {
+			elements = Capacity.ensure(elements, 0, expectedSize);
+		}
+
+		public Builder add(int element) {
+			elements = Capacity.ensure(elements, size, 1);
+			elements[size++] = element;
+			return this;
+		}
+
+		public Builder addAll(int... elements) {
+			return addAll(elements, 0, elements.length);
+		}
+
+		public Builder addAll(IntVect vect) {
+			return addAll(vect.elements, vect.offset, vect.size);
+		}
+
+		private Builder addAll(int[] elements, int offset, int length) {
+			this.elements = Capacity.ensure(this.elements, size, length);
+			System.arraycopy(elements, offset, this.elements, size, length);
+			size += length;
+			return this;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public IntVect build() {
+			return size == 0 ? of() : new IntVect(Arrays.copyOf(elements, size));
+		}
+	}
+}
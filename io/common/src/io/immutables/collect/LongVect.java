@@ -0,0 +1,259 @@
+package io.immutables.collect;
+
+import io.immutables.Capacity;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Immutable vector of {@code long} values, primitive counterpart of {@link Vect} which avoids boxing.
+ * Like {@link Vect}, it is a range of backing array, so {@link #range(int, int)} is a view sharing the
+ * array. Spliterator is over the backing array, so it is sized and splits evenly for parallel streams.
+ */
+@Immutable
+public final class LongVect {
+	private static final long[] EMPTY_ARRAY = new long[]{};
+	private static final LongVect EMPTY = new LongVect(EMPTY_ARRAY);
+
+	/** Backing array, can be larger than this vector and shared with other vectors. */
+	final long[] elements;
+	final int offset;
+	final int size;
+
+	LongVect(long[] elements) {
+		this(elements, 0, elements.length);
+	}
+
+	private LongVect(long[] elements, int offset, int size) {
+		this.elements = elements;
+		this.offset = offset;
+		this.size = size;
+	}
+
+	public long get(int index) {
+		checkElementIndex(index, size);
+		return elements[offset + index];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public long first() {
+		if (isEmpty()) throw new NoSuchElementException("first()");
+		return elements[offset];
+	}
+
+	public long last() {
+		if (isEmpty()) throw new NoSuchElementException("last()");
+		return elements[offset + size - 1];
+	}
+
+	public LongVect map(LongUnaryOperator to) {
+		if (size == 0) return EMPTY;
+		long[] newElements = new long[size];
+		for (int i = 0; i < size; i++) {
+			newElements[i] = to.applyAsLong(elements[offset + i]);
+		}
+		return new LongVect(newElements);
+	}
+
+	public <R> Vect<R> mapToObj(LongFunction<? extends R> to) {
+		if (size == 0) return Vect.of();
+		Object[] newElements = new Object[size];
+		for (int i = 0; i < size; i++) {
+			newElements[i] = requireNonNull(to.apply(elements[offset + i]));
+		}
+		return new Vect<>(newElements);
+	}
+
+	public LongVect filter(LongPredicate is) {
+		if (size == 0) return EMPTY;
+		long[] newElements = new long[size];
+		int count = 0;
+		for (int i = offset, end = offset + size; i < end; i++) {
+			long e = elements[i];
+			if (is.test(e)) {
+				newElements[count++] = e;
+			}
+		}
+		if (count == size) return this;
+		return count == 0 ? of() : new LongVect(Arrays.copyOf(newElements, count));
+	}
+
+	public boolean any(LongPredicate is) {
+		for (int i = offset, end = offset + size; i < end; i++) {
+			if (is.test(elements[i])) return true;
+		}
+		return false;
+	}
+
+	public boolean all(LongPredicate is) {
+		for (int i = offset, end = offset + size; i < end; i++) {
+			if (!is.test(elements[i])) return false;
+		}
+		return true;
+	}
+
+	public boolean contains(long element) {
+		for (int i = offset, end = offset + size; i < end; i++) {
+			if (Long.compare(elements[i], element) == 0) return true;
+		}
+		return false;
+	}
+
+	public void forEach(LongConsumer consumer) {
+		for (int i = offset, end = offset + size; i < end; i++) {
+			consumer.accept(elements[i]);
+		}
+	}
+
+	public long fold(long left, LongBinaryOperator folder) {
+		long a = left;
+		for (int i = offset, end = offset + size; i < end; i++) {
+			a = folder.applyAsLong(a, elements[i]);
+		}
+		return a;
+	}
+
+	public long reduce(LongBinaryOperator reducer) {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		long a = elements[offset];
+		for (int i = offset + 1, end = offset + size; i < end; i++) {
+			a = reducer.applyAsLong(a, elements[i]);
+		}
+		return a;
+	}
+
+	public long sum() {
+		long sum = 0;
+		for (int i = offset, end = offset + size; i < end; i++) {
+			sum += elements[i];
+		}
+		return sum;
+	}
+
+	/** View of the range of this vector, which shares the backing array. */
+	public LongVect range(int from, int to) {
+		checkPositionIndexes(from, to, size);
+		if (from == to) return EMPTY;
+		if (from == 0 && to == size) return this;
+		return new LongVect(elements, offset + from, to - from);
+	}
+
+	public long[] toArray() {
+		return Arrays.copyOfRange(elements, offset, offset + size);
+	}
+
+	public Spliterator.OfLong spliterator() {
+		return Spliterators.spliterator(elements, offset, offset + size, Spliterator.IMMUTABLE);
+	}
+
+	public LongStream stream() {
+		return StreamSupport.longStream(spliterator(), false);
+	}
+
+	@Override
+	public int hashCode() {
+		int h = 1;
+		for (int i = offset, end = offset + size; i < end; i++) {
+			h = 31 * h + Long.hashCode(elements[i]);
+		}
+		return h;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) return true;
+		if (!(obj instanceof LongVect)) return false;
+		LongVect other = (LongVect) obj;
+		return Arrays.equals(
+				elements, offset, offset + size,
+				other.elements, other.offset, other.offset + other.size);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("[");
+		for (int i = offset, end = offset + size; i < end; i++) {
+			if (i > offset) builder.append(", ");
+			builder.append(elements[i]);
+		}
+		return builder.append(']').toString();
+	}
+
+	public static LongVect of(long... elements) {
+		if (elements.length == 0) return EMPTY;
+		return new LongVect(elements.clone());
+	}
+
+	public static LongVect of() {
+		return EMPTY;
+	}
+
+	public static Builder builder() {
+		return new Builder(10);
+	}
+
+	public static Builder builderWithExpectedSize(int size) {
+		return new Builder(size);
+	}
+
+	@NotThreadSafe
+	public static final class Builder {
+		private long[] elements = EMPTY_ARRAY;
+		private int size;
+
+		Builder(int expectedSize) {
+			elements = Capacity.ensure(elements, 0, expectedSize);
+		}
+
+		public Builder add(long element) {
+			elements = Capacity.ensure(elements, size, 1);
+			elements[size++] = element;
+			return this;
+		}
+
+		public Builder addAll(long... elements) {
+			return addAll(elements, 0, elements.length);
+		}
+
+		public Builder addAll(LongVect vect) {
+			return addAll(vect.elements, vect.offset, vect.size);
+		}
+
+		private Builder addAll(long[] elements, int offset, int length) {
+			this.elements = Capacity.ensure(this.elements, size, length);
+			System.arraycopy(elements, offset, this.elements, size, length);
+			size += length;
+			return this;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public LongVect build() {
+			return size == 0 ? of() : new LongVect(Arrays.copyOf(elements, size));
+		}
+	}
+}
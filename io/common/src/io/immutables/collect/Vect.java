@@ -8,6 +8,10 @@ import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -22,14 +26,26 @@ import javax.annotation.CheckReturnValue;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.NotThreadSafe;
-import static com.google.common.base.Preconditions.checkPositionIndex;
+import static com.google.common.base.Preconditions.checkElementIndex;
 import static com.google.common.base.Preconditions.checkPositionIndexes;
 import static java.util.Objects.requireNonNull;
 
 /**
  * Minimalistic wrapper around immutable array. We use it over ImmutableList because we want monomorphic call sites, no
- * unsupported mutation methods, minimum memory overhead, no views, have simplistic pattern matching capability and
- * short classname.
+ * unsupported mutation methods, minimum memory overhead, have simplistic pattern matching capability and short
+ * classname.
+ * <p>
+ * Ranges ({@link #range}, {@link #rangeFrom}, {@link #takeWhile}, {@link #dropWhile}) share the backing array and do
+ * not copy elements. Note that it also means that a small range keeps the whole array reachable, use
+ * {@link #from(Iterable) Vect.from(Arrays.asList(range.toArray()))} or builder to make a compact copy if necessary.
+ * Chains of transformations can be fused in a single pass without intermediate vectors using {@link #view()}.
+ * <p>
+ * To avoid quadratic copying when vectors are built incrementally using {@link #append}, {@link #prepend} or
+ * {@link #concat}, these allocate backing array with spare capacity which is then shared by the resulting vectors.
+ * A vector which ends (or starts) right at the edge of the used region of the shared array can claim adjacent free
+ * slots and extend in place, any other vector sharing the array is not affected as it never reads beyond its own
+ * range. So appending in a loop is amortized O(1), at the cost of up to double array capacity for such vectors.
+ * Vectors produced by {@link Builder} and factory methods have exactly sized arrays.
  * @param <E> element type
  */
 @Immutable
@@ -38,10 +54,26 @@ public final class Vect<E> implements Iterable<E>, Foldable<E> {
 	private static final Object[] EMPTY_ARRAY = new Object[]{};
 	private static final Vect<?> EMPTY = new Vect<>(EMPTY_ARRAY);
 
+	private static final int MIN_GROWN_CAPACITY = 8;
+	/** Vectors smaller than this are always processed sequentially by parallel operations. */
+	static final int PARALLEL_THRESHOLD = 1 << 11;
+
+	/** Backing array, can be larger than this vector and shared with other vectors. */
 	final Object[] elements;
+	final int offset;
+	final int size;
+	/** Present only if backing array have spare capacity which can be claimed by extending vectors. */
+	private final @Nullable Extent extent;
 
 	Vect(Object[] elements) {
+		this(elements, 0, elements.length, null);
+	}
+
+	private Vect(Object[] elements, int offset, int size, @Nullable Extent extent) {
 		this.elements = elements;
+		this.offset = offset;
+		this.size = size;
+		this.extent = extent;
 	}
 
 	Vect(byte checkNullDispatch, Object[] elements) {
@@ -51,6 +83,9 @@ public final class Vect<E> implements Iterable<E>, Foldable<E> {
 			}
 		}
 		this.elements = elements;
+		this.offset = 0;
+		this.size = elements.length;
+		this.extent = null;
 	}
 
 	@Override
@@ -59,27 +94,27 @@ public final class Vect<E> implements Iterable<E>, Foldable<E> {
 	}
 
 	public <R> Vect<R> mapIndex(BiFunction<Integer, ? super E, ? extends R> to) {
-		if (this == EMPTY) return of();
-		Object[] newElements = new Object[elements.length];
-		for (int i = 0; i < elements.length; i++) {
-			newElements[i] = requireNonNull(to.apply(i, (E) elements[i]));
+		if (size == 0) return of();
+		Object[] newElements = new Object[size];
+		for (int i = 0; i < size; i++) {
+			newElements[i] = requireNonNull(to.apply(i, (E) elements[offset + i]));
 		}
 		return new Vect<>(newElements);
 	}
 
 	public <R> Vect<R> map(Function<? super E, ? extends R> to) {
-		if (this == EMPTY) return of();
-		Object[] newElements = new Object[elements.length];
-		for (int i = 0; i < elements.length; i++) {
-			newElements[i] = requireNonNull(to.apply((E) elements[i]));
+		if (size == 0) return of();
+		Object[] newElements = new Object[size];
+		for (int i = 0; i < size; i++) {
+			newElements[i] = requireNonNull(to.apply((E) elements[offset + i]));
 		}
 		return new Vect<>(newElements);
 	}
 
 	public <R> Vect<R> flatMap(Function<? super E, ? extends Iterable<R>> to) {
-		Builder<R> builder = new Builder<>(elements.length);
-		for (Object e : elements) {
-			for (R r : to.apply((E) e)) {
+		Builder<R> builder = new Builder<>(size);
+		for (int i = offset, end = offset + size; i < end; i++) {
+			for (R r : to.apply((E) elements[i])) {
 				builder.add(r);
 			}
 		}
@@ -87,30 +122,30 @@ public final class Vect<E> implements Iterable<E>, Foldable<E> {
 	}
 
 	public Optional<E> findFirst(Predicate<? super E> is) {
-		for (Object o : elements) {
-			E e = (E) o;
+		for (int i = offset, end = offset + size; i < end; i++) {
+			E e = (E) elements[i];
 			if (is.test(e)) return Optional.of(e);
 		}
 		return Optional.empty();
 	}
 
 	public boolean any(Predicate<? super E> is) {
-		for (Object e : elements) {
-			if (is.test((E) e)) return true;
+		for (int i = offset, end = offset + size; i < end; i++) {
+			if (is.test((E) elements[i])) return true;
 		}
 		return false;
 	}
 
 	public boolean all(Predicate<? super E> is) {
-		for (Object e : elements) {
-			if (!is.test((E) e)) return false;
+		for (int i = offset, end = offset + size; i < end; i++) {
+			if (!is.test((E) elements[i])) return false;
 		}
 		return true;
 	}
 
 	public boolean contains(E element) {
-		for (Object e : elements) {
-			if (e.equals(element)) {
+		for (int i = offset, end = offset + size; i < end; i++) {
+			if (elements[i].equals(element)) {
 				return true;
 			}
 		}
@@ -119,8 +154,8 @@ public final class Vect<E> implements Iterable<E>, Foldable<E> {
 
 	@Override
 	public void forEach(Consumer<? super E> consumer) {
-		for (Object e : elements) {
-			consumer.accept((E) e);
+		for (int i = offset, end = offset + size; i < end; i++) {
+			consumer.accept((E) elements[i]);
 		}
 	}
 
@@ -131,27 +166,27 @@ public final class Vect<E> implements Iterable<E>, Foldable<E> {
 
 	public Vect<E> takeWhile(Predicate<? super E> predicate) {
 		int taken = 0;
-		for (taken = 0; taken < elements.length; taken++) {
-			if (!predicate.test((E) elements[taken])) break;
+		for (taken = 0; taken < size; taken++) {
+			if (!predicate.test((E) elements[offset + taken])) break;
 		}
 		if (taken == 0) return (Vect<E>) EMPTY;
-		if (taken == elements.length) return this;
+		if (taken == size) return this;
 		return range(0, taken);
 	}
 
 	public Vect<E> dropWhile(Predicate<? super E> predicate) {
 		int dropped = 0;
-		for (dropped = 0; dropped < elements.length; dropped++) {
-			if (!predicate.test((E) elements[dropped])) break;
+		for (dropped = 0; dropped < size; dropped++) {
+			if (!predicate.test((E) elements[offset + dropped])) break;
 		}
 		if (dropped == 0) return this;
-		if (dropped == elements.length) return (Vect<E>) EMPTY;
+		if (dropped == size) return (Vect<E>) EMPTY;
 		return rangeFrom(dropped);
 	}
 
 	public <R> R bipartition(Predicate<? super E> predicate, BiFunction<Vect<E>, Vect<E>, R> receiver) {
-		Builder<E> yes = new Builder<>(elements.length);
-		Builder<E> no = new Builder<>(elements.length);
+		Builder<E> yes = new Builder<>(size);
+		Builder<E> no = new Builder<>(size);
 		for (E e : this) {
 			(predicate.test(e) ? yes : no).add(e);
 		}
@@ -159,22 +194,24 @@ public final class Vect<E> implements Iterable<E>, Foldable<E> {
 	}
 
 	public Vect<E> filter(Predicate<? super E> is) {
-		if (this == EMPTY) return this;
-		Object[] newElements = elements.clone();
-		int size = 0;
-		for (Object e : elements) {
+		if (size == 0) return this;
+		Object[] newElements = new Object[size];
+		int count = 0;
+		for (int i = offset, end = offset + size; i < end; i++) {
+			Object e = elements[i];
 			if (is.test((E) e)) {
-				newElements[size++] = e;
+				newElements[count++] = e;
 			}
 		}
-		return size == 0 ? of() : new Vect<>(Arrays.copyOf(newElements, size));
+		if (count == size) return this;
+		return count == 0 ? of() : new Vect<>(Arrays.copyOf(newElements, count));
 	}
 
 	@Override
 	public <A> A fold(A left, BiFunction<A, E, A> folder) {
 		A a = requireNonNull(left);
-		for (Object e : elements) {
-			a = requireNonNull(folder.apply(a, (E) e));
+		for (int i = offset, end = offset + size; i < end; i++) {
+			a = requireNonNull(folder.apply(a, (E) elements[i]));
 		}
 		return a;
 	}
@@ -182,45 +219,50 @@ public final class Vect<E> implements Iterable<E>, Foldable<E> {
 	@Override
 	public <A> A fold(BiFunction<E, A, A> reducer, A right) {
 		A a = requireNonNull(right);
-		for (int i = elements.length - 1; i >= 0; i--) {
+		for (int i = offset + size - 1; i >= offset; i--) {
 			a = requireNonNull(reducer.apply((E) elements[i], a));
 		}
 		return a;
 	}
 
 	public Vect<E> prepend(E element) {
-		if (this == EMPTY) return of(element);
-		return new Builder<E>(elements.length + 1)
-				.add(element)
-				.addAll((E[]) elements)
-				.build();
+		requireNonNull(element);
+		if (size == 0) return of(element);
+		if (extent != null && extent.claimStart(offset, 1)) {
+			elements[offset - 1] = element;
+			return new Vect<>(elements, offset - 1, size + 1, extent);
+		}
+		return regrow(1, Extent.GROWS_START).prepend(element);
 	}
 
 	public Vect<E> append(E element) {
-		if (this == EMPTY) return of(element);
-		return new Builder<E>(elements.length + 1)
-				.addAll((E[]) elements)
-				.add(element)
-				.build();
+		requireNonNull(element);
+		if (size == 0) return of(element);
+		int end = offset + size;
+		if (extent != null && extent.claimEnd(end, 1, elements.length)) {
+			elements[end] = element;
+			return new Vect<>(elements, offset, size + 1, extent);
+		}
+		return regrow(1, Extent.GROWS_END).append(element);
 	}
 
 	public Vect<E> sort() {
-		if (elements.length <= 1) return this;
-		Object[] sorted = elements.clone();
+		if (size <= 1) return this;
+		Object[] sorted = toArray();
 		Arrays.sort(sorted);
 		return new Vect<>(sorted);
 	}
 
 	public Vect<E> sort(Comparator<? super E> comparator) {
-		if (elements.length <= 1) return this;
-		Object[] sorted = elements.clone();
+		if (size <= 1) return this;
+		Object[] sorted = toArray();
 		Arrays.sort((E[]) sorted, comparator);
 		return new Vect<>(sorted);
 	}
 
 	public Vect<E> reverse() {
-		if (elements.length <= 1) return this;
-		Object[] reversed = elements.clone();
+		if (size <= 1) return this;
+		Object[] reversed = toArray();
 		for (int i = 0, j = reversed.length - 1, mid = reversed.length / 2; i < mid; i++, j--) {
 			Object t = reversed[i];
 			reversed[i] = reversed[j];
@@ -231,71 +273,195 @@ public final class Vect<E> implements Iterable<E>, Foldable<E> {
 
 	@Override
 	public E reduce(BiFunction<E, E, E> reducer) {
-		if (elements.length == 0) {
+		if (size == 0) {
 			throw new NoSuchElementException();
 		}
-		E a = (E) elements[0];
-		for (int i = 1; i < elements.length; i++) {
+		E a = (E) elements[offset];
+		for (int i = offset + 1, end = offset + size; i < end; i++) {
 			a = requireNonNull(reducer.apply(a, (E) elements[i]));
 		}
 		return a;
 	}
 
 	public Vect<E> range(int from, int to) {
-		checkPositionIndexes(from, to, elements.length);
+		checkPositionIndexes(from, to, size);
 		if (from == to) return (Vect<E>) EMPTY;
-		return new Vect<>(Arrays.copyOfRange(elements, from, to));
+		if (from == 0 && to == size) return this;
+		return new Vect<>(elements, offset + from, to - from, extent);
 	}
 
 	public Vect<E> rangeFrom(int from) {
-		checkPositionIndex(from, elements.length);
-		if (this == EMPTY) return this;
-		return new Vect<>(Arrays.copyOfRange(elements, from, elements.length));
+		return range(from, size);
 	}
 
 	public E first() {
 		if (isEmpty()) throw new NoSuchElementException("first()");
-		return (E) elements[0];
+		return (E) elements[offset];
 	}
 
 	public E last() {
 		if (isEmpty()) throw new NoSuchElementException("first()");
-		return (E) elements[elements.length - 1];
+		return (E) elements[offset + size - 1];
 	}
 
 	public E get(int index) {
-		return (E) elements[index];
+		checkElementIndex(index, size);
+		return (E) elements[offset + index];
 	}
 
 	public int size() {
-		return elements.length;
+		return size;
 	}
 
 	public boolean isEmpty() {
-		return elements.length == 0;
+		return size == 0;
 	}
 
 	@Override
 	public int hashCode() {
-		return Arrays.hashCode(elements);
+		int h = 1;
+		for (int i = offset, end = offset + size; i < end; i++) {
+			h = 31 * h + elements[i].hashCode();
+		}
+		return h;
 	}
 
 	@Override
 	public boolean equals(Object obj) {
-		return obj == this
-				|| (obj instanceof Vect<?>
-				&& Arrays.equals(elements, ((Vect<?>) obj).elements));
+		if (obj == this) return true;
+		if (!(obj instanceof Vect<?>)) return false;
+		Vect<?> other = (Vect<?>) obj;
+		return size == other.size
+				&& Arrays.equals(
+						elements, offset, offset + size,
+						other.elements, other.offset, other.offset + other.size);
 	}
 
 	@Override
 	public Spliterator<E> spliterator() {
-		return Spliterators.spliterator(elements, Spliterator.IMMUTABLE);
+		return Spliterators.spliterator(elements, offset, offset + size, Spliterator.IMMUTABLE);
 	}
 
 	public Stream<E> stream() {
 		return StreamSupport.stream(spliterator(), false);
 	}
 
+	public Stream<E> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+
+	/**
+	 * Same as {@link #map(Function)}, but function is applied to ranges of elements in parallel using
+	 * common fork-join pool. Small vectors are mapped sequentially.
+	 */
+	public <R> Vect<R> parallelMap(Function<? super E, ? extends R> to) {
+		if (size < PARALLEL_THRESHOLD) return map(to);
+		Object[] newElements = new Object[size];
+		new Split(0, size, leafSize(), (begin, end) -> {
+			for (int i = begin; i < end; i++) {
+				newElements[i] = requireNonNull(to.apply((E) elements[offset + i]));
+			}
+		}).invoke();
+		return new Vect<>(newElements);
+	}
+
+	/**
+	 * Same as {@link #filter(Predicate)}, but predicate is tested for ranges of elements in parallel
+	 * using common fork-join pool. Small vectors are filtered sequentially.
+	 */
+	public Vect<E> parallelFilter(Predicate<? super E> is) {
+		if (size < PARALLEL_THRESHOLD) return filter(is);
+		boolean[] accepted = new boolean[size];
+		new Split(0, size, leafSize(), (begin, end) -> {
+			for (int i = begin; i < end; i++) {
+				accepted[i] = is.test((E) elements[offset + i]);
+			}
+		}).invoke();
+		Object[] newElements = new Object[size];
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			if (accepted[i]) newElements[count++] = elements[offset + i];
+		}
+		if (count == size) return this;
+		return count == 0 ? of() : new Vect<>(Arrays.copyOf(newElements, count));
+	}
+
+	/**
+	 * Reduces ranges of elements in parallel using common fork-join pool and then combines results,
+	 * so reducer have to be associative. Small vectors are reduced sequentially.
+	 */
+	@Override
+	public E parallelReduce(BiFunction<E, E, E> reducer) {
+		if (size < PARALLEL_THRESHOLD) return reduce(reducer);
+		return new Reduce<>(this, reducer, 0, size, leafSize()).invoke();
+	}
+
+	private int leafSize() {
+		int parts = ForkJoinPool.getCommonPoolParallelism() * 4;
+		return Math.max(PARALLEL_THRESHOLD / 2, size / parts);
+	}
+
+	private interface RangeAction {
+		void run(int from, int to);
+	}
+
+	/** Splits index range in halves until it is not larger than leaf size. */
+	private static final class Split extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int from;
+		private final int to;
+		private final int leafSize;
+		private final RangeAction action;
+
+		Split(int from, int to, int leafSize, RangeAction action) {
+			this.from = from;
+			this.to = to;
+			this.leafSize = leafSize;
+			this.action = action;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= leafSize) {
+				action.run(from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(
+					new Split(from, middle, leafSize, action),
+					new Split(middle, to, leafSize, action));
+		}
+	}
+
+	private static final class Reduce<E> extends RecursiveTask<E> {
+		private static final long serialVersionUID = 1L;
+		private final Vect<E> vect;
+		private final BiFunction<E, E, E> reducer;
+		private final int from;
+		private final int to;
+		private final int leafSize;
+
+		Reduce(Vect<E> vect, BiFunction<E, E, E> reducer, int from, int to, int leafSize) {
+			this.vect = vect;
+			this.reducer = reducer;
+			this.from = from;
+			this.to = to;
+			this.leafSize = leafSize;
+		}
+
+		@Override
+		protected E compute() {
+			if (to - from <= leafSize) {
+				return vect.range(from, to).reduce(reducer);
+			}
+			int middle = (from + to) >>> 1;
+			Reduce<E> right = new Reduce<>(vect, reducer, middle, to, leafSize);
+			right.fork();
+			E left = new Reduce<>(vect, reducer, from, middle, leafSize).compute();
+			return requireNonNull(reducer.apply(left, right.join()));
+		}
+	}
+
 	@Override
 	public String toString() {
 		return join(", ", "[", "]");
@@ -310,29 +476,104 @@ public final class Vect<E> implements Iterable<E>, Foldable<E> {
 	}
 
 	public Vect<E> concat(Vect<? extends E> v) {
-		return new Builder<E>(size() + v.size())
-				.addAll(this)
-				.addAll(v)
-				.build();
+		if (v.size == 0) return this;
+		if (size == 0) return (Vect<E>) v;
+		int total = size + v.size;
+		int end = offset + size;
+		if (extent != null && extent.claimEnd(end, v.size, elements.length)) {
+			System.arraycopy(v.elements, v.offset, elements, end, v.size);
+			return new Vect<>(elements, offset, total, extent);
+		}
+		if (v.extent != null && v.extent.claimStart(v.offset, size)) {
+			int start = v.offset - size;
+			System.arraycopy(elements, offset, v.elements, start, size);
+			return new Vect<>(v.elements, start, total, v.extent);
+		}
+		return regrow(v.size, Extent.GROWS_END).concat(v);
+	}
+
+	/**
+	 * Copies elements to the new backing array with free slots for extending at the edge. When vector is
+	 * extended at both edges, like from alternating append and prepend, free slots are left on both sides,
+	 * otherwise every extension at the other edge would copy again.
+	 */
+	private Vect<E> regrow(int increment, int grows) {
+		int g = extent != null ? extent.grows | grows : grows;
+		int capacity = g == Extent.GROWS_BOTH
+				? grownCapacity(size + increment, size + increment)
+				: grownCapacity(size, increment);
+		int start = g == Extent.GROWS_END ? 0
+				: g == Extent.GROWS_START ? capacity - size
+				: (capacity - size) / 2;
+		Object[] grown = new Object[capacity];
+		System.arraycopy(elements, offset, grown, start, size);
+		return new Vect<>(grown, start, size, new Extent(start, start + size, g));
 	}
 
 	public Object[] toArray() {
-		return elements.clone();
+		return Arrays.copyOfRange(elements, offset, offset + size);
 	}
 
 	public E[] toArray(E[] a) {
-		if (a.length < elements.length) {
-			return (E[]) Arrays.copyOf(elements, elements.length, a.getClass());
+		if (a.length < size) {
+			return (E[]) Arrays.copyOfRange(elements, offset, offset + size, a.getClass());
 		}
-		System.arraycopy(elements, 0, a, 0, elements.length);
+		System.arraycopy(elements, offset, a, 0, size);
 		// by the strange (useful?) convention, we set next extra
 		// element to null, but we don't null the rest if any.
-		if (a.length > elements.length) a[elements.length] = null;
+		if (a.length > size) a[size] = null;
 		return a;
 	}
 
 	public E[] toArray(IntFunction<E[]> factory) {
-		return toArray(factory.apply(elements.length)); // some microbenchmarks recomment 0?
+		return toArray(factory.apply(size)); // some microbenchmarks recomment 0?
+	}
+
+	/**
+	 * Capacity for the new backing array when extending vector: nearest power of 2 (but not too small)
+	 * so that the following extensions could be done in place.
+	 */
+	private static int grownCapacity(int size, int increment) {
+		int required = size + increment;
+		if (required < 0) throw new OutOfMemoryError("Required array size too large");
+		int capacity = Math.max(MIN_GROWN_CAPACITY, Integer.highestOneBit(required - 1) << 1);
+		return capacity > 0 ? capacity : Integer.MAX_VALUE - 8;
+	}
+
+	/**
+	 * Used region of the shared backing array. Vector which starts at {@link #start} or ends at
+	 * {@link #end} can claim free slots adjacent to it. The region only grows, so claims are just
+	 * compare-and-set of expected edge to the new edge: any other vector sharing the array, even
+	 * if it was created concurrently, will fail to claim the same slots. Edges at which vectors were
+	 * extended are recorded to place elements when the array is to be grown.
+	 */
+	private static final class Extent {
+		static final int GROWS_END = 1;
+		static final int GROWS_START = 2;
+		static final int GROWS_BOTH = GROWS_END | GROWS_START;
+
+		private static final AtomicIntegerFieldUpdater<Extent> START =
+				AtomicIntegerFieldUpdater.newUpdater(Extent.class, "start");
+		private static final AtomicIntegerFieldUpdater<Extent> END =
+				AtomicIntegerFieldUpdater.newUpdater(Extent.class, "end");
+
+		private volatile int start;
+		private volatile int end;
+		final int grows;
+
+		Extent(int start, int end, int grows) {
+			this.start = start;
+			this.end = end;
+			this.grows = grows;
+		}
+
+		boolean claimEnd(int end, int count, int capacity) {
+			return end <= capacity - count && END.compareAndSet(this, end, end + count);
+		}
+
+		boolean claimStart(int start, int count) {
+			return start >= count && START.compareAndSet(this, start, start - count);
+		}
 	}
 
 	public static <E> Vect<E> of(E single) {
@@ -399,16 +640,17 @@ public final class Vect<E> implements Iterable<E>, Foldable<E> {
 
 		@Override
 		public boolean hasNext() {
-			return index < elements.length;
+			return index < size;
 		}
 
 		@Override
 		public E next() {
-			return (E) elements[index++];
+			if (index >= size) throw new NoSuchElementException();
+			return (E) elements[offset + index++];
 		}
 
 		public boolean wasLast() {
-			return index == elements.length;
+			return index == size;
 		}
 
 		public boolean wasFirst() {
@@ -463,11 +705,11 @@ public final class Vect<E> implements Iterable<E>, Foldable<E> {
 					elements[size++] = requireNonNull(e);
 				}
 			} else if (iterable instanceof Vect<?>) {
-				Object[] array = ((Vect<?>) iterable).elements;
-				ensureCapacityFor(array.length);
-				for (Object e : array) {
-					elements[size++] = requireNonNull(e);
-				}
+				Vect<?> vect = (Vect<?>) iterable;
+				ensureCapacityFor(vect.size);
+				// vector elements are never null, safe to copy directly
+				System.arraycopy(vect.elements, vect.offset, elements, size, vect.size);
+				size += vect.size;
 			} else {
 				for (Object e : iterable) {
 					ensureCapacityFor(1);
@@ -496,7 +738,7 @@ public final class Vect<E> implements Iterable<E>, Foldable<E> {
 
 		@CheckReturnValue
 		public When<R> empty(Supplier<R> onEmpty) {
-			if (result == null && elements.length == 0) {
+			if (result == null && size == 0) {
 				result = requireNonNull(onEmpty.get());
 			}
 			return this;
@@ -504,26 +746,25 @@ public final class Vect<E> implements Iterable<E>, Foldable<E> {
 
 		@CheckReturnValue
 		public When<R> single(Function<E, R> onSingle) {
-			if (result == null && elements.length == 1) {
-				result = requireNonNull(onSingle.apply((E) elements[0]));
+			if (result == null && size == 1) {
+				result = requireNonNull(onSingle.apply((E) elements[offset]));
 			}
 			return this;
 		}
 
 		@CheckReturnValue
 		public When<R> pair(BiFunction<E, E, R> onPair) {
-			if (result == null && elements.length == 2) {
-				result = requireNonNull(onPair.apply((E) elements[0], (E) elements[1]));
+			if (result == null && size == 2) {
+				result = requireNonNull(onPair.apply((E) elements[offset], (E) elements[offset + 1]));
 			}
 			return this;
 		}
 
 		@CheckReturnValue
 		public When<R> head(BiFunction<E, Vect<E>, R> onHead) {
-			if (result == null && elements.length >= 1) {
-				E head = (E) elements[0];
-				E[] tail = (E[]) Arrays.copyOfRange(elements, 1, elements.length);
-				result = requireNonNull(onHead.apply(head, new Vect<>(tail)));
+			if (result == null && size >= 1) {
+				E head = (E) elements[offset];
+				result = requireNonNull(onHead.apply(head, rangeFrom(1)));
 			}
 			return this;
 		}
@@ -549,6 +790,94 @@ public final class Vect<E> implements Iterable<E>, Foldable<E> {
 		}
 	}
 
+	/**
+	 * Lazy view of this vector to chain transformations which are then applied in a single pass, without
+	 * allocating intermediate vectors, when calling {@link View#build()} or {@link View#fold}.
+	 */
+	public View<E> view() {
+		return new View<E>(size) {
+			@Override
+			void feed(Consumer<? super E> sink) {
+				for (int i = offset, end = offset + size; i < end; i++) {
+					sink.accept((E) elements[i]);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Fused pipeline of transformations over a vector. Each terminal operation runs the whole pipeline again
+	 * over the source vector.
+	 * @param <E> element type
+	 */
+	public static abstract class View<E> {
+		/** Exact number of elements if known, i.e. if there was no filtering or flattening, otherwise {@code -1}. */
+		private final int knownSize;
+
+		View(int knownSize) {
+			this.knownSize = knownSize;
+		}
+
+		abstract void feed(Consumer<? super E> sink);
+
+		public <R> View<R> map(Function<? super E, ? extends R> to) {
+			View<E> source = this;
+			return new View<R>(knownSize) {
+				@Override
+				void feed(Consumer<? super R> sink) {
+					source.feed(e -> sink.accept(requireNonNull(to.apply(e))));
+				}
+			};
+		}
+
+		public View<E> filter(Predicate<? super E> is) {
+			View<E> source = this;
+			return new View<E>(-1) {
+				@Override
+				void feed(Consumer<? super E> sink) {
+					source.feed(e -> {
+						if (is.test(e)) sink.accept(e);
+					});
+				}
+			};
+		}
+
+		// safe unchecked: runtime isInstance check
+		public <T> View<T> only(Class<T> type) {
+			return (View<T>) filter(type::isInstance);
+		}
+
+		public <R> View<R> flatMap(Function<? super E, ? extends Iterable<R>> to) {
+			View<E> source = this;
+			return new View<R>(-1) {
+				@Override
+				void feed(Consumer<? super R> sink) {
+					source.feed(e -> {
+						for (R r : to.apply(e)) {
+							sink.accept(requireNonNull(r));
+						}
+					});
+				}
+			};
+		}
+
+		public <A> A fold(A left, BiFunction<A, ? super E, A> folder) {
+			Object[] a = {requireNonNull(left)};
+			feed(e -> a[0] = requireNonNull(folder.apply((A) a[0], e)));
+			return (A) a[0];
+		}
+
+		public void forEach(Consumer<? super E> consumer) {
+			feed(consumer);
+		}
+
+		public Vect<E> build() {
+			Builder<E> builder = new Builder<>(knownSize >= 0 ? knownSize : 10);
+			feed(builder::add);
+			return builder.build();
+		}
+	}
+
 	public static <E> Collector<E, Vect.Builder<E>, Vect<E>> to() {
 		return Collector.of(
 				Vect::builder,
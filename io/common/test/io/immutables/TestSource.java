@@ -2,7 +2,10 @@ package io.immutables;
 
 import io.immutables.Source.Buffer;
 import io.immutables.Source.Lines;
+import java.io.IOException;
 import java.nio.CharBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import org.junit.Test;
 import static io.immutables.that.Assert.that;
 
@@ -36,6 +39,60 @@ public class TestSource {
 		that(lines.getLineRange(3).get(source)).hasToString("789");
 	}
 
+	@Test
+	public void lazyLines() {
+		var sb = new StringBuilder();
+		for (int i = 0; i < 30_000; i++) {
+			sb.append("line ").append(i).append('\n');
+		}
+		Lines eager = Lines.from(sb);
+		Lines lazy = Lines.lazy(sb);
+
+		that(lazy.hasLine(2)).is(true);
+		that(lazy.get(sb.length() - 1)).equalTo(eager.get(sb.length() - 1));
+		that(lazy.get(20)).equalTo(eager.get(20));
+		that(lazy.getLineRange(29_999)).equalTo(eager.getLineRange(29_999));
+		that(lazy.hasLine(30_002)).is(false);
+		that(lazy.count()).is(eager.count());
+		that(lazy.getLineRange(30_001)).equalTo(eager.getLineRange(30_001));
+	}
+
+	@Test
+	public void excerptLazyLines() {
+		var content = "a\nbb\nccc\ndddd\n";
+		var range = Source.Range.of(Source.Position.of(3, 2, 1), Source.Position.of(5, 2, 3));
+
+		that(Source.Excerpt.from(content, Lines.lazy(content)).get(range))
+				.hasToString(Source.Excerpt.from(content).get(range).toString());
+	}
+
+	@Test
+	public void mapped() throws IOException {
+		Path file = Files.createTempFile("source", ".txt");
+		try {
+			Files.writeString(file, "01\n345\n789");
+			var mapped = Source.Mapped.map(file);
+			that(mapped.length()).is(10);
+			that(mapped.charAt(4)).is('4');
+			that(mapped.subSequence(3, 9).subSequence(1, 3)).hasToString("45");
+
+			Lines lines = Lines.lazy(mapped);
+			that(lines.getLineRange(2).get(mapped)).hasToString("345");
+			that(lines.get(9)).hasToString("3:3");
+
+			that(Source.Mapped.map(file, 3, 3)).hasToString("345");
+			that(Source.Mapped.map(file, 7, 100)).hasToString("789");
+			that(Source.Mapped.map(file, 20, 5).length()).is(0);
+
+			var window = Source.Mapped.map(file, 3, 7);
+			that(window.offset()).is(3L);
+			that(((Source.Mapped) window.subSequence(4, 7)).offset()).is(7L);
+			that(mapped.offset()).is(0L);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
 	@Test
 	public void buffer() {
 		Buffer b = new Buffer();
@@ -0,0 +1,52 @@
+package io.immutables.collect;
+
+/**
+ * Compares building vectors element by element: copying approach, which allocates a new array for
+ * every append, prepend or concat (as {@link Vect} did before), goes quadratic, while extending shared
+ * array in place stays amortized linear.
+ */
+public class MainVect {
+	public static void main(String... args) {
+		for (int n = 10_000; n <= 80_000; n *= 2) {
+			long t0 = System.nanoTime();
+			var copied = buildCopying(n);
+			long t1 = System.nanoTime();
+			var extended = buildExtending(n);
+			long t2 = System.nanoTime();
+
+			if (!copied.equals(extended)) {
+				throw new AssertionError("Different vectors");
+			}
+			System.out.printf("elements %6d copying %10dus in place %8dus%n",
+					extended.size(), (t1 - t0) / 1000, (t2 - t1) / 1000);
+		}
+	}
+
+	/** Appends and prepends elements, concatenating chunk of 10 elements every 10 elements. */
+	private static Vect<Integer> buildExtending(int n) {
+		Vect<Integer> chunk = Vect.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+		Vect<Integer> v = Vect.of();
+		for (int i = 0; i < n; i++) {
+			v = i % 2 == 0 ? v.append(i) : v.prepend(i);
+			if (i % 10 == 0) v = v.concat(chunk);
+		}
+		return v;
+	}
+
+	private static Vect<Integer> buildCopying(int n) {
+		Vect<Integer> chunk = Vect.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+		Vect<Integer> v = Vect.of();
+		for (int i = 0; i < n; i++) {
+			v = i % 2 == 0 ? copyConcat(v, Vect.of(i)) : copyConcat(Vect.of(i), v);
+			if (i % 10 == 0) v = copyConcat(v, chunk);
+		}
+		return v;
+	}
+
+	private static Vect<Integer> copyConcat(Vect<Integer> left, Vect<Integer> right) {
+		return Vect.<Integer>builderWithExpectedSize(left.size() + right.size())
+				.addAll(left)
+				.addAll(right)
+				.build();
+	}
+}
@@ -0,0 +1,77 @@
+package io.immutables.collect;
+
+import org.junit.Test;
+import static io.immutables.that.Assert.that;
+
+public class TestPrimitiveVect {
+	@Test
+	public void intVect() {
+		IntVect vect = IntVect.builder()
+				.add(1)
+				.addAll(2, 3, 4)
+				.build();
+		that(vect.toArray()).isOf(1, 2, 3, 4);
+		that(vect.map(i -> i * 2).filter(i -> i > 4).toArray()).isOf(6, 8);
+		that(vect.fold(10, Integer::sum)).is(20);
+		that(vect.sum()).is(10L);
+		that(vect.range(1, 3).toArray()).isOf(2, 3);
+		that(vect.mapToObj(i -> "" + i)).isOf("1", "2", "3", "4");
+		that(vect.contains(3)).is(true);
+		that(vect).just().equalTo(IntVect.of(1, 2, 3, 4));
+		that(IntVect.of()).just().same(IntVect.builder().build());
+	}
+
+	@Test
+	public void rangeView() {
+		IntVect vect = IntVect.of(1, 2, 3, 4, 5, 6);
+		IntVect range = vect.range(1, 5);
+		that(range.elements == vect.elements).is(true);
+		that(range.toArray()).isOf(2, 3, 4, 5);
+		that(range.size()).is(4);
+		that(range.first()).is(2);
+		that(range.last()).is(5);
+		that(range.get(3)).is(5);
+		that(range.range(1, 3).toArray()).isOf(3, 4);
+		that(range.sum()).is(14L);
+		that(range.reduce(Math::min)).is(2);
+		that(range.contains(1)).is(false);
+		that(range.contains(6)).is(false);
+		that(range.filter(i -> i % 2 == 0).toArray()).isOf(2, 4);
+		that(range.stream().toArray()).isOf(2, 3, 4, 5);
+		that(range.stream().parallel().sum()).is(14);
+		that(range).just().equalTo(IntVect.of(2, 3, 4, 5));
+		that(range.hashCode()).is(IntVect.of(2, 3, 4, 5).hashCode());
+		that(range).hasToString("[2, 3, 4, 5]");
+		that(IntVect.builder().addAll(range).add(6).build().toArray()).isOf(2, 3, 4, 5, 6);
+
+		LongVect longs = LongVect.of(1, 2, 3).range(1, 3);
+		that(longs.toArray()).isOf(2L, 3L);
+		that(longs).just().equalTo(LongVect.of(2, 3));
+
+		DoubleVect doubles = DoubleVect.of(0.5, 1.5, 2.5).range(0, 2);
+		that(doubles.sum() == 2.0).is(true);
+		that(doubles.contains(2.5)).is(false);
+	}
+
+	@Test
+	public void longVect() {
+		LongVect vect = LongVect.of(1, 2, 3);
+		that(vect.reduce(Math::max)).is(3L);
+		that(vect.stream().parallel().sum()).is(6L);
+		that(vect.all(l -> l > 0)).is(true);
+		that(vect.any(l -> l > 3)).is(false);
+		that(vect).hasToString("[1, 2, 3]");
+	}
+
+	@Test
+	public void doubleVect() {
+		DoubleVect vect = DoubleVect.builderWithExpectedSize(1)
+				.add(0.5)
+				.add(1.5)
+				.build();
+		that(vect.sum() == 2.0).is(true);
+		that(vect.last() == 1.5).is(true);
+		that(vect.contains(0.5)).is(true);
+		that(vect.spliterator().estimateSize()).is(2L);
+	}
+}
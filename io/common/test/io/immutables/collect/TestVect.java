@@ -57,4 +57,120 @@ public class TestVect {
 		that(vect.dropWhile(e -> e > 10)).just().same(vect);
 		that(vect.dropWhile(e -> e < 10)).isEmpty();
 	}
+
+	@Test
+	public void appendPrepend() {
+		Vect<Integer> vect = Vect.of();
+		for (int i = 0; i < 100; i++) {
+			vect = vect.append(i).prepend(-i);
+		}
+		that(vect).hasSize(200);
+		that(vect.first()).is(-99);
+		that(vect.last()).is(99);
+		that(vect.get(100)).is(0);
+	}
+
+	@Test
+	public void appendShared() {
+		Vect<Integer> base = Vect.of(1, 2).append(3);
+		Vect<Integer> a = base.append(4);
+		Vect<Integer> b = base.append(5);
+		Vect<Integer> c = a.append(6);
+		that(base).isOf(1, 2, 3);
+		that(a).isOf(1, 2, 3, 4);
+		that(b).isOf(1, 2, 3, 5);
+		that(c).isOf(1, 2, 3, 4, 6);
+		that(base.prepend(0)).isOf(0, 1, 2, 3);
+		that(base.prepend(-1)).isOf(-1, 1, 2, 3);
+	}
+
+	@Test
+	public void appendAndPrependAlternately() {
+		Vect<Integer> v = Vect.of(0);
+		Vect<Integer> half = v;
+		for (int i = 1; i <= 100; i++) {
+			v = v.append(i).prepend(-i);
+			if (i == 50) half = v;
+		}
+		that(v.size()).is(201);
+		that(v.get(0)).is(-100);
+		that(v.get(100)).is(0);
+		that(v.get(200)).is(100);
+		that(half.size()).is(101);
+		that(half.get(0)).is(-50);
+		that(half.get(100)).is(50);
+	}
+
+	@Test
+	public void concat() {
+		Vect<Integer> left = Vect.of(1).append(2);
+		Vect<Integer> right = Vect.of(4).prepend(3);
+		that(left.concat(right)).isOf(1, 2, 3, 4);
+		that(left.concat(Vect.of(5))).isOf(1, 2, 5);
+		that(Vect.of(0).concat(right)).isOf(0, 3, 4);
+		// right already extended its array to the right, concatenating it again must not overwrite that
+		that(right.concat(Vect.of(6))).isOf(3, 4, 6);
+		that(right.concat(left)).isOf(3, 4, 1, 2);
+		that(left.concat(Vect.of())).just().same(left);
+		that(Vect.<Integer>of().concat(right)).just().same(right);
+	}
+
+	@Test
+	public void equalsAcrossSharing() {
+		Vect<Integer> appended = Vect.of(1).append(2).append(3);
+		Vect<Integer> prepended = Vect.of(3).prepend(2).prepend(1);
+		that(appended).just().equalTo(Vect.of(1, 2, 3));
+		that(prepended).just().equalTo(appended);
+		that(prepended.hashCode()).is(Vect.of(1, 2, 3).hashCode());
+		that(appended.toArray()).isOf(1, 2, 3);
+		that(Vect.from(appended.stream()::iterator)).isOf(1, 2, 3);
+	}
+
+	@Test
+	public void rangeViews() {
+		Vect<Integer> vect = Vect.of(1, 2, 3, 4, 5);
+		Vect<Integer> middle = vect.range(1, 4);
+		that(middle).isOf(2, 3, 4);
+		that(middle.range(1, 2)).isOf(3);
+		that(middle.rangeFrom(2)).isOf(4);
+		that(middle.first()).is(2);
+		that(middle.last()).is(4);
+		that(middle.reverse()).isOf(4, 3, 2);
+		that(middle.append(9)).isOf(2, 3, 4, 9);
+		that(middle.prepend(0)).isOf(0, 2, 3, 4);
+		that(vect).isOf(1, 2, 3, 4, 5);
+		that(middle).just().equalTo(Vect.of(2, 3, 4));
+		that(vect.range(0, 5)).just().same(vect);
+		that(() -> middle.get(3)).thrown(IndexOutOfBoundsException.class);
+	}
+
+	@Test
+	public void view() {
+		Vect<Integer> vect = Vect.of(1, 2, 3, 4);
+		that(vect.view()
+				.map(i -> i * 10)
+				.filter(i -> i > 10)
+				.flatMap(i -> Vect.of(i, i + 1))
+				.build()).isOf(20, 21, 30, 31, 40, 41);
+
+		that(vect.view().map(i -> i + 1).fold(0, Integer::sum)).is(14);
+		that(Vect.<Integer>of().view().map(i -> i + 1).build()).isEmpty();
+	}
+
+	@Test
+	public void parallel() {
+		Vect.Builder<Integer> builder = Vect.builder();
+		for (int i = 0; i < Vect.PARALLEL_THRESHOLD * 4; i++) {
+			builder.add(i);
+		}
+		Vect<Integer> vect = builder.build();
+		Vect<Integer> sliced = vect.rangeFrom(3);
+
+		that(vect.parallelMap(i -> i * 2)).just().equalTo(vect.map(i -> i * 2));
+		that(sliced.parallelMap(i -> i + 1)).just().equalTo(sliced.<Integer>map(i -> i + 1));
+		that(vect.parallelFilter(i -> i % 3 == 0)).just().equalTo(vect.filter(i -> i % 3 == 0));
+		that(sliced.parallelReduce(Integer::sum)).is(sliced.reduce(Integer::sum));
+		that(vect.parallelStream().mapToLong(i -> i).sum()).is(vect.stream().mapToLong(i -> i).sum());
+		that(Vect.of(1, 2, 3).parallelMap(i -> i + 1)).isOf(2, 3, 4);
+	}
 }
@@ -0,0 +1,239 @@
+package io.immutables.ecs.gen;
+
+import io.immutables.Nullable;
+import io.immutables.codec.Codec;
+import io.immutables.codec.OkJson;
+import io.immutables.collect.Vect;
+import io.immutables.ecs.def.Definition;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.ZipFile;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.reflect.TypeToken;
+
+/**
+ * On-disk cache of compilation results kept between generator runs. Entries are content addressed:
+ * declared module and imports are cached by the hash of source content, built modules are cached by
+ * the hash of their sources and of the interfaces of modules they import, so module is rebuilt only if
+ * its sources change or something it can see from imported modules changes. Stale entries are never
+ * read again and cache directory can be cleaned up at any time. Any failure reading the cache is
+ * treated as a miss.
+ */
+final class CompileCache {
+  /** Salts all keys, change when cache entries format changes. */
+  private static final String VERSION = "ecs-1";
+  /**
+   * Salts all keys with the generator build, so that results cached by a different build of the
+   * compiler or templates are not reused.
+   */
+  private static final String BUILD = buildSalt();
+
+  private final Path dir;
+  private final OkJson json = new OkJson();
+  private final Codec<Definition.Module> moduleCodec = json.get(Definition.Module.class);
+  private final Codec<Vect<Definition>> definitionsCodec = json.get(new TypeToken<Vect<Definition>>() {});
+
+  CompileCache(Path dir) {
+    this.dir = dir;
+  }
+
+  /** Restores module name and imports declared by the source if the same content was seen before. */
+  boolean restoreDeclared(Compiler.PerSource source) {
+    @Nullable var lines = readLines(sourceKey(source) + ".src");
+    if (lines == null || lines.isEmpty()) return false;
+    source.moduleName = lines.get(0);
+    source.importedModules = Set.copyOf(lines.subList(1, lines.size()));
+    return true;
+  }
+
+  void storeDeclared(Compiler.PerSource source) {
+    var lines = new ArrayList<String>();
+    lines.add(source.moduleName);
+    lines.addAll(source.importedModules);
+    write(sourceKey(source) + ".src", String.join("\n", lines));
+  }
+
+  private static String sourceKey(Compiler.PerSource source) {
+    var hasher = Hashing.sha256().newHasher();
+    put(hasher, VERSION);
+    put(hasher, BUILD);
+    put(hasher, source.content);
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Key of the module built from sources, given keys of interfaces of the (already built) modules
+   * imported by these sources.
+   */
+  String moduleKey(String moduleName, Collection<Compiler.PerSource> sources, Map<String, String> interfaceKeys) {
+    var imported = new TreeMap<String, String>();
+    for (var source : sources) {
+      for (var m : source.importedModules) {
+        @Nullable var key = interfaceKeys.get(m);
+        if (key != null) imported.put(m, key);
+      }
+    }
+    var hasher = Hashing.sha256().newHasher();
+    put(hasher, VERSION);
+    put(hasher, BUILD);
+    put(hasher, moduleName);
+    for (var source : sources) {
+      put(hasher, source.filename);
+      put(hasher, source.content);
+    }
+    for (var e : imported.entrySet()) {
+      put(hasher, e.getKey());
+      put(hasher, e.getValue());
+    }
+    return hasher.hash().toString();
+  }
+
+  /** Key of what other modules can see when importing this one. */
+  String interfaceKey(Compiler.ImportModule module) {
+    var definitions = Vect.<Definition>builder()
+        .addAll(module.types())
+        .addAll(module.entities())
+        .addAll(module.concepts())
+        .addAll(module.interfaces())
+        .build();
+    return hash(module.name() + "\n" + json.toJson(definitions, definitionsCodec));
+  }
+
+  Optional<Definition.Module> module(String key) {
+    @Nullable var content = read(key + ".module.json");
+    if (content == null) return Optional.empty();
+    try {
+      return Optional.of(json.fromJson(content, moduleCodec));
+    } catch (RuntimeException ex) {
+      // incompatible or broken entry, will be overwritten
+      return Optional.empty();
+    }
+  }
+
+  void storeModule(String key, Definition.Module module) {
+    write(key + ".module.json", json.toJson(module, moduleCodec));
+  }
+
+  /**
+   * Key of the generation output from modules having module keys using generator mode and output
+   * options affecting content of the output.
+   */
+  String generationKey(String mode, String outputOptions, Map<String, String> moduleKeys) {
+    var hasher = Hashing.sha256().newHasher();
+    put(hasher, VERSION);
+    put(hasher, BUILD);
+    put(hasher, mode);
+    put(hasher, outputOptions);
+    for (var e : new TreeMap<>(moduleKeys).entrySet()) {
+      put(hasher, e.getKey());
+      put(hasher, e.getValue());
+    }
+    return hasher.hash().toString();
+  }
+
+  /** Fingerprints of output written during generation with the key, if it was recorded. */
+  Optional<Map<String, String>> generated(String key) {
+    @Nullable var lines = readLines(key + ".out");
+    if (lines == null) return Optional.empty();
+    var fingerprints = new TreeMap<String, String>();
+    for (var line : lines) {
+      var fingerprintAndPath = line.split("\t", 2);
+      if (fingerprintAndPath.length != 2) return Optional.empty();
+      fingerprints.put(fingerprintAndPath[1], fingerprintAndPath[0]);
+    }
+    return Optional.of(fingerprints);
+  }
+
+  void storeGenerated(String key, Map<String, String> fingerprints) {
+    var lines = new ArrayList<String>();
+    fingerprints.forEach((path, fingerprint) -> lines.add(fingerprint + "\t" + path));
+    write(key + ".out", String.join("\n", lines));
+  }
+
+  /**
+   * Hash of implementation version and of the classes in the generator package (which include
+   * compiled templates) as found in jar or directory this class is loaded from. For jars, CRC of
+   * entries are hashed instead of the content, these are already stored in jar directory.
+   */
+  private static String buildSalt() {
+    var hasher = Hashing.sha256().newHasher();
+    put(hasher, String.valueOf(CompileCache.class.getPackage().getImplementationVersion()));
+    try {
+      var location = Path.of(CompileCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+      if (Files.isRegularFile(location)) {
+        try (var jar = new ZipFile(location.toFile())) {
+          var entries = new TreeMap<String, Long>();
+          jar.stream()
+              .filter(e -> e.getName().startsWith(PACKAGE_PREFIX))
+              .forEach(e -> entries.put(e.getName(), e.getCrc()));
+          entries.forEach((name, crc) -> {
+            put(hasher, name);
+            hasher.putLong(crc);
+          });
+        }
+      } else {
+        var root = location.resolve(PACKAGE_PREFIX);
+        try (var files = Files.walk(root)) {
+          for (var file : (Iterable<Path>) files.filter(Files::isRegularFile).sorted()::iterator) {
+            put(hasher, root.relativize(file).toString());
+            hasher.putBytes(Files.readAllBytes(file));
+          }
+        }
+      }
+    } catch (IOException | URISyntaxException | RuntimeException ex) {
+      // cannot locate classes, no reuse of entries between runs then
+      put(hasher, String.valueOf(System.nanoTime()));
+    }
+    return hasher.hash().toString();
+  }
+
+  /** Compiler, templates and definitions of the model are in packages under this prefix. */
+  private static final String PACKAGE_PREFIX = "io/immutables/ecs/";
+
+  private static void put(Hasher hasher, String value) {
+    hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+  }
+
+  private static String hash(String content) {
+    return Hashing.sha256().hashString(content, StandardCharsets.UTF_8).toString();
+  }
+
+  private @Nullable List<String> readLines(String name) {
+    @Nullable var content = read(name);
+    if (content == null) return null;
+    return content.isEmpty() ? List.of() : List.of(content.split("\n"));
+  }
+
+  private @Nullable String read(String name) {
+    try {
+      return Files.readString(dir.resolve(name));
+    } catch (IOException ex) {
+      return null;
+    }
+  }
+
+  private void write(String name, String content) {
+    try {
+      Files.createDirectories(dir);
+      // written aside and moved, so concurrent runs never see partially written entries
+      var temp = Files.createTempFile(dir, name, ".tmp");
+      Files.writeString(temp, content);
+      Files.move(temp, dir.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Cannot write to compile cache: " + dir, ex);
+    }
+  }
+}
@@ -18,11 +18,16 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import com.google.common.base.CaseFormat;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
@@ -48,6 +53,12 @@ class Compiler {
   final List<String> problems = new ArrayList<>();
   final ListMultimap<String, PerSource> moduleSources = ArrayListMultimap.create();
   final Map<String, Definition.Module> definedModules = new HashMap<>();
+  /** Runs front end for sources and builds independent modules in parallel. */
+  ForkJoinPool pool = ForkJoinPool.commonPool();
+  /** If set, sources and modules which did not change since the previous run are not compiled again. */
+  @Nullable CompileCache cache;
+  /** Cache keys of defined modules, filled only when {@link #cache} is used. */
+  final Map<String, String> moduleKeys = new ConcurrentHashMap<>();
 
   void addPredef() {
     sources.add(Src.from(Resources.getResource(getClass(), "/io/immutables/ecs/def/system.ecs"), "system.ecs"));
@@ -60,35 +71,79 @@ class Compiler {
   }
 
   boolean compile() {
-    boolean ok = true;
-
+    // Front end is run for each source in parallel, but problems
+    // are collected in the order of sources, so reporting is stable
+    var perSources = new ArrayList<PerSource>();
+    var frontEnd = new ArrayList<CompletableFuture<Boolean>>();
     for (var s : sources) {
       PerSource perSource = new PerSource(s);
-      if (perSource.tryRead()
-          && perSource.tryParse()
-          && perSource.tryDeclareModule()
-          && perSource.tryDeclareImported()) {
+      perSources.add(perSource);
+      frontEnd.add(CompletableFuture.supplyAsync(perSource::tryFrontEnd, pool));
+    }
+
+    boolean ok = true;
+    for (int i = 0; i < perSources.size(); i++) {
+      var perSource = perSources.get(i);
+      if (await(frontEnd.get(i))) {
         moduleSources.put(perSource.moduleName, perSource);
       }
+      perSource.collectProblems();
       ok &= perSource.ok();
     }
     assert ok == problems.isEmpty();
     if (!ok) return false;
 
-    var modulesForImports = new HashMap<String, ImportModule>();
+    var modulesForImports = new ConcurrentHashMap<String, ImportModule>();
+    var interfaceKeys = new ConcurrentHashMap<String, String>();
 
     ImportResolver importResolver = name -> Optional.ofNullable(modulesForImports.get(name));
 
-    for (String moduleName : compilationOrder()) {
-      var moduleBuilder = new Definition.Module.Builder().name(moduleName);
+    // Module is built as soon as modules it imports are built. Only modules preceding
+    // in compilation order are awaited (and visible), as if modules were built sequentially,
+    // so import cycles (already reported) cannot deadlock
+    var order = compilationOrder();
+    var modules = new HashMap<String, CompletableFuture<Definition.Module>>();
+    for (String moduleName : order) {
+      var imported = new ArrayList<CompletableFuture<?>>();
       for (var source : moduleSources.get(moduleName)) {
-        var locallyKnownTypes = locallyKnownTypes(source, source.unit, importResolver, moduleName);
-        buildModule(moduleName, source, source.unit, locallyKnownTypes, moduleBuilder);
-        moduleBuilder.putSources(source.filename, source.content);
+        for (var importedModule : source.importedModules) {
+          @Nullable var m = modules.get(importedModule);
+          if (m != null) imported.add(m);
+        }
+      }
+      modules.put(moduleName, CompletableFuture.allOf(imported.toArray(new CompletableFuture<?>[0]))
+          .thenApplyAsync(unused -> {
+            var sources = moduleSources.get(moduleName);
+            @Nullable String key = null;
+            if (cache != null) {
+              key = cache.moduleKey(moduleName, sources, interfaceKeys);
+              moduleKeys.put(moduleName, key);
+              var cached = cache.module(key);
+              if (cached.isPresent()) {
+                putForImports(modulesForImports, interfaceKeys, cached.get());
+                return cached.get();
+              }
+            }
+            var moduleBuilder = new Definition.Module.Builder().name(moduleName);
+            for (var source : sources) {
+              if (!source.tryParsed()) continue;
+              var locallyKnownTypes = locallyKnownTypes(source, source.unit, importResolver, moduleName);
+              buildModule(moduleName, source, source.unit, locallyKnownTypes, moduleBuilder);
+              moduleBuilder.putSources(source.filename, source.content);
+            }
+            var module = moduleBuilder.build();
+            putForImports(modulesForImports, interfaceKeys, module);
+            if (key != null && sources.stream().allMatch(PerSource::ok)) {
+              cache.storeModule(key, module);
+            }
+            return module;
+          }, pool));
+    }
+    for (String moduleName : order) {
+      definedModules.put(moduleName, await(modules.get(moduleName)));
+      for (var source : moduleSources.get(moduleName)) {
+        source.collectProblems();
       }
-      var module = moduleBuilder.build();
-      definedModules.put(moduleName, module);
-      modulesForImports.put(moduleName, toModuleForImports(module));
     }
     ok = problems.isEmpty();
 
@@ -106,6 +161,26 @@ class Compiler {
     return ok;
   }
 
+  private static <T> T await(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException ex) {
+      Throwables.throwIfUnchecked(ex.getCause());
+      throw ex;
+    }
+  }
+
+  private void putForImports(
+      Map<String, ImportModule> modulesForImports,
+      Map<String, String> interfaceKeys,
+      Definition.Module module) {
+    var forImports = toModuleForImports(module);
+    if (cache != null) {
+      interfaceKeys.put(module.name(), cache.interfaceKey(forImports));
+    }
+    modulesForImports.put(module.name(), forImports);
+  }
+
   private static ImportModule toModuleForImports(Definition.Module module) {
     return new ImportModule.Builder()
         .name(module.name())
@@ -156,12 +231,37 @@ class Compiler {
     Set<String> importedModules;
 
     boolean ok = true; // this is per unit flag as opposed to shared check: problems.isEmpty()
+    // problems reported while this source is processed, possibly in parallel with others,
+    // are collected to shared problems in a stable order
+    final List<String> reported = new ArrayList<>();
 
     PerSource(Src src) {
       this.src = src;
       this.filename = src.toString();
     }
 
+    boolean tryFrontEnd() {
+      if (!tryRead()) return false;
+      if (cache != null && cache.restoreDeclared(this)) return true;
+      boolean declared = tryParse()
+          && tryDeclareModule()
+          && tryDeclareImported();
+      if (declared && cache != null) {
+        cache.storeDeclared(this);
+      }
+      return declared;
+    }
+
+    /** Parses source if it was not parsed by front end, as declarations were taken from cache. */
+    boolean tryParsed() {
+      return unit != null || tryParse();
+    }
+
+    void collectProblems() {
+      problems.addAll(reported);
+      reported.clear();
+    }
+
     boolean tryRead() {
       try {
         content = src.read();
@@ -169,7 +269,7 @@ class Compiler {
           content += "\n";
         }
       } catch (IOException ex) {
-        problems.add(filename + ": Cannot read source file\n" + ex);
+        reported.add(filename + ": Cannot read source file\n" + ex);
         ok = false;
       }
       return ok;
@@ -183,7 +283,7 @@ class Compiler {
         unit = productions.construct();
       } else {
         ok = false;
-        problems.add(productions.messageForFile(filename));
+        reported.add(productions.messageForFile(filename));
       }
       return ok;
     }
@@ -208,7 +308,7 @@ class Compiler {
           production.termBegin(),
           production.termEnd()).withinLine();
 
-      problems.add(new Source.Problem(
+      reported.add(new Source.Problem(
           filename,
           terms.source(),
           terms.lines(),
@@ -1,5 +1,6 @@
 package io.immutables.ecs.gen;
 
+import io.immutables.Nullable;
 import io.immutables.collect.Vect;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -13,6 +14,12 @@ public class Main {
   static class Mode {
     boolean schema;
     boolean typescript;
+    @Nullable Path cache;
+
+    @Override
+    public String toString() {
+      return typescript ? "typescript" : schema ? "schema" : "java";
+    }
   }
 
   public static void main(String... args) throws IOException {
@@ -23,11 +30,15 @@ public class Main {
 
     initArgs(output, mode, srcBuilder, args);
 
+    @Nullable var cache = mode.cache != null ? new CompileCache(mode.cache) : null;
+    @Nullable String generationKey = null;
+
     Vect<Path> srcs = srcBuilder.build();
     if (srcs.isEmpty()) {
       System.err.println("No sources to compile");
     } else {
       var compiler = new Compiler();
+      compiler.cache = cache;
       compiler.addPredef();
       srcs.map(Compiler.Src::from).forEach(compiler::add);
 
@@ -36,6 +47,14 @@ public class Main {
         if (!compiler.problems.isEmpty()) {
           exitWithProblems(compiler);
         }
+        if (cache != null) {
+          generationKey = cache.generationKey(mode.toString(), output.options(), compiler.moduleKeys);
+          var generated = cache.generated(generationKey);
+          if (generated.isPresent() && output.isUpToDate(generated.get())) {
+            // nothing changed since output was generated from the same modules
+            return;
+          }
+        }
         if (mode.typescript) {
           var template = new Generator_Typescript();
           template.model = model;
@@ -58,6 +77,9 @@ public class Main {
     }
 
     output.finalizeResources();
+    if (generationKey != null) {
+      cache.storeGenerated(generationKey, output.fingerprints());
+    }
   }
 
   public static void exitWithProblems(Compiler compiler) {
@@ -75,6 +97,9 @@ public class Main {
       case "--schema": mode.schema = true; deque.remove(); break;
       case "--out": output.out = requireValue(deque); break;
 			case "--zip": output.zip = requireValue(deque); break;
+			case "--cache": mode.cache = Path.of(requireValue(deque)); break;
+			case "--deflate": output.deflate = true; deque.remove(); break;
+			case "--parallel": output.parallel = true; deque.remove(); break;
 			default:  // @formatter:on
         if (deque.peek().startsWith("-")) {
           System.err.println("Unsupported option '" + deque.peek() + "'");
@@ -102,7 +127,7 @@ public class Main {
 
   private static void exitWithUsage() {
     System.err.println(
-        "Usage: <thiscmd> [--schema|--typescript] [--out <dir>] [--zip <file>] <source_file1> [<source_file1>...]");
+        "Usage: <thiscmd> [--schema|--typescript] [--out <dir>] [--zip <file> [--deflate]] [--parallel] [--cache <dir>] <source_file1> [<source_file1>...]");
     System.exit(-1);
   }
 }
@@ -1,16 +1,30 @@
 package io.immutables.ecs.gen;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.zip.CRC32;
-import java.util.zip.CheckedOutputStream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 import javax.annotation.Nullable;
 import com.google.common.base.CharMatcher;
@@ -18,81 +32,277 @@ import com.google.common.base.Functions;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.immutables.generator.PostprocessingMachine;
 import org.immutables.generator.Templates;
 import org.immutables.generator.Templates.Invokable;
 import org.immutables.generator.Templates.Invokation;
 
+/**
+ * Writes generated files to the output directory and/or zip file. Files are written as soon as
+ * templates complete them, so that generated content is not accumulated for the whole model. The
+ * exception is files which are appended to in parts, these are written when resources are finalized,
+ * after the content of the last write to the same path, if any. The last write to a path wins over
+ * the previous ones. Unchanged files, as well as unchanged zip, are not rewritten, except files both
+ * written and appended to.
+ */
 final class Output {
   private static final String NO_REWRITE_IMPORTS = "//-no-import-rewrite";
+  /** Fingerprint of the zip is recorded under empty path, which is never a path of generated file. */
+  private static final String ZIP = "";
 
   @Nullable String zip;
   @Nullable String out;
-
-  private final ListMultimap<String, String> fileContent = ArrayListMultimap.create();
+  /** Compress zip entries, otherwise they are stored. */
+  boolean deflate;
+  /** Write files in parallel with generation, otherwise they are written as they are generated. */
+  boolean parallel;
+
+  /** Size and hash of the content of each file, and of the zip, recorded as written. */
+  private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+  private final ListMultimap<String, String> appendedContent = ArrayListMultimap.create();
+  /** Last write to the file path, subsequent writes to the same path are chained after it. */
+  private final Map<String, CompletableFuture<Void>> fileWrites = new HashMap<>();
+  /** Zip entries are written one after another, in the order they are generated. */
+  private CompletableFuture<Void> zipWrites = CompletableFuture.completedFuture(null);
+  private @Nullable ZipSink zipSink;
 
   void finalizeResources() throws IOException {
-    if (out != null) writeFiles(out);
-    if (zip != null) writeZip(zip);
+    for (var e : appendedContent.asMap().entrySet()) {
+      writeFile(e.getKey(), String.join("", e.getValue()), true);
+    }
+    appendedContent.clear();
+
+    if (zip != null) {
+      zipWrites = zipWrites.thenRunAsync(() -> {
+        try {
+          zipSink().finish();
+          fingerprints.put(ZIP, fingerprint(Files.asByteSource(new File(zip))));
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      }, executor());
+    }
+
+    var writes = new CompletableFuture<?>[fileWrites.size() + 1];
+    fileWrites.values().toArray(writes);
+    writes[writes.length - 1] = zipWrites;
+    try {
+      CompletableFuture.allOf(writes).join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) ex.getCause()).getCause();
+      }
+      throw ex;
+    }
   }
 
-  private void writeZip(String zipPath) throws IOException {
-    File outFile = new File(zipPath);
+  /**
+   * Fingerprints of the files and of the zip written, keyed by file path, zip is keyed by empty path.
+   * Available after resources are finalized.
+   */
+  Map<String, String> fingerprints() {
+    return new TreeMap<>(fingerprints);
+  }
 
-    if (!outFile.getParentFile().exists()
-        && !outFile.getParentFile().mkdirs()) {
-      throw new IOException("Cannot create directories for " + outFile);
+  /**
+   * Options which affect the output: where it is written and its content, as opposed to how it is
+   * written.
+   */
+  String options() {
+    return (deflate ? "deflate" : "") + " out=" + out + " zip=" + zip;
+  }
+
+  /**
+   * If files and zip are in place as previously written, having the same size and hash of the content
+   * as in the fingerprints recorded then.
+   */
+  boolean isUpToDate(Map<String, String> fingerprints) {
+    try {
+      for (var e : fingerprints.entrySet()) {
+        var path = e.getKey();
+        if (path.equals(ZIP) ? zip == null : out == null) return false;
+        var file = path.equals(ZIP) ? new File(zip) : new File(out, path);
+        if (!file.isFile()) return false;
+        var source = Files.asByteSource(file);
+        // sizes are compared first, so that most changed files are detected without reading them
+        if (!e.getValue().startsWith(source.size() + ":")
+            || !e.getValue().equals(fingerprint(source))) return false;
+      }
+      return true;
+    } catch (IOException ex) {
+      return false;
     }
+  }
 
-    var sink = Files.asByteSink(outFile);
+  private static String fingerprint(ByteSource content) throws IOException {
+    return content.size() + ":" + content.hash(Hashing.sha256());
+  }
 
-    try (var os = sink.openBufferedStream();
-        var zip = new ZipOutputStream(os, StandardCharsets.UTF_8)) {
-      zip.setMethod(ZipOutputStream.STORED);
+  private Executor executor() {
+    return parallel ? ForkJoinPool.commonPool() : MoreExecutors.directExecutor();
+  }
 
-      for (var e : fileContent.asMap().entrySet()) {
-        var byteStream = new ByteArrayOutputStream();
-        var checksum = new CRC32();
+  /**
+   * Writes content to the path, or appends it to the content of the last write to the path, if it was
+   * written. File writes to the same path are chained, so appending is done after the last write.
+   */
+  private void writeFile(String path, String content, boolean append) {
+    // encoded once, used for both file and zip entry
+    var bytes = content.getBytes(StandardCharsets.UTF_8);
+
+    if (out != null) {
+      var outFile = new File(out, path);
+      boolean appendToWritten = append && fileWrites.containsKey(path);
+      Runnable write = () -> {
+        try {
+          if (!outFile.getParentFile().exists()) {
+            outFile.getParentFile().mkdirs();
+            // if this will fail we will have exception thrown below anyway
+          }
+          var fileContent = appendToWritten ? concat(Files.toByteArray(outFile), bytes) : bytes;
+          writeIfChanged(outFile, fileContent);
+          fingerprints.put(path, fingerprint(ByteSource.wrap(fileContent)));
+        } catch (IOException ex) {
+          throw new UncheckedIOException(new IOException("Cannot write: " + path, ex));
+        }
+      };
+      fileWrites.compute(path, (p, previous) -> previous == null
+          ? CompletableFuture.runAsync(write, executor())
+          : previous.thenRunAsync(write, executor()));
+    }
 
-        var checkedStream = new CheckedOutputStream(byteStream, checksum);
-        for (String s : e.getValue()) {
-          ByteStreams.copy(new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8)), checkedStream);
+    if (zip != null) {
+      zipWrites = zipWrites.thenRunAsync(() -> {
+        try {
+          if (append) {
+            zipSink().append(path, bytes);
+          } else {
+            zipSink().put(path, bytes);
+          }
+        } catch (IOException ex) {
+          throw new UncheckedIOException(new IOException("Cannot write: " + path, ex));
         }
-        checkedStream.close();
+      }, executor());
+    }
+  }
 
-        byte[] data = byteStream.toByteArray();
+  /** Leaves file untouched (including modification time) if it already has the same content. */
+  private static void writeIfChanged(File file, byte[] content) throws IOException {
+    if (file.isFile()
+        && file.length() == content.length
+        && Files.asByteSource(file).contentEquals(ByteSource.wrap(content))) return;
 
-        var entry = new ZipEntry(e.getKey());
-        entry.setTime(0); // reproducible build
-        entry.setSize(data.length);
-        entry.setCrc(checksum.getValue());
+    Files.write(content, file);
+  }
 
-        zip.putNextEntry(entry);
-        zip.write(data);
-        zip.closeEntry();
-      }
+  private static byte[] concat(byte[] first, byte[] second) {
+    var bytes = Arrays.copyOf(first, first.length + second.length);
+    System.arraycopy(second, 0, bytes, first.length, second.length);
+    return bytes;
+  }
+
+  /** Opened on first use, only accessed from chained zip writes. */
+  private ZipSink zipSink() throws IOException {
+    if (zipSink == null) {
+      zipSink = new ZipSink(new File(zip));
     }
+    return zipSink;
   }
 
-  private void writeFiles(String outPath) throws IOException {
-    var outDir = new File(outPath);
+  /**
+   * Zip is streamed to a temporary file next to the target one, which then replaces the target only if
+   * contents differ, so that downstream steps depending on zip are not invalidated. Entries cannot be
+   * replaced in a zip stream, so content of entries written again or appended to is kept aside and the
+   * temporary zip is copied with it when finished. Generators rarely do that, so usually there is no copy.
+   */
+  private final class ZipSink {
+    private final File file;
+    private final File temp;
+    private final ZipOutputStream stream;
+    private final Set<String> entries = new HashSet<>();
+    private final Map<String, byte[]> replaced = new HashMap<>();
+    private final Map<String, byte[]> appended = new HashMap<>();
+
+    ZipSink(File file) throws IOException {
+      this.file = file;
+      var dir = file.getAbsoluteFile().getParentFile();
+      if (!dir.exists() && !dir.mkdirs()) {
+        throw new IOException("Cannot create directories for " + file);
+      }
+      this.temp = File.createTempFile(file.getName(), ".tmp", dir);
+      this.stream = new ZipOutputStream(
+          new BufferedOutputStream(new FileOutputStream(temp)), StandardCharsets.UTF_8);
+      stream.setMethod(deflate ? ZipOutputStream.DEFLATED : ZipOutputStream.STORED);
+    }
+
+    void put(String path, byte[] content) throws IOException {
+      if (!entries.add(path)) {
+        // last write wins, also over previous appends
+        replaced.put(path, content);
+        appended.remove(path);
+        return;
+      }
+      putEntry(stream, path, content);
+    }
+
+    void append(String path, byte[] content) throws IOException {
+      if (!entries.contains(path)) {
+        put(path, content);
+      } else {
+        appended.merge(path, content, Output::concat);
+      }
+    }
 
-    for (var e : fileContent.asMap().entrySet()) {
-      try {
-        var outFile = new File(outDir, e.getKey());
-        if (!outFile.getParentFile().exists()) {
-          outFile.getParentFile().mkdirs();
-          // if this will fail we will have exception thrown below anyway
+    private void putEntry(ZipOutputStream target, String path, byte[] content) throws IOException {
+      var entry = new ZipEntry(path);
+      entry.setTime(0); // reproducible build
+      if (!deflate) {
+        // stored entry needs checksum and size upfront, computed over the same bytes written
+        var checksum = new CRC32();
+        checksum.update(content);
+        entry.setSize(content.length);
+        entry.setCrc(checksum.getValue());
+      }
+      target.putNextEntry(entry);
+      target.write(content);
+      target.closeEntry();
+    }
+
+    void finish() throws IOException {
+      stream.close();
+      if (!replaced.isEmpty() || !appended.isEmpty()) {
+        copyWithChanges();
+      }
+      if (file.isFile() && Files.asByteSource(file).contentEquals(Files.asByteSource(temp))) {
+        if (!temp.delete()) {
+          throw new IOException("Cannot delete " + temp);
         }
-        var sink = Files.asCharSink(outFile, StandardCharsets.UTF_8);
-        for (String s : e.getValue()) {
-          sink.write(s);
+      } else {
+        Files.move(temp, file);
+      }
+    }
+
+    private void copyWithChanges() throws IOException {
+      var copy = File.createTempFile(file.getName(), ".tmp", temp.getParentFile());
+      try (var in = new ZipInputStream(new BufferedInputStream(new FileInputStream(temp)), StandardCharsets.UTF_8);
+          var copyStream = new ZipOutputStream(
+              new BufferedOutputStream(new FileOutputStream(copy)), StandardCharsets.UTF_8)) {
+        copyStream.setMethod(deflate ? ZipOutputStream.DEFLATED : ZipOutputStream.STORED);
+        for (ZipEntry entry; (entry = in.getNextEntry()) != null; ) {
+          var path = entry.getName();
+          @Nullable byte[] content = replaced.get(path);
+          if (content == null) content = ByteStreams.toByteArray(in);
+          @Nullable byte[] appendedContent = appended.get(path);
+          if (appendedContent != null) content = concat(content, appendedContent);
+          putEntry(copyStream, path, content);
         }
-      } catch (IOException ex) {
-        throw new IOException("Cannot write: " + e.getKey(), ex);
       }
+      Files.move(copy, temp);
     }
   }
 
@@ -210,10 +420,12 @@ final class Output {
       }
     } : body).toString();
 
-    if (!append) {
-      fileContent.get(path).clear();
+    if (append) {
+      appendedContent.put(path, transform.apply(content).toString());
+    } else {
+      // previous writes to the same path are superseded
+      appendedContent.removeAll(path);
+      writeFile(path, transform.apply(content).toString(), false);
     }
-
-    fileContent.put(path, transform.apply(content).toString());
   }
 }
@@ -0,0 +1,109 @@
+package io.immutables.ecs.gen;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import com.google.common.hash.Hashing;
+import org.junit.After;
+import org.junit.Test;
+import static io.immutables.that.Assert.that;
+
+public class TestCompileCache {
+  private final Path dir = createDir();
+  private final CompileCache cache = new CompileCache(dir);
+  private final Compiler compiler = new Compiler();
+
+  @After
+  public void deleteDir() throws IOException {
+    try (Stream<Path> files = Files.walk(dir)) {
+      files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    }
+  }
+
+  @Test
+  public void declaredHit() {
+    var stored = source("module a\nimport b\n");
+    stored.moduleName = "a";
+    stored.importedModules = Set.of("b", "c");
+    cache.storeDeclared(stored);
+
+    var restored = source("module a\nimport b\n");
+    that(cache.restoreDeclared(restored)).is(true);
+    that(restored.moduleName).is("a");
+    that(restored.importedModules).hasOnly("b", "c");
+  }
+
+  @Test
+  public void declaredMiss() {
+    var stored = source("module a\n");
+    stored.moduleName = "a";
+    stored.importedModules = Set.of();
+    cache.storeDeclared(stored);
+
+    that(cache.restoreDeclared(source("module b\n"))).is(false);
+  }
+
+  @Test
+  public void declaredKeySalted() {
+    var stored = source("module a\n");
+    stored.moduleName = "a";
+    stored.importedModules = Set.of();
+    cache.storeDeclared(stored);
+
+    // not keyed by content alone, otherwise entries of other generator builds would be reused
+    var contentHash = Hashing.sha256().hashString("module a\n", StandardCharsets.UTF_8).toString();
+    that(Files.exists(dir.resolve(contentHash + ".src"))).is(false);
+  }
+
+  @Test
+  public void generatedHitAndMiss() {
+    var key = cache.generationKey("jawa", "", Map.of("a", "1", "b", "2"));
+    that(cache.generated(key).isPresent()).is(false);
+
+    var fingerprints = Map.of("a/A.java", "3:abc", "", "10:def");
+    cache.storeGenerated(key, fingerprints);
+    that(cache.generated(key).get()).equalTo(fingerprints);
+    that(cache.generated(cache.generationKey("jawa", "", Map.of("b", "2", "a", "1"))).get())
+        .equalTo(fingerprints);
+  }
+
+  @Test
+  public void generatedInvalidated() {
+    var key = cache.generationKey("jawa", "", Map.of("a", "1"));
+    cache.storeGenerated(key, Map.of("a/A.java", "3:abc"));
+
+    that(cache.generated(cache.generationKey("jawa", "", Map.of("a", "2"))).isPresent()).is(false);
+    that(cache.generated(cache.generationKey("jawa", "", Map.of("a", "1", "b", "1"))).isPresent()).is(false);
+    that(cache.generated(cache.generationKey("schema", "", Map.of("a", "1"))).isPresent()).is(false);
+    that(cache.generated(cache.generationKey("jawa", "deflate", Map.of("a", "1"))).isPresent()).is(false);
+  }
+
+  private Compiler.PerSource source(String content) {
+    var source = compiler.new PerSource(new Compiler.Src() {
+      @Override
+      public String read() {
+        return content;
+      }
+
+      @Override
+      public String toString() {
+        return "a.ecs";
+      }
+    });
+    source.content = content;
+    return source;
+  }
+
+  private static Path createDir() {
+    try {
+      return Files.createTempDirectory("cache");
+    } catch (IOException ex) {
+      throw new AssertionError(ex);
+    }
+  }
+}
@@ -0,0 +1,163 @@
+package io.immutables.ecs.gen;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.junit.After;
+import org.junit.Test;
+import static io.immutables.that.Assert.that;
+
+public class TestOutput {
+  private final Path dir = createDir();
+
+  @After
+  public void deleteDir() throws IOException {
+    try (Stream<Path> files = Files.walk(dir)) {
+      files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    }
+  }
+
+  @Test
+  public void writeThenAppend() throws IOException {
+    for (var output : outputs()) {
+      write(output, "a.txt", "written");
+      append(output, "a.txt", "+1");
+      append(output, "a.txt", "+2");
+      append(output, "b.txt", "appended");
+      output.finalizeResources();
+    }
+    that(files()).equalTo(Map.of("a.txt", "written+1+2", "b.txt", "appended"));
+    that(zipEntries()).equalTo(Map.of("a.txt", "written+1+2", "b.txt", "appended"));
+  }
+
+  @Test
+  public void lastWriteWins() throws IOException {
+    for (var output : outputs()) {
+      write(output, "a.txt", "first");
+      write(output, "b.txt", "b");
+      write(output, "a.txt", "second");
+      append(output, "c.txt", "appended");
+      write(output, "c.txt", "written");
+      output.finalizeResources();
+    }
+    that(files()).equalTo(Map.of("a.txt", "second", "b.txt", "b", "c.txt", "written"));
+    that(zipEntries()).equalTo(Map.of("a.txt", "second", "b.txt", "b", "c.txt", "written"));
+    // entries are kept in the order they were first written
+    that(zipEntries().keySet()).isOf("a.txt", "b.txt", "c.txt");
+  }
+
+  @Test
+  public void rewriteThenAppend() throws IOException {
+    for (var output : outputs()) {
+      write(output, "a.txt", "first");
+      append(output, "a.txt", "+1");
+      write(output, "a.txt", "second");
+      append(output, "a.txt", "+2");
+      output.finalizeResources();
+    }
+    that(files()).equalTo(Map.of("a.txt", "second+2"));
+    that(zipEntries()).equalTo(Map.of("a.txt", "second+2"));
+  }
+
+  @Test
+  public void deflatedAndParallel() throws IOException {
+    var output = new Output();
+    output.zip = dir.resolve("out.zip").toString();
+    output.out = dir.resolve("out").toString();
+    output.deflate = true;
+    output.parallel = true;
+    write(output, "a.txt", "first");
+    write(output, "a.txt", "second");
+    append(output, "a.txt", "+1");
+    output.finalizeResources();
+
+    that(files()).equalTo(Map.of("a.txt", "second+1"));
+    that(zipEntries()).equalTo(Map.of("a.txt", "second+1"));
+  }
+
+  @Test
+  public void upToDateByFingerprints() throws IOException {
+    var output = new Output();
+    output.zip = dir.resolve("out.zip").toString();
+    output.out = dir.resolve("out").toString();
+    write(output, "a.txt", "first");
+    append(output, "b.txt", "appended");
+    output.finalizeResources();
+
+    var fingerprints = output.fingerprints();
+    that(fingerprints.keySet()).isOf("", "a.txt", "b.txt");
+    that(output.isUpToDate(fingerprints)).is(true);
+
+    var file = dir.resolve("out/a.txt");
+    Files.writeString(file, "other");
+    that(output.isUpToDate(fingerprints)).is(false);
+    Files.writeString(file, "first");
+    that(output.isUpToDate(fingerprints)).is(true);
+    Files.delete(file);
+    that(output.isUpToDate(fingerprints)).is(false);
+    Files.writeString(file, "first");
+
+    var zip = dir.resolve("out.zip");
+    var zipContent = Files.readAllBytes(zip);
+    Files.write(zip, new byte[zipContent.length]);
+    that(output.isUpToDate(fingerprints)).is(false);
+    Files.write(zip, zipContent);
+    that(output.isUpToDate(fingerprints)).is(true);
+  }
+
+  /** Separate outputs for directory and zip, so that both are written and checked independently. */
+  private Output[] outputs() {
+    var toDir = new Output();
+    toDir.out = dir.resolve("out").toString();
+    var toZip = new Output();
+    toZip.zip = dir.resolve("out.zip").toString();
+    return new Output[] {toDir, toZip};
+  }
+
+  private static void write(Output output, String path, String content) {
+    output.write.invoke(null, path, content);
+  }
+
+  private static void append(Output output, String path, String content) {
+    output.append.invoke(null, path, content);
+  }
+
+  private Map<String, String> files() throws IOException {
+    var out = dir.resolve("out");
+    var files = new LinkedHashMap<String, String>();
+    try (Stream<Path> paths = Files.walk(out)) {
+      for (var p : paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+        files.put(out.relativize(p).toString(), Files.readString(p));
+      }
+    }
+    return files;
+  }
+
+  private Map<String, String> zipEntries() throws IOException {
+    var entries = new LinkedHashMap<String, String>();
+    try (var zip = new ZipFile(new File(dir.toFile(), "out.zip"))) {
+      for (ZipEntry e : Collections.list(zip.entries())) {
+        entries.put(e.getName(), new String(zip.getInputStream(e).readAllBytes(), StandardCharsets.UTF_8));
+      }
+    }
+    return entries;
+  }
+
+  private static Path createDir() {
+    try {
+      return Files.createTempDirectory("output");
+    } catch (IOException ex) {
+      throw new AssertionError(ex);
+    }
+  }
+}
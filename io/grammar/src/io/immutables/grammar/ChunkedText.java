@@ -0,0 +1,67 @@
+package io.immutables.grammar;
+
+import io.immutables.Capacity;
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+/**
+ * Append-only text kept in fixed size chunks, used to retain source read from a stream. Unlike growing
+ * a single {@code char[]}, appending never copies already stored text and never needs a contiguous
+ * array of the size of the whole input.
+ */
+final class ChunkedText implements CharSequence {
+	private static final int CHUNK_SHIFT = 16;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private char[][] chunks = new char[0][];
+	private int length;
+
+	void append(char[] chars, int offset, int count) {
+		while (count > 0) {
+			int chunk = length >>> CHUNK_SHIFT;
+			if (chunk == chunks.length) {
+				chunks = Capacity.ensure(chunks, chunk, 1);
+			}
+			if (chunks[chunk] == null) {
+				chunks[chunk] = new char[CHUNK_SIZE];
+			}
+			int at = length & CHUNK_MASK;
+			int n = Math.min(count, CHUNK_SIZE - at);
+			System.arraycopy(chars, offset, chunks[chunk], at, n);
+			offset += n;
+			count -= n;
+			length += n;
+		}
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		checkElementIndex(index, length);
+		return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+	}
+
+	@Override
+	public CharSequence subSequence(int begin, int end) {
+		checkPositionIndexes(begin, end, length);
+		char[] chars = new char[end - begin];
+		for (int p = begin, i = 0; p < end;) {
+			int at = p & CHUNK_MASK;
+			int n = Math.min(end - p, CHUNK_SIZE - at);
+			System.arraycopy(chunks[p >>> CHUNK_SHIFT], at, chars, i, n);
+			p += n;
+			i += n;
+		}
+		return new String(chars);
+	}
+
+	@Override
+	public String toString() {
+		return subSequence(0, length).toString();
+	}
+}
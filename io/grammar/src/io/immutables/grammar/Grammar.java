@@ -7,4 +7,12 @@ import java.lang.annotation.Target;
 
 @Target(ElementType.TYPE)
 @Retention(RetentionPolicy.SOURCE)
-public @interface Grammar {}
+public @interface Grammar {
+	/**
+	 * Generate packrat parser: results of each production attempt are memoized by term index, so
+	 * backtracking never parses the same production at the same place twice. This keeps parsing time
+	 * linear for grammars with lots of alternatives sharing prefixes, at the cost of memo tables
+	 * proportional to the number of terms.
+	 */
+	boolean memoize() default false;
+}
@@ -0,0 +1,66 @@
+package io.immutables.grammar;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Reusable buffers for tokenizing and parsing many inputs in a row (think of SQL snippets or query
+ * expressions parsed at high rate). Term storage segments, tokenizer window and production elements are
+ * taken from the arena and are handed back to it after use, so that, once warmed up, reading terms and
+ * parsing productions allocates almost no arrays. The catch is that terms read using an arena, as well as
+ * productions parsed from those terms (and terms edited from them), share arena buffers and are valid only
+ * until the arena is used to read the next terms. Arena is not thread safe, use one per thread.
+ */
+@NotThreadSafe
+public final class ParseArena {
+	private short[][] terms = new short[0][];
+	private int[][] ends = new int[0][];
+	private char[] window = new char[0];
+	private long[] elements = new long[0];
+	private int[] examined = new int[0];
+	private boolean elementsLent;
+
+	/** Starts the next round, buffers held by previous terms and productions are reused from now on. */
+	void reset() {
+		elementsLent = false;
+	}
+
+	TermStorage termStorage() {
+		return new TermStorage(terms, ends);
+	}
+
+	char[] window(int size) {
+		if (window.length < size) {
+			window = new char[size];
+		}
+		return window;
+	}
+
+	/** Takes back buffers used for reading terms, as they might have been grown or allocated anew. */
+	void reclaim(TermStorage storage, @Nullable char[] window) {
+		if (storage.flat) {
+			this.terms = storage.terms;
+			this.ends = storage.ends;
+		}
+		if (window != null && window.length > this.window.length) {
+			this.window = window;
+		}
+	}
+
+	/**
+	 * Lends production buffers to the parser, only one parser can have them at a time, others allocate
+	 * their own.
+	 */
+	boolean lend(Productions.Parser parser) {
+		if (elementsLent) return false;
+		elementsLent = true;
+		parser.elements = elements;
+		parser.examined = examined;
+		return true;
+	}
+
+	void reclaim(long[] elements, int[] examined) {
+		this.elements = elements;
+		this.examined = examined;
+	}
+}
@@ -0,0 +1,161 @@
+package io.immutables.grammar;
+
+import io.immutables.Capacity;
+import java.util.Arrays;
+
+/**
+ * Memo table for packrat parsing: results of production attempts keyed by production and term index.
+ * Stored in primitive arrays: open addressing table of {@code long} keys pointing to fixed stride
+ * {@code int} entries. Matched elements are not copied anywhere, instead each write to production
+ * elements stamps its position, and memoized result is replayed in place if its first position was not
+ * written to since the result was recorded: elements are only written at increasing positions after
+ * backtracking, so any write inside recorded range have to go through its first position. This is
+ * exactly the case for alternatives sharing the same prefix. There's also a stack of frames which saves
+ * parser state around each memoized attempt.
+ */
+final class ParseMemo {
+	static final int MATCHED = 0;
+	static final int END_INDEX = 1;
+	static final int FIRST_MATCHED = 2;
+	static final int MATCHED_AT = 3;
+	static final int MISMATCH_AT = 4;
+	static final int MISMATCH_ACTUAL = 5;
+	static final int MISMATCH_EXPECTED = 6;
+	static final int MISMATCH_PRODUCTION = 7;
+	static final int LAST_PRODUCTION = 8;
+	static final int ORIGIN = 9;
+	/** End position of recorded elements or {@code -1} if they are not recorded or cannot be replayed. */
+	static final int END_POSITION = 10;
+	static final int STAMP = 11;
+	private static final int ENTRY_STRIDE = 12;
+
+	static final int FRAME_INDEX = 0;
+	static final int FRAME_POSITION = 1;
+	static final int FRAME_MISMATCH_AT = 2;
+	static final int FRAME_MISMATCH_ACTUAL = 3;
+	static final int FRAME_MISMATCH_EXPECTED = 4;
+	static final int FRAME_MISMATCH_PRODUCTION = 5;
+	static final int FRAME_MATCHED_AT = 6;
+	static final int FRAME_FIRST_MATCHED = 7;
+	private static final int FRAME_STRIDE = 8;
+
+	private long[] keys;
+	private int[] slots;
+	private int mask;
+	private int size;
+
+	int[] entries = new int[0];
+	private int entryEnd;
+
+	private int[] stamps = new int[0];
+	private int clock;
+
+	int[] frames = new int[FRAME_STRIDE * 16];
+	private int frameEnd;
+
+	ParseMemo(int expectedTerms) {
+		int capacity = Integer.highestOneBit(Math.max(16, expectedTerms) - 1) << 1;
+		this.keys = new long[capacity];
+		this.slots = new int[capacity];
+		this.mask = capacity - 1;
+	}
+
+	/** Offset of the entry or {@code -1} if there's no result memoized. */
+	int find(int production, int index) {
+		long key = key(production, index);
+		for (int h = hash(key) & mask;; h = (h + 1) & mask) {
+			long k = keys[h];
+			if (k == key) return slots[h];
+			if (k == 0) return -1;
+		}
+	}
+
+	/** Offset of existing entry or newly allocated one, which is to be overwritten anyway. */
+	int put(int production, int index) {
+		long key = key(production, index);
+		int h = hash(key) & mask;
+		for (;; h = (h + 1) & mask) {
+			long k = keys[h];
+			if (k == key) return slots[h];
+			if (k == 0) break;
+		}
+		int e = entryEnd;
+		entries = Capacity.ensure(entries, e, ENTRY_STRIDE);
+		entryEnd += ENTRY_STRIDE;
+		keys[h] = key;
+		slots[h] = e;
+		if (++size > (mask >> 1)) rehash();
+		return e;
+	}
+
+	/** Marks elements at position as (re)written. */
+	void written(int position) {
+		int slot = position >> 1;
+		if (slot >= stamps.length) {
+			// reused productions are copied in without stamping every position
+			stamps = Arrays.copyOf(stamps, Math.max(slot + 1, stamps.length << 1));
+		}
+		if (++clock == Integer.MAX_VALUE) clear();
+		stamps[slot] = clock;
+	}
+
+	void stamp(int entry) {
+		entries[entry + STAMP] = clock;
+	}
+
+	/** If elements recorded for the entry are still in place. */
+	boolean intact(int entry) {
+		int slot = entries[entry + ORIGIN] >> 1;
+		return slot >= stamps.length || stamps[slot] <= entries[entry + STAMP];
+	}
+
+	private void clear() {
+		Arrays.fill(keys, 0L);
+		Arrays.fill(stamps, 0);
+		size = 0;
+		entryEnd = 0;
+		clock = 0;
+	}
+
+	/** Pushes new frame and returns its offset in {@link #frames} to fill in. */
+	int enter() {
+		int f = frameEnd;
+		frames = Capacity.ensure(frames, f, FRAME_STRIDE);
+		frameEnd += FRAME_STRIDE;
+		return f;
+	}
+
+	/** Pops the frame and returns its offset in {@link #frames}, valid until the next {@link #enter()}. */
+	int leave() {
+		return frameEnd -= FRAME_STRIDE;
+	}
+
+	private void rehash() {
+		long[] oldKeys = keys;
+		int[] oldSlots = slots;
+		int capacity = oldKeys.length << 1;
+		keys = new long[capacity];
+		slots = new int[capacity];
+		mask = capacity - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			long k = oldKeys[i];
+			if (k == 0) continue;
+			int h = hash(k) & mask;
+			while (keys[h] != 0) {
+				h = (h + 1) & mask;
+			}
+			keys[h] = k;
+			slots[h] = oldSlots[i];
+		}
+	}
+
+	private static long key(int production, int index) {
+		// production and index shifted so key is never zero which marks empty slot
+		return ((long) (production + 1) << Integer.SIZE) | Integer.toUnsignedLong(index + 2);
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> Integer.SIZE));
+	}
+}
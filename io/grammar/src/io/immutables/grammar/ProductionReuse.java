@@ -0,0 +1,107 @@
+package io.immutables.grammar;
+
+/**
+ * Index of productions parsed from previous terms, which can be reused when parsing edited terms.
+ * Result of a production depends only on the terms starting from where it begins and up to the
+ * farthest term examined while parsing it, so a production can be reused if either it examined only terms
+ * before the first changed term, or it begins in the unchanged terms after the edit (term indexes are
+ * then shifted). Index is an open addressing table keyed by begin term index and production kind,
+ * pointing to the outermost production element with such key.
+ */
+final class ProductionReuse {
+	private final long[] elements;
+	private final int[] examined;
+	private final int editBegin;
+	private final int editSync;
+	private final int editShift;
+
+	private final long[] keys;
+	private final int[] positions;
+	private final int mask;
+
+	ProductionReuse(Productions<?, ?> previous, Terms terms) {
+		this.elements = previous.elements;
+		this.examined = previous.examined;
+		if (terms == previous.terms) {
+			// same terms, everything can be reused
+			this.editBegin = 0;
+			this.editSync = 0;
+			this.editShift = 0;
+		} else {
+			this.editBegin = terms.editBegin;
+			this.editSync = terms.editSync;
+			this.editShift = terms.editShift;
+		}
+		int endPosition = previous.endPosition;
+		int capacity = Integer.highestOneBit(Math.max(16, endPosition) - 1) << 1;
+		this.keys = new long[capacity];
+		this.positions = new int[capacity];
+		this.mask = capacity - 1;
+
+		for (int p = 0; p < endPosition; p += 2) {
+			long l0 = elements[p];
+			long l1 = elements[p + 1];
+			short kind = Productions.decodeKind(l0);
+			// only productions having matched any terms
+			if (kind >= 0 || examined[p >> 1] == Productions.MATCHED_EMPTY) continue;
+			long key = key(Productions.decodeTermBegin(l1), kind);
+			int h = hash(key) & mask;
+			for (;; h = (h + 1) & mask) {
+				long k = keys[h];
+				if (k == key) break; // outer one is already there
+				if (k == 0) {
+					keys[h] = key;
+					positions[h] = p;
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Position of reusable production element of kind, which begins with term at index in the new terms,
+	 * or {@code -1} if none.
+	 */
+	int find(int begin, short kind) {
+		int oldBegin;
+		if (begin >= editSync) {
+			oldBegin = begin - editShift;
+		} else if (begin < editBegin) {
+			oldBegin = begin;
+		} else return -1;
+
+		long key = key(oldBegin, kind);
+		for (int h = hash(key) & mask;; h = (h + 1) & mask) {
+			long k = keys[h];
+			if (k == 0) return -1;
+			if (k == key) {
+				int p = positions[h];
+				if (begin >= editSync || examined[p >> 1] < editBegin) return p;
+				return -1;
+			}
+		}
+	}
+
+	/** Shift of term indexes for reused production which begins at index in the new terms. */
+	int shift(int begin) {
+		return begin >= editSync ? editShift : 0;
+	}
+
+	long[] elements() {
+		return elements;
+	}
+
+	int examined(int position) {
+		return examined[position >> 1];
+	}
+
+	private static long key(int begin, short kind) {
+		// kind is negative for productions, so key is never zero
+		return ((long) begin << Short.SIZE) | Short.toUnsignedLong(kind);
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> Integer.SIZE));
+	}
+}
@@ -4,7 +4,11 @@ import com.google.common.base.Strings;
 import com.google.common.primitives.Shorts;
 import io.immutables.Capacity;
 import io.immutables.Source;
+import io.immutables.collect.Vect;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
+import java.util.Optional;
+import javax.annotation.Nullable;
 
 /**
  * Productions coded as flat tree encoded in {@code long} array.
@@ -21,10 +25,12 @@ import java.util.NoSuchElementException;
  * <p>
  */
 public abstract class Productions<K, T extends TreeProduction<K>> {
-	private final long[] elements;
+	final long[] elements;
+	/** Farthest term index examined while parsing production, per element. */
+	final int[] examined;
 	/** Exclusive end position. */
-	private final int endPosition;
-	private final Terms terms;
+	final int endPosition;
+	final Terms terms;
 	private final int mismatchAt;
 	private final int mismatchTermActual;
 	private final int mismatchTermExpected;
@@ -36,12 +42,16 @@ public abstract class Productions<K, T extends TreeProduction<K>> {
 		this.terms = terms;
 		this.constructor = constructor;
 		this.elements = parser.elements;
+		this.examined = parser.examined;
 		this.endPosition = parser.position;
 		this.completed = parser.checkCompleted();
 		this.mismatchAt = parser.mismatchAt;
 		this.mismatchTermActual = parser.mismatchTermActual;
 		this.mismatchTermExpected = parser.mismatchTermExpected;
 		this.mismatchProduction = parser.mismatchProduction;
+		if (parser.arena != null) {
+			parser.arena.reclaim(parser.elements, parser.examined);
+		}
 	}
 
 	@FunctionalInterface
@@ -61,6 +71,135 @@ public abstract class Productions<K, T extends TreeProduction<K>> {
 		return result;
 	}
 
+	/**
+	 * Constructs tree node for the production at the traversal, which is at
+	 * {@link Traversal.At#PRODUCTION_BEGIN}.
+	 */
+	protected abstract TreeProduction<K> constructElement(Traversal traversal);
+
+	/**
+	 * Root element: the production which was parsed, as a lazy view of elements, see {@link Element}.
+	 * @throws NoSuchElementException if there are no productions
+	 */
+	public final Element root() {
+		if (endPosition == 0) throw new NoSuchElementException();
+		return new Element(0, endPosition);
+	}
+
+	/**
+	 * All productions of the kind in document order (including nested ones), found by scanning elements
+	 * without constructing any trees.
+	 */
+	public final Vect<Element> find(short kind) {
+		return find(kind, 0, endPosition);
+	}
+
+	private Vect<Element> find(short kind, int begin, int end) {
+		Vect.Builder<Element> builder = Vect.builder();
+		for (int p = begin; p < end; p += POSITION_INCREMENT) {
+			if (decodeKind(elements[p]) == kind) {
+				builder.add(new Element(p, p + decodeLength(elements[p])));
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Lazy view of a production or term backed by its position in the flat elements. Children are read
+	 * on first access, and tree node is constructed only for the element it is asked for
+	 * (see {@link #construct()}), so tools which need only some productions (like top level declarations)
+	 * do not have to construct the whole tree.
+	 */
+	public final class Element {
+		private final int position;
+		/** End position of the parent, the bound for siblings. */
+		private final int parentEnd;
+		private @Nullable Vect<Element> children;
+
+		private Element(int position, int parentEnd) {
+			this.position = position;
+			this.parentEnd = parentEnd;
+		}
+
+		public short kind() {
+			return decodeKind(elements[position]);
+		}
+
+		public short part() {
+			return decodePart(elements[position]);
+		}
+
+		public boolean isTerm() {
+			return kind() >= 0;
+		}
+
+		public int termBegin() {
+			return decodeTermBegin(elements[position + 1]);
+		}
+
+		public int termEnd() {
+			return decodeTermEnd(elements[position + 1]);
+		}
+
+		/** Index of the element, the same as {@link Traversal#index()}. */
+		public int index() {
+			return position / 2;
+		}
+
+		public Source.Range range() {
+			return terms.rangeInclusive(termBegin(), termEnd());
+		}
+
+		/** Source text of the element. */
+		public CharSequence text() {
+			return range().get(terms.source());
+		}
+
+		public Vect<Element> children() {
+			if (children == null) {
+				int end = end();
+				Vect.Builder<Element> builder = Vect.builder();
+				for (int p = position + POSITION_INCREMENT; p < end; p += decodeLength(elements[p])) {
+					builder.add(new Element(p, end));
+				}
+				children = builder.build();
+			}
+			return children;
+		}
+
+		/** Next sibling, skipping over all the elements of this one. */
+		public Optional<Element> next() {
+			int p = end();
+			return p < parentEnd
+					? Optional.of(new Element(p, parentEnd))
+					: Optional.empty();
+		}
+
+		/** Nested productions of the kind in document order, found by scanning elements. */
+		public Vect<Element> find(short kind) {
+			return Productions.this.find(kind, position + POSITION_INCREMENT, end());
+		}
+
+		/** Constructs tree node of this production element (and all its subtree). */
+		public TreeProduction<K> construct() {
+			if (isTerm()) throw new UnsupportedOperationException("Term element cannot be constructed: " + this);
+			Traversal traversal = new Traversal(Productions.this, position, end());
+			traversal.next();
+			return constructElement(traversal);
+		}
+
+		private int end() {
+			return position + decodeLength(elements[position]);
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder builder = new StringBuilder();
+			appendPosition(builder, position);
+			return builder.toString();
+		}
+	}
+
 	public final String show() {
 		StringBuilder builder = new StringBuilder();
 		for (int i = 0; i < endPosition; i += 2) {
@@ -127,16 +266,21 @@ public abstract class Productions<K, T extends TreeProduction<K>> {
 		private final int endPosition;
 
 		private At current = At.EOP;
-		private int position = -POSITION_INCREMENT;
+		private int position;
 		// should be fine enouph to avoid initial reallocation.
 		private int[] stackEnds = new int[32];
 		private int[] stackPositions = new int[32];
 		private int stackPointer = -1;
 
 		private Traversal(Productions<?, ?> productions) {
+			this(productions, 0, productions.endPosition);
+		}
+
+		private Traversal(Productions<?, ?> productions, int beginPosition, int endPosition) {
 			this.productions = productions;
 			this.elements = productions.elements;
-			this.endPosition = productions.endPosition;
+			this.position = beginPosition - POSITION_INCREMENT;
+			this.endPosition = endPosition;
 		}
 
 		public At current() {
@@ -258,9 +402,9 @@ public abstract class Productions<K, T extends TreeProduction<K>> {
 		private static final int NO_MISMATCH = -1;
 		protected final Terms input;
 		protected final Terms.Traversal terms;
-		// TODO maybe reuse smartly segmented arrays?
 		protected long[] elements = EMPTY_LONG_ARRAY;
 		protected int position = 0;
+		int[] examined = EMPTY_INT_ARRAY;
 
 		int mismatchAt = NO_MISMATCH;
 		int mismatchTermActual;
@@ -268,12 +412,261 @@ public abstract class Productions<K, T extends TreeProduction<K>> {
 		short mismatchProduction;
 		short currentProduction;
 
+		private @Nullable ParseMemo memo;
+		private @Nullable ProductionReuse reuse;
+		private @Nullable ParseArena arena;
+		private int matchedAt = NO_MATCH;
+		private int firstMatchedAt = NO_MATCH;
+
 		protected Parser(Terms input) {
 			this.input = input;
 			this.terms = input.traverse();
+			if (input.arena != null && input.arena.lend(this)) {
+				this.arena = input.arena;
+			}
 			this.elements = Capacity.ensure(elements, 0, input.count() / 4); // XXX approximation ok?
 		}
 
+		/**
+		 * Enables reuse of productions parsed from previous terms, when parsing terms which are the result
+		 * of editing those previous terms (or the same terms). Generated parsers check each production with
+		 * {@link #reused(short, short)}. Does nothing if terms are not related.
+		 */
+		protected final void reuseFrom(Productions<?, ?> previous) {
+			if (previous.terms == input || input.isEditOf(previous.terms)) {
+				reuse = new ProductionReuse(previous, input);
+			}
+		}
+
+		/**
+		 * Copies previously parsed production of the kind if it begins at the next term and can be reused.
+		 * @return {@code true} if production was reused and matched
+		 */
+		protected final boolean reused(short part, short kind) {
+			ProductionReuse r = reuse;
+			if (r == null || part == NO_PART) return false;
+			// peek at the term production would begin with
+			int index = terms.index();
+			int farthest = terms.farthest();
+			terms.advance();
+			int begin = terms.index();
+			terms.reset(index);
+			terms.farthest(farthest);
+
+			int at = r.find(begin, kind);
+			if (at < 0) return false;
+
+			long[] old = r.elements();
+			int shift = r.shift(begin);
+			int length = decodeLength(old[at]);
+			int oldEnd = decodeTermEnd(old[at + 1]);
+			int p = position;
+			elements = Capacity.ensure(elements, p, length);
+			ensureExamined(p + length);
+			for (int i = 0; i < length; i += POSITION_INCREMENT) {
+				long l0 = old[at + i];
+				long l1 = old[at + i + 1];
+				int e = decodeKind(l0) < 0 ? r.examined(at + i) : 0;
+				if (e == MATCHED_EMPTY) {
+					// empty production is backfilled with the begin of the following term, which
+					// is either inside the copied production, or is yet to be matched
+					int b = decodeTermBegin(l1);
+					l1 = l1 >= 0 && b <= oldEnd ? encodeTermBegin(0L, b + shift) : -1L;
+				} else {
+					if (l1 >= 0) {
+						l1 = encodeTermEnd(encodeTermBegin(0L, decodeTermBegin(l1) + shift), decodeTermEnd(l1) + shift);
+					}
+					e += shift;
+				}
+				elements[p + i] = l0;
+				elements[p + i + 1] = l1;
+				if (decodeKind(l0) < 0) {
+					examined[(p + i) >> 1] = e;
+				}
+			}
+			elements[p] = replacePart(elements[p], part);
+			if (memo != null) memo.written(p);
+			position = p + length;
+
+			int end = decodeTermEnd(elements[p + 1]);
+			terms.reset(end);
+			// what production examined, its parents have examined too
+			if (examined[p >> 1] > farthest) {
+				terms.farthest(examined[p >> 1]);
+			}
+			currentProduction = kind;
+			backfillTermBegin(p, begin);
+			if (end > matchedAt) matchedAt = end;
+			if (firstMatchedAt == NO_MATCH) firstMatchedAt = begin;
+			if (end > mismatchAt) {
+				mismatchAt = NO_MISMATCH;
+				mismatchProduction = 0;
+			}
+			return true;
+		}
+
+		/**
+		 * Enables packrat memoization: generated parsers for grammars with {@link Grammar#memoize()} call
+		 * this and guard each production with {@link #recall(int, short, boolean)} and
+		 * {@link #remember(int, short, boolean)}, so that any production is attempted at most once per
+		 * term index (and recorded part-ness), which keeps backtracking linear.
+		 */
+		protected final void memoize() {
+			memo = new ParseMemo(input.count());
+		}
+
+		/**
+		 * Replays memoized result of the production at the current term index. When there's no usable
+		 * result, returns {@link #RECALL_MISSED} and starts tracking the attempt which have to be
+		 * finished by {@link #remember(int, short, boolean)}.
+		 * @param production production number
+		 * @param part part code the production is requested with
+		 * @param ownElement if production records its own element, part of which is to be replaced
+		 * @return {@link #RECALL_MATCHED}, {@link #RECALL_FAILED} or {@link #RECALL_MISSED}
+		 */
+		protected final int recall(int production, short part, boolean ownElement) {
+			ParseMemo m = memo;
+			assert m != null;
+			int index = terms.index();
+			int e = m.find(production, index);
+			if (e >= 0) {
+				int[] entries = m.entries;
+				boolean matched = entries[e + ParseMemo.MATCHED] != 0;
+				int p = position;
+				int endPosition = entries[e + ParseMemo.END_POSITION];
+				boolean replay = !matched || part == NO_PART
+						|| (endPosition >= 0 && entries[e + ParseMemo.ORIGIN] == p && m.intact(e));
+				// otherwise matched but elements were not recorded or were overwritten, will parse again
+				if (replay) {
+					if (matched) {
+						if (part != NO_PART && endPosition > p) {
+							if (ownElement) {
+								long l0 = elements[p];
+								long patched = replacePart(l0, part);
+								if (patched != l0) {
+									// anything else including this element is now different
+									elements[p] = patched;
+									m.written(p);
+									m.stamp(e);
+								}
+							}
+							position = endPosition;
+						}
+						int first = entries[e + ParseMemo.FIRST_MATCHED];
+						if (first != NO_MATCH) {
+							backfillTermBegin(p, first);
+						}
+						terms.reset(entries[e + ParseMemo.END_INDEX]);
+					}
+					currentProduction = (short) entries[e + ParseMemo.LAST_PRODUCTION];
+					merge(entries[e + ParseMemo.MATCHED_AT],
+							entries[e + ParseMemo.FIRST_MATCHED],
+							entries[e + ParseMemo.MISMATCH_AT],
+							entries[e + ParseMemo.MISMATCH_ACTUAL],
+							entries[e + ParseMemo.MISMATCH_EXPECTED],
+							(short) entries[e + ParseMemo.MISMATCH_PRODUCTION]);
+					return matched ? RECALL_MATCHED : RECALL_FAILED;
+				}
+			}
+			int f = m.enter();
+			int[] frames = m.frames;
+			frames[f + ParseMemo.FRAME_INDEX] = index;
+			frames[f + ParseMemo.FRAME_POSITION] = position;
+			frames[f + ParseMemo.FRAME_MISMATCH_AT] = mismatchAt;
+			frames[f + ParseMemo.FRAME_MISMATCH_ACTUAL] = mismatchTermActual;
+			frames[f + ParseMemo.FRAME_MISMATCH_EXPECTED] = mismatchTermExpected;
+			frames[f + ParseMemo.FRAME_MISMATCH_PRODUCTION] = mismatchProduction;
+			frames[f + ParseMemo.FRAME_MATCHED_AT] = matchedAt;
+			frames[f + ParseMemo.FRAME_FIRST_MATCHED] = firstMatchedAt;
+			// attempt tracks its own mismatch and matches, to be merged with saved outer state
+			// the same way regardless if result was computed or recalled
+			mismatchAt = NO_MISMATCH;
+			mismatchProduction = 0;
+			matchedAt = NO_MATCH;
+			firstMatchedAt = NO_MATCH;
+			return RECALL_MISSED;
+		}
+
+		/**
+		 * Memoizes result of production attempt started after {@link #recall(int, short, boolean)} missed.
+		 * @return {@code matched} as is
+		 */
+		protected final boolean remember(int production, short part, boolean matched) {
+			ParseMemo m = memo;
+			assert m != null;
+			int f = m.leave();
+			int[] frames = m.frames;
+			int index = frames[f + ParseMemo.FRAME_INDEX];
+			int p = frames[f + ParseMemo.FRAME_POSITION];
+
+			int e = m.put(production, index);
+			int[] entries = m.entries;
+			entries[e + ParseMemo.MATCHED] = matched ? 1 : 0;
+			entries[e + ParseMemo.END_INDEX] = terms.index();
+			entries[e + ParseMemo.FIRST_MATCHED] = firstMatchedAt;
+			entries[e + ParseMemo.MATCHED_AT] = matchedAt;
+			entries[e + ParseMemo.MISMATCH_AT] = mismatchAt;
+			entries[e + ParseMemo.MISMATCH_ACTUAL] = mismatchTermActual;
+			entries[e + ParseMemo.MISMATCH_EXPECTED] = mismatchTermExpected;
+			entries[e + ParseMemo.MISMATCH_PRODUCTION] = mismatchProduction;
+			entries[e + ParseMemo.LAST_PRODUCTION] = currentProduction;
+			entries[e + ParseMemo.ORIGIN] = p;
+			// Trailing elements not marked with begin term could be backfilled later by subsequent matches,
+			// such elements are not replayed. Only trailing ones can be unmarked, so checking the last one
+			boolean replayable = matched && part != NO_PART
+					&& (position == p || elements[position - 1] >= 0);
+			entries[e + ParseMemo.END_POSITION] = replayable ? position : -1;
+			m.stamp(e);
+
+			int attemptMatchedAt = matchedAt;
+			int attemptFirstMatched = firstMatchedAt;
+			int attemptMismatchAt = mismatchAt;
+			int attemptMismatchActual = mismatchTermActual;
+			int attemptMismatchExpected = mismatchTermExpected;
+			short attemptMismatchProduction = mismatchProduction;
+
+			mismatchAt = frames[f + ParseMemo.FRAME_MISMATCH_AT];
+			mismatchTermActual = frames[f + ParseMemo.FRAME_MISMATCH_ACTUAL];
+			mismatchTermExpected = frames[f + ParseMemo.FRAME_MISMATCH_EXPECTED];
+			mismatchProduction = (short) frames[f + ParseMemo.FRAME_MISMATCH_PRODUCTION];
+			matchedAt = frames[f + ParseMemo.FRAME_MATCHED_AT];
+			firstMatchedAt = frames[f + ParseMemo.FRAME_FIRST_MATCHED];
+
+			merge(attemptMatchedAt,
+					attemptFirstMatched,
+					attemptMismatchAt,
+					attemptMismatchActual,
+					attemptMismatchExpected,
+					attemptMismatchProduction);
+			return matched;
+		}
+
+		private void merge(
+				int attemptMatchedAt,
+				int attemptFirstMatched,
+				int attemptMismatchAt,
+				int attemptMismatchActual,
+				int attemptMismatchExpected,
+				short attemptMismatchProduction) {
+			// same rules as in markTermBegin and mismatch, but applied at once
+			if (attemptMatchedAt > mismatchAt) {
+				mismatchAt = NO_MISMATCH;
+				mismatchProduction = 0;
+			}
+			if (attemptMismatchAt > mismatchAt) {
+				mismatchAt = attemptMismatchAt;
+				mismatchTermActual = attemptMismatchActual;
+				mismatchTermExpected = attemptMismatchExpected;
+				mismatchProduction = attemptMismatchProduction;
+			}
+			if (attemptMatchedAt > matchedAt) {
+				matchedAt = attemptMatchedAt;
+			}
+			if (firstMatchedAt == NO_MATCH) {
+				firstMatchedAt = attemptFirstMatched;
+			}
+		}
+
 		boolean checkCompleted() {
 			// if we're reached EOF, then we're done
 			if (terms.advance() == Terms.EOF) return true;
@@ -294,6 +687,7 @@ public abstract class Productions<K, T extends TreeProduction<K>> {
 			l1 = encodeKind(l1, kind);
 
 			elements = Capacity.ensure(elements, position, POSITION_INCREMENT);
+			if (memo != null) memo.written(position);
 			elements[position] = l1;
 			// reset to undefined this is important because of how
 			// we check it in markTermBegin and because there may have
@@ -311,12 +705,17 @@ public abstract class Productions<K, T extends TreeProduction<K>> {
 
 			int termEnd = terms.index();
 
+			// production which have not matched any term is not marked yet
+			boolean empty = l1 < 0;
 			l0 = encodeLength(l0, position - positionBegin);
 			l1 = encodeTermEnd(l1, termEnd);
 
 			elements[positionBegin] = l0;
 			elements[positionBegin + 1] = l1;
 
+			ensureExamined(positionBegin + POSITION_INCREMENT);
+			examined[positionBegin >> 1] = empty ? MATCHED_EMPTY : terms.farthest();
+
 			return true;
 		}
 
@@ -352,6 +751,28 @@ public abstract class Productions<K, T extends TreeProduction<K>> {
 
 		private void markTermBegin() {
 			int index = terms.index();
+			backfillTermBegin(position, index);
+			if (index > matchedAt) matchedAt = index;
+			if (firstMatchedAt == NO_MATCH) firstMatchedAt = index;
+			// clearing mismatch if we succeeded any further
+			if (index > mismatchAt) {
+				// we expect either exhaust input or fail even further.
+				// when not doing this we're reporting a problem in the wrong place
+				// for the case where we have successfully matched everything,
+				// yet have unmatching trailing input
+				mismatchAt = NO_MISMATCH;
+				mismatchProduction = 0;
+			}
+		}
+
+		private void ensureExamined(int positionEnd) {
+			// elements may have been written up to here without production ends recorded
+			if (examined.length < positionEnd >> 1) {
+				examined = Arrays.copyOf(examined, Math.max(positionEnd >> 1, examined.length << 1));
+			}
+		}
+
+		private void backfillTermBegin(int position, int index) {
 			// Climbing upwards to backfill begin term for productions not yet marked with such.
 			// We expect that any preceeding sibling would already have been marked
 			// by the same routine. So this bubbling will always occur for the
@@ -363,15 +784,6 @@ public abstract class Productions<K, T extends TreeProduction<K>> {
 				if (elements[p] >= 0) break;
 				elements[p] = encodeTermBegin(0L, index);
 			}
-			// clearing mismatch if we succeeded any further
-			if (index > mismatchAt) {
-				// we expect either exhaust input or fail even further.
-				// when not doing this we're reporting a problem in the wrong place
-				// for the case where we have successfully matched everything,
-				// yet have unmatching trailing input
-				mismatchAt = NO_MISMATCH;
-				mismatchProduction = 0;
-			}
 		}
 
 		private boolean markTerm(short part, int term) {
@@ -386,6 +798,7 @@ public abstract class Productions<K, T extends TreeProduction<K>> {
 			l1 = encodeTermEnd(l1, index);
 
 			elements = Capacity.ensure(elements, p, POSITION_INCREMENT);
+			if (memo != null) memo.written(position);
 			elements[position] = l0;
 			elements[position + 1] = l1;
 
@@ -534,6 +947,10 @@ public abstract class Productions<K, T extends TreeProduction<K>> {
 		return l0 | (Short.toUnsignedLong(part) << Integer.SIZE);
 	}
 
+	static long replacePart(long l0, short part) {
+		return encodePart(l0 & ~(0xffffL << Integer.SIZE), part);
+	}
+
 	static long encodeKind(long l0, short kind) {
 		return l0 | (Short.toUnsignedLong(kind) << (Integer.SIZE + Short.SIZE));
 	}
@@ -547,8 +964,16 @@ public abstract class Productions<K, T extends TreeProduction<K>> {
 	}
 
 	private static final int POSITION_INCREMENT = 2;
+	private static final int NO_MATCH = -1;
+	/** Marks production which matched no terms in place of farthest examined term index. */
+	static final int MATCHED_EMPTY = -1;
 	private static final long[] EMPTY_LONG_ARRAY = {};
+	private static final int[] EMPTY_INT_ARRAY = {};
 
 	protected static final short ANY_PART = (short) 0xffff;
 	protected static final short NO_PART = (short) 0x0000;
+
+	protected static final int RECALL_MISSED = 0;
+	protected static final int RECALL_MATCHED = 1;
+	protected static final int RECALL_FAILED = 2;
 }
@@ -0,0 +1,211 @@
+package io.immutables.grammar;
+
+import io.immutables.Capacity;
+import java.util.Arrays;
+
+/**
+ * Append-only storage of terms: each term takes {@code short} code and its end position in fixed size
+ * segments, so storage grows without copying already filled segments. Flat storage, used when input is
+ * already in memory, keeps {@code int} end positions, so resolving a position is a single array load.
+ * Compact storage, used when streaming from reader, keeps {@code char} lengths instead (delta from the
+ * end of the previous term) with absolute end positions anchored every {@link #ANCHOR_STEP} terms, so
+ * resolving a position is a short scan. Lengths which do not fit into {@code char} are kept aside sorted
+ * by term number. For incremental re-tokenization, farthest positions examined by tokenizer beyond
+ * term end are also kept aside for the (rare) terms which looked ahead further than a character past
+ * their end.
+ */
+final class TermStorage {
+	private static final int SEGMENT_SHIFT = 12;
+	private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+	private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+	private static final int ANCHOR_SHIFT = 4;
+	private static final int ANCHOR_STEP = 1 << ANCHOR_SHIFT;
+	private static final char LONG_LENGTH = Character.MAX_VALUE;
+
+	final boolean flat;
+	short[][] terms = new short[0][];
+	/** End positions of terms, used by flat storage. */
+	int[][] ends = new int[0][];
+	/** Lengths of terms, used by compact storage. */
+	char[][] lengths = new char[0][];
+	/** End position of the term preceding every {@link #ANCHOR_STEP}-th term. */
+	int[] anchors = new int[0];
+	/** Pairs of term number and length for terms longer than {@code char} can hold. */
+	private int[] longLengths = new int[0];
+	private int longCount;
+	/** Pairs of term number and farthest examined position for terms which looked further ahead. */
+	private int[] lookaheads = new int[0];
+	private int lookaheadCount;
+	private int count;
+	private int end;
+
+	TermStorage(boolean flat) {
+		this.flat = flat;
+	}
+
+	/**
+	 * Flat storage which reuses arrays of segments, already allocated segments are filled again
+	 * rather than allocated, see {@link ParseArena}.
+	 */
+	TermStorage(short[][] terms, int[][] ends) {
+		this.flat = true;
+		this.terms = terms;
+		this.ends = ends;
+	}
+
+	/**
+	 * Storage starting with {@code prefix} first terms of the other one. Filled segments are shared rather
+	 * than copied, as storage is append only and they will not be written to.
+	 */
+	TermStorage(TermStorage other, int prefix) {
+		int fullSegments = prefix >>> SEGMENT_SHIFT;
+		int segments = (prefix + SEGMENT_MASK) >>> SEGMENT_SHIFT;
+		this.flat = other.flat;
+		this.terms = new short[Math.max(1, segments)][];
+		System.arraycopy(other.terms, 0, terms, 0, fullSegments);
+		if (segments > fullSegments) {
+			terms[fullSegments] = other.terms[fullSegments].clone();
+		}
+		if (flat) {
+			this.ends = new int[Math.max(1, segments)][];
+			System.arraycopy(other.ends, 0, ends, 0, fullSegments);
+			if (segments > fullSegments) {
+				ends[fullSegments] = other.ends[fullSegments].clone();
+			}
+		} else {
+			this.lengths = new char[Math.max(1, segments)][];
+			System.arraycopy(other.lengths, 0, lengths, 0, fullSegments);
+			if (segments > fullSegments) {
+				lengths[fullSegments] = other.lengths[fullSegments].clone();
+			}
+			this.anchors = Arrays.copyOf(other.anchors, (prefix + ANCHOR_STEP - 1) >>> ANCHOR_SHIFT);
+		}
+		while (longCount < other.longCount && other.longLengths[longCount * 2] < prefix) {
+			longCount++;
+		}
+		this.longLengths = Arrays.copyOf(other.longLengths, longCount * 2);
+		while (lookaheadCount < other.lookaheadCount && other.lookaheads[lookaheadCount * 2] < prefix) {
+			lookaheadCount++;
+		}
+		this.lookaheads = Arrays.copyOf(other.lookaheads, lookaheadCount * 2);
+		this.count = prefix;
+		this.end = prefix > 0 ? other.end(prefix - 1) : 0;
+	}
+
+	int count() {
+		return count;
+	}
+
+	void add(int term, int endPosition) {
+		int n = count;
+		int segment = n >>> SEGMENT_SHIFT;
+		if (segment == terms.length) {
+			terms = Capacity.ensure(terms, segment, 1);
+			if (flat) ends = Capacity.ensure(ends, segment, 1);
+			else lengths = Capacity.ensure(lengths, segment, 1);
+		}
+		if (terms[segment] == null) {
+			terms[segment] = new short[SEGMENT_SIZE];
+		}
+		if (flat) {
+			if (ends[segment] == null) {
+				ends[segment] = new int[SEGMENT_SIZE];
+			}
+			ends[segment][n & SEGMENT_MASK] = endPosition;
+		} else {
+			addLength(n, segment, endPosition - end);
+		}
+		terms[segment][n & SEGMENT_MASK] = (short) term;
+		end = endPosition;
+		count = n + 1;
+	}
+
+	private void addLength(int n, int segment, int length) {
+		if (lengths[segment] == null) {
+			lengths[segment] = new char[SEGMENT_SIZE];
+		}
+		if ((n & (ANCHOR_STEP - 1)) == 0) {
+			anchors = Capacity.ensure(anchors, n >>> ANCHOR_SHIFT, 1);
+			anchors[n >>> ANCHOR_SHIFT] = end;
+		}
+		if (length >= LONG_LENGTH) {
+			longLengths = Capacity.ensure(longLengths, longCount * 2, 2);
+			longLengths[longCount * 2] = n;
+			longLengths[longCount * 2 + 1] = length;
+			longCount++;
+			length = LONG_LENGTH;
+		}
+		lengths[segment][n & SEGMENT_MASK] = (char) length;
+	}
+
+	/** Appends terms of the other storage starting with term {@code from}, shifting positions by delta. */
+	void appendShifted(TermStorage other, int from, int delta) {
+		int shift = count - from;
+		int k = 0;
+		while (k < other.lookaheadCount && other.lookaheads[k * 2] < from) {
+			k++;
+		}
+		for (int n = from, e = 0; n < other.count; n++) {
+			e = other.flat || n == from ? other.end(n) + delta : e + other.length(n);
+			add(other.term(n), e);
+		}
+		for (; k < other.lookaheadCount; k++) {
+			lookahead(other.lookaheads[k * 2] + shift, other.lookaheads[k * 2 + 1] + delta);
+		}
+	}
+
+	/** Records that the last added term was read examining characters up to position. */
+	void lookahead(int n, int position) {
+		lookaheads = Capacity.ensure(lookaheads, lookaheadCount * 2, 2);
+		lookaheads[lookaheadCount * 2] = n;
+		lookaheads[lookaheadCount * 2 + 1] = position;
+		lookaheadCount++;
+	}
+
+	/**
+	 * Number of the first term which examined character at position or any after it, i.e. the first term
+	 * which might be read differently if text at position changes. Each term examined at least the character
+	 * at its end, as this is how term end is detected. Returns {@link #count()} if no terms examined it.
+	 */
+	int firstExamining(int position) {
+		int low = 0, high = count;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (end(mid) < position) low = mid + 1;
+			else high = mid;
+		}
+		for (int k = 0; k < lookaheadCount; k++) {
+			int n = lookaheads[k * 2];
+			if (n >= low) break;
+			if (lookaheads[k * 2 + 1] >= position) return n;
+		}
+		return low;
+	}
+
+	int term(int n) {
+		return terms[n >>> SEGMENT_SHIFT][n & SEGMENT_MASK];
+	}
+
+	/** Exclusive end position of the term number {@code n}. */
+	int end(int n) {
+		if (flat) return ends[n >>> SEGMENT_SHIFT][n & SEGMENT_MASK];
+		int p = anchors[n >>> ANCHOR_SHIFT];
+		for (int i = n & ~(ANCHOR_STEP - 1); i <= n; i++) {
+			p += length(i);
+		}
+		return p;
+	}
+
+	private int length(int n) {
+		char length = lengths[n >>> SEGMENT_SHIFT][n & SEGMENT_MASK];
+		if (length != LONG_LENGTH) return length;
+		// binary search over term numbers in pairs
+		int low = 0, high = longCount - 1;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (longLengths[mid * 2] < n) low = mid + 1;
+			else high = mid;
+		}
+		return longLengths[low * 2 + 1];
+	}
+}
@@ -1,33 +1,56 @@
 package io.immutables.grammar;
 
-import io.immutables.Capacity;
 import io.immutables.Source;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 import javax.annotation.concurrent.ThreadSafe;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
 
 @ThreadSafe
 public abstract class Terms {
 	private final CharSequence source;
+	private final @Nullable char[] input;
 	private final Source.Lines lines;
-	private final char[] input;
-	private final int[] tokens;
+	private final TermStorage tokens;
 	private final int tokenEnd;
 	private final int unexpectedAt;
+	// when these terms are produced by editing previous ones, these
+	// are indexes of terms which might have changed and the shift of
+	// indexes for unchanged terms which are after the edit
+	private final @Nullable WeakReference<Terms> previous;
+	final int editBegin;
+	final int editSync;
+	final int editShift;
+	final @Nullable ParseArena arena;
 
 	protected Terms(Tokenizer tokenizer) {
-		this.input = tokenizer.input;
+		this.source = tokenizer.source();
+		this.input = tokenizer.array;
 		this.tokens = tokenizer.tokens;
 		this.tokenEnd = tokenizer.index;
-		this.lines = tokenizer.lines.lines(this.input.length);
+		this.lines = tokenizer.lines.lines(source.length());
 		this.unexpectedAt = tokenizer.firstUnexpectedAt;
-		this.source = Source.wrap(input);
+		this.previous = tokenizer.previous != null ? new WeakReference<>(tokenizer.previous) : null;
+		this.editBegin = tokenizer.editBegin;
+		this.editSync = tokenizer.editSync;
+		this.editShift = tokenizer.editShift;
+		this.arena = tokenizer.arena;
+		if (arena != null) {
+			// window over char[] input is the input itself
+			arena.reclaim(tokens, input == null ? tokenizer.window : null);
+		}
 	}
 
 	protected abstract int classTerm(int term);
 	protected abstract int kindTerm(int term);
 	protected abstract String showTerm(int term);
-	protected abstract Traversal newTraversal(int[] tokens, int tokenEnd);
+	protected abstract Traversal newTraversal();
 
 	public final boolean ok() {
 		return !hasUnexpected();
@@ -45,6 +68,38 @@ public abstract class Terms {
 		return lines;
 	}
 
+	/** If these terms were produced by {@link Tokenizer#retokenize} from the previous ones. */
+	final boolean isEditOf(Terms previous) {
+		return this.previous != null && this.previous.get() == previous;
+	}
+
+	/**
+	 * Input with the range of characters replaced, used to create edited terms, see
+	 * {@link Tokenizer#retokenize(Terms, int, int, int)}.
+	 */
+	protected final char[] edited(int begin, int end, CharSequence replacement) {
+		int length = source.length();
+		checkPositionIndexes(begin, end, length);
+		int inserted = replacement.length();
+		char[] edited = new char[length - (end - begin) + inserted];
+		copyChars(source, 0, begin, edited, 0);
+		copyChars(replacement, 0, inserted, edited, begin);
+		copyChars(source, end, length, edited, begin + inserted);
+		return edited;
+	}
+
+	private void copyChars(CharSequence chars, int begin, int end, char[] destination, int at) {
+		if (chars == source && input != null) {
+			System.arraycopy(input, begin, destination, at, end - begin);
+		} else if (chars instanceof String) {
+			((String) chars).getChars(begin, end, destination, at);
+		} else {
+			for (int i = begin; i < end; i++) {
+				destination[at++] = chars.charAt(i);
+			}
+		}
+	}
+
 	public StringBuilder highlight(Source.Range range) {
 		return Source.Excerpt.from(source, lines).get(range);
 	}
@@ -55,14 +110,14 @@ public abstract class Terms {
 	}
 
 	private int beforePosition(int index) {
-		return index <= 0 ? 0 : tokens[index - 1];
+		return index <= 0 ? 0 : tokens.end((index >> 1) - 1);
 	}
 
 	private int afterPosition(int index) {
-		if (index + 1 >= tokens.length) {
-			return input.length;
+		if (index >= tokenEnd) {
+			return source.length();
 		}
-		return tokens[index + 1];
+		return tokens.end(index >> 1);
 	}
 
 	public final Source.Range range(int index) {
@@ -98,7 +153,7 @@ public abstract class Terms {
 		for (int t; (t = traversal.next()) != EOF;) {
 			int before = traversal.beforePosition();
 			int after = traversal.afterPosition();
-			String range = String.valueOf(input, before, after - before);
+			String range = source.subSequence(before, after).toString();
 			String escapedRange = Escapes.escaperRange().escape(range);
 			b.append(showTerm(t)).append(escapedRange).append(' ');
 		}
@@ -108,19 +163,13 @@ public abstract class Terms {
 	}
 
 	public final Traversal traverse() {
-		return newTraversal(tokens, tokenEnd);
+		return newTraversal();
 	}
 
 	@NotThreadSafe
 	public abstract class Traversal {
-		private final int[] tokens;
-		private final int tokenEnd;
 		private int index = -INDEX_STEP;
-
-		protected Traversal(int[] tokens, int tokenEnd) {
-			this.tokens = tokens;
-			this.tokenEnd = tokenEnd;
-		}
+		private int farthest = -INDEX_STEP;
 
 		public abstract int advance();
 
@@ -134,13 +183,23 @@ public abstract class Terms {
 
 		public int next() {
 			index += INDEX_STEP;
+			if (index > farthest) farthest = index;
 			if (index >= tokenEnd) return EOF;
-			return tokens[index];
+			return tokens.term(index >> 1);
 		}
 
 		public int current() {
 			if (index >= tokenEnd) return EOF;
-			return index <= 0 ? EOF : tokens[index];
+			return index <= 0 ? EOF : tokens.term(index >> 1);
+		}
+
+		/** Index of the farthest term examined by this traversal. */
+		int farthest() {
+			return farthest;
+		}
+
+		void farthest(int index) {
+			farthest = index;
 		}
 
 		public int beforePosition() {
@@ -153,7 +212,7 @@ public abstract class Terms {
 
 		@Deprecated
 		public Symbol getSymbol() {
-			return Symbol.from(input, beforePosition(), afterPosition());
+			return Symbol.from(source.subSequence(beforePosition(), afterPosition()));
 		}
 
 		public Source.Range getCurrentRange() {
@@ -167,25 +226,114 @@ public abstract class Terms {
 		}
 	}
 
+	/**
+	 * Tokenizer reads input through a window of characters which is refilled from the source sequence
+	 * or reader on demand. Only characters of the term being read are retained in the window (read attempts
+	 * may backtrack only to the beginning of the current term), so lookahead is bounded by the longest term
+	 * rather than by the input size. Terms are appended to {@link TermStorage}, which is compact when reading
+	 * from {@link Reader}. Text read from {@link Reader} is retained in {@link ChunkedText} for term symbols
+	 * and source excerpts, while text given as {@link CharSequence} (which can be {@link java.nio.CharBuffer}) is referenced as is.
+	 */
 	protected static abstract class Tokenizer {
+		private static final int WINDOW_SIZE = 8192;
+
 		private final Source.Lines.Tracker lines = new Source.Lines.Tracker();
+		private TermStorage tokens;
+		private final @Nullable ParseArena arena;
+
+		private final @Nullable char[] array;
+		private final @Nullable CharSequence sequence;
+		private final @Nullable Reader reader;
+		private final @Nullable ChunkedText text;
+
+		private char[] window;
+		/** Position of the first character in the window. */
+		private int windowOffset;
+		/** Exclusive end position of characters read into the window. */
+		private int limit;
+		private boolean exhausted;
 
-		private final char[] input;
 		protected int position = -1; // before nextChar
+		private int peak = -1;
 
-		private int[] tokens = ZERO_INT_ARRAY;
 		private int index;
 		private int commitedPosition;
 		private char current;
 		private int firstUnexpectedAt = -1;
 
+		private @Nullable Terms previous;
+		private int editBegin = -1;
+		private int editSync = Integer.MAX_VALUE;
+		private int editShift;
+
 		protected Tokenizer(char[] input) {
-			this.input = input;
-			this.tokens = Capacity.ensure(tokens, 0, input.length / 2); // XXX is good approximation?
+			this(input, null);
+		}
+
+		protected Tokenizer(CharSequence input) {
+			this(input, null);
+		}
+
+		protected Tokenizer(Reader input) {
+			this(input, null);
+		}
+
+		/**
+		 * Tokenizer which takes buffers from the arena, terms previously read using the arena (and productions
+		 * parsed from them) are no longer valid after that.
+		 */
+		protected Tokenizer(char[] input, @Nullable ParseArena arena) {
+			this.arena = start(arena);
+			this.tokens = newStorage(arena, true);
+			this.array = input;
+			this.sequence = Source.wrap(input);
+			this.reader = null;
+			this.text = null;
+			this.window = input;
+			this.limit = input.length;
+			this.exhausted = true;
+		}
+
+		protected Tokenizer(CharSequence input, @Nullable ParseArena arena) {
+			this.arena = start(arena);
+			this.tokens = newStorage(arena, true);
+			this.array = null;
+			this.sequence = input;
+			this.reader = null;
+			this.text = null;
+			int size = Math.min(WINDOW_SIZE, input.length());
+			this.window = arena != null ? arena.window(size) : new char[size];
+		}
+
+		protected Tokenizer(Reader input, @Nullable ParseArena arena) {
+			this.arena = start(arena);
+			this.tokens = newStorage(arena, false);
+			this.array = null;
+			this.sequence = null;
+			this.reader = input;
+			this.text = new ChunkedText();
+			this.window = arena != null ? arena.window(WINDOW_SIZE) : new char[WINDOW_SIZE];
+		}
+
+		private static @Nullable ParseArena start(@Nullable ParseArena arena) {
+			if (arena != null) arena.reset();
+			return arena;
+		}
+
+		/**
+		 * Flat storage is for input which is in memory anyway, compact one is for streaming from reader,
+		 * arena keeps segments of flat storage only.
+		 */
+		private static TermStorage newStorage(@Nullable ParseArena arena, boolean flat) {
+			return arena != null && flat ? arena.termStorage() : new TermStorage(flat);
 		}
 
 		protected abstract int read(char current);
 
+		/**
+		 * Reads all terms from the input. I/O problems reading from {@link Reader} are thrown as
+		 * {@link UncheckedIOException}.
+		 */
 		public final void tokenize() {
 			nextChar();
 			for (;;) {
@@ -199,11 +347,107 @@ public abstract class Terms {
 			}
 			// Track any unconsumed as unexpected
 			// (if unrecognized have not been reported before)
-			if (position < input.length && firstUnexpectedAt < 0) {
+			if (position < limit && firstUnexpectedAt < 0) {
 				firstUnexpectedAt = position;
 			}
 		}
 
+		/**
+		 * Reads terms of the edited input reusing terms of the previous input where possible. Input
+		 * of this tokenizer should be the previous input with characters from begin to end replaced with
+		 * inserted number of characters. Terms are read again starting with the first previous term which
+		 * examined any replaced characters and only until the term end is aligned with the end of some previous
+		 * term after the edit, the rest of previous terms is reused with positions shifted. Works only with
+		 * tokenizer over {@code char[]}.
+		 */
+		public final void retokenize(Terms previous, int begin, int end, int inserted) {
+			assert array != null;
+			TermStorage old = previous.tokens;
+			int delta = inserted - (end - begin);
+			int restart = old.firstExamining(begin);
+			int restartPosition = restart > 0 ? old.end(restart - 1) : 0;
+
+			this.previous = previous;
+			this.editBegin = restart * INDEX_STEP;
+			this.tokens = new TermStorage(old, restart);
+			this.index = restart * INDEX_STEP;
+			this.commitedPosition = restartPosition;
+			this.position = restartPosition - 1;
+			countNewlines(0, restartPosition);
+
+			int oldUnexpected = previous.unexpectedAt;
+			if (isUnexpectedTerm(previous, oldUnexpected) && oldUnexpected < editBegin) {
+				firstUnexpectedAt = oldUnexpected;
+			}
+
+			int k = restart;
+			int oldEnd = k < old.count() ? old.end(k) : Integer.MAX_VALUE;
+
+			nextChar();
+			for (;;) {
+				int t = readNext();
+				if (t == EOF) break;
+				if (t == UNEXPECTED && firstUnexpectedAt < 0) {
+					firstUnexpectedAt = index - INDEX_STEP;
+				}
+				// committed end in previous coordinates, only after edit can be aligned
+				int p = position - delta;
+				if (p < end) continue;
+				while (oldEnd < p) {
+					oldEnd = ++k < old.count() ? old.end(k) : Integer.MAX_VALUE;
+				}
+				if (oldEnd == p) {
+					int from = k + 1;
+					editSync = index;
+					editShift = index - from * INDEX_STEP;
+					tokens.appendShifted(old, from, delta);
+					index += (old.count() - from) * INDEX_STEP;
+					countNewlines(position, limit);
+					if (firstUnexpectedAt < 0 && oldUnexpected >= 0) {
+						firstUnexpectedAt = unexpectedAfter(previous, from, end, delta);
+					}
+					return;
+				}
+			}
+			if (position < limit && firstUnexpectedAt < 0) {
+				firstUnexpectedAt = position;
+			}
+		}
+
+		private int unexpectedAfter(Terms previous, int from, int end, int delta) {
+			int oldUnexpected = previous.unexpectedAt;
+			TermStorage old = previous.tokens;
+			if (!isUnexpectedTerm(previous, oldUnexpected)) {
+				return oldUnexpected >= end ? oldUnexpected + delta : -1;
+			}
+			if (oldUnexpected >= from * INDEX_STEP) {
+				return oldUnexpected + editShift;
+			}
+			// previous first unexpected term was replaced, looking for the next one
+			for (int n = from; n < old.count(); n++) {
+				if (old.term(n) == UNEXPECTED) return n * INDEX_STEP + editShift;
+			}
+			return -1;
+		}
+
+		private static boolean isUnexpectedTerm(Terms terms, int unexpectedAt) {
+			// it's either unexpected term index or position of unconsumed input
+			return unexpectedAt >= 0
+					&& (unexpectedAt & 1) == 0
+					&& unexpectedAt < terms.tokenEnd
+					&& terms.tokens.term(unexpectedAt >> 1) == UNEXPECTED;
+		}
+
+		private void countNewlines(int from, int to) {
+			char[] w = window;
+			int offset = windowOffset;
+			for (int p = from; p < to; p++) {
+				if (w[p - offset] == '\n') {
+					lines.addNewlineAt(p);
+				}
+			}
+		}
+
 		private int readNext() {
 			char c = current;
 			if (c == '\0') return EOF;
@@ -212,26 +456,102 @@ public abstract class Terms {
 
 		protected final char nextChar() {
 			int p = ++position;
-			return current = (p < input.length) ? input[p] : '\0';
+			if (p > peak) peak = p;
+			if (p >= limit && !fill()) return current = '\0';
+			return current = window[p - windowOffset];
 		}
 
-		protected final int commit(int token) {
-			for (int p = this.commitedPosition; p < position; p++) {
-				if (input[p] == '\n') {
-					lines.addNewlineAt(p);
+		/**
+		 * Reads the next character and keeps reading while characters are ASCII and marked in the table.
+		 * This is the same as calling {@link #nextChar()} in a loop, but the run of characters is scanned
+		 * right in the window, used for runs of identifier, number or whitespace characters.
+		 * @param ascii table of 128 entries
+		 * @return first character which is not ASCII or not marked, or {@code '\0'} if input is exhausted
+		 */
+		protected final char nextCharWhile(boolean[] ascii) {
+			for (;;) {
+				char[] w = window;
+				int offset = windowOffset;
+				int end = limit;
+				int p = position + 1;
+				for (; p < end; p++) {
+					char c = w[p - offset];
+					if (c >= 128 || !ascii[c]) {
+						position = p;
+						if (p > peak) peak = p;
+						return current = c;
+					}
 				}
+				// the rest of the window matched, nextChar will refill it
+				position = p - 1;
+				char c = nextChar();
+				if (c >= 128 || !ascii[c] || position >= limit) return c;
+			}
+		}
+
+		/**
+		 * Reads more characters into the window, dropping already committed ones and growing window only
+		 * when single term does not fit.
+		 */
+		private boolean fill() {
+			if (exhausted) return false;
+			int keep = commitedPosition - windowOffset;
+			int retained = limit - commitedPosition;
+			if (keep > 0) {
+				System.arraycopy(window, keep, window, 0, retained);
+				windowOffset = commitedPosition;
+			} else if (retained == window.length) {
+				window = Arrays.copyOf(window, Math.max(WINDOW_SIZE, window.length << 1));
+			}
+			int read = reader != null
+					? readFromReader(retained)
+					: readFromSequence(retained);
+			if (read <= 0) {
+				exhausted = true;
+				return false;
+			}
+			limit += read;
+			return position < limit;
+		}
+
+		private int readFromSequence(int at) {
+			assert sequence != null;
+			int n = Math.min(window.length - at, sequence.length() - limit);
+			for (int i = 0; i < n; i++) {
+				window[at + i] = sequence.charAt(limit + i);
+			}
+			return n;
+		}
+
+		private int readFromReader(int at) {
+			assert reader != null && text != null;
+			try {
+				int n;
+				do {
+					n = reader.read(window, at, window.length - at);
+				} while (n == 0);
+				if (n > 0) text.append(window, at, n);
+				return n;
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
 			}
+		}
+
+		private CharSequence source() {
+			return text != null ? text : sequence;
+		}
+
+		protected final int commit(int token) {
+			countNewlines(commitedPosition, position);
 			this.commitedPosition = position;
 
-			int i = index;
-			tokens = Capacity.ensure(tokens, i, INDEX_STEP);
-			tokens[i++] = token;
-			tokens[i++] = position;
-			index = i;
+			tokens.add(token, position);
+			if (peak > position) {
+				tokens.lookahead(tokens.count() - 1, peak);
+			}
+			index += INDEX_STEP;
 			return token;
 		}
-
-		private static final int[] ZERO_INT_ARRAY = new int[0];
 	}
 
 	private static final int INDEX_STEP = 2;
@@ -24,6 +24,11 @@ abstract class CodepointMatch {
 
 	abstract boolean firstMatches(Codepoint point);
 
+	/** Matches of the first codepoint for each simple (ASCII) character, for lookup tables. */
+	Vect<Boolean> asciiTable() {
+		return Vect.from(Codepoint.SIMPLE_SET).map(this::firstMatches);
+	}
+
 	@Nullable
 	Equal equal() {
 		return this instanceof Equal ? (Equal) this : null;
@@ -32,6 +32,9 @@ abstract class Generator extends AbstractTemplate {
 	@Typedef
 	TermExpansion Term;
 
+	@Typedef
+	TermExpansion.MatchPart MatchPart;
+
 	@Typedef
 	Production Prod;
 
@@ -51,6 +54,7 @@ abstract class Generator extends AbstractTemplate {
 	String name;
 	TermDispatch dispatch;
 	Vect<Production> productions;
+	boolean memoize;
 
 	private ImmutableMap<Identifier, Production> byIdentifier;
 
@@ -61,12 +65,14 @@ abstract class Generator extends AbstractTemplate {
 			String pack,
 			String name,
 			TermDispatch dispatch,
-			Vect<Production> productions) {
+			Vect<Production> productions,
+			boolean memoize) {
 		this.originElement = element;
 		this.pack = pack;
 		this.name = name;
 		this.dispatch = dispatch;
 		this.productions = productions;
+		this.memoize = memoize;
 		this.byIdentifier = Maps.uniqueIndex(productions, Production::id);
 		this.uniqueParts = FluentIterable.from(productions)
 				.transformAndConcat(Production::parts)
@@ -43,7 +43,9 @@ public class Processor extends AbstractGenerator {
 					TermDispatch dispatch = TermDispatch.computeFrom(TermExpansion.collectFrom(unit));
 					Vect<Production> productions = Production.collectFrom(unit);
 
-					invoke(generator().with(t, pack, name, dispatch, productions));
+					boolean memoize = t.getAnnotation(Grammar.class).memoize();
+
+					invoke(generator().with(t, pack, name, dispatch, productions, memoize));
 
 				} catch (ParsingException cannotReadGrammar) {
 					processing().getMessager().printMessage(
@@ -0,0 +1,43 @@
+package io.immutables.grammar;
+
+import com.google.common.base.Strings;
+import io.immutables.grammar.fixture.NestedMemoizedProductions;
+import io.immutables.grammar.fixture.NestedMemoizedTerms;
+import io.immutables.grammar.fixture.NestedProductions;
+import io.immutables.grammar.fixture.NestedTerms;
+
+/**
+ * Compares parsing time of deeply nested input with backtracking over shared prefix alternatives:
+ * plain parser goes exponential with depth, memoizing one stays linear.
+ */
+public class MainMemoized {
+	public static void main(String... args) {
+		for (int depth = 10; depth <= 24; depth += 2) {
+			String input = nested(depth);
+			NestedTerms terms = NestedTerms.from(input);
+			NestedMemoizedTerms memoizedTerms = NestedMemoizedTerms.from(input);
+
+			long t0 = System.nanoTime();
+			NestedProductions.nested(terms);
+			long t1 = System.nanoTime();
+			NestedMemoizedProductions.nested(memoizedTerms);
+			long t2 = System.nanoTime();
+
+			System.out.printf("depth %6d plain %10dus memoized %8dus%n",
+					depth, (t1 - t0) / 1000, (t2 - t1) / 1000);
+		}
+		for (int depth = 1000; depth <= 100_000; depth *= 10) {
+			NestedMemoizedTerms terms = NestedMemoizedTerms.from(nested(depth));
+
+			long t0 = System.nanoTime();
+			NestedMemoizedProductions.nested(terms);
+			long t1 = System.nanoTime();
+
+			System.out.printf("depth %6d memoized %8dus%n", depth, (t1 - t0) / 1000);
+		}
+	}
+
+	private static String nested(int depth) {
+		return Strings.repeat("(", depth) + "x" + Strings.repeat(")", depth);
+	}
+}
@@ -1,10 +1,19 @@
 package io.immutables.grammar;
 
+import com.google.common.base.Strings;
 import io.immutables.Source;
+import io.immutables.grammar.fixture.ExprMemoizedProductions;
+import io.immutables.grammar.fixture.ExprMemoizedTerms;
 import io.immutables.grammar.fixture.ExprProductions;
 import io.immutables.grammar.fixture.ExprTerms;
 import io.immutables.grammar.fixture.ExprTrees.Expression;
+import io.immutables.grammar.fixture.NestedMemoizedProductions;
+import io.immutables.grammar.fixture.NestedMemoizedTerms;
+import io.immutables.grammar.fixture.NestedProductions;
+import io.immutables.grammar.fixture.NestedTerms;
 import io.immutables.grammar.fixture.SomeLexTerms;
+import java.io.IOException;
+import java.io.StringReader;
 import org.junit.Test;
 import static io.immutables.that.Assert.that;
 
@@ -29,6 +38,56 @@ public class TestFixture {
 		return SomeLexTerms.from(input.toCharArray()).show();
 	}
 
+	@Test
+	public void streamingTerms() throws IOException {
+		String input = "ififif if = == = ()(()) affiliate affect if (affiliate) <<<\n".repeat(300);
+		String expected = terms(input);
+
+		that(SomeLexTerms.from(input).show()).is(expected);
+		that(SomeLexTerms.from(new StringReader(input)).show()).is(expected);
+
+		SomeLexTerms whole = SomeLexTerms.from(input.toCharArray());
+		SomeLexTerms streamed = SomeLexTerms.from(new StringReader(input));
+		that(streamed.count()).is(whole.count());
+		that(streamed.lines().count()).is(whole.lines().count());
+		that(streamed.range(streamed.count() * 2 - 2)).equalTo(whole.range(whole.count() * 2 - 2));
+	}
+
+	@Test
+	public void asciiRuns() throws IOException {
+		that(terms("abc12 123 x\u00e9")).is("'iden'abc12 'space'\\s 'num'123 'space'\\s 'iden'x ?\\u00e9");
+
+		// runs of identifier and number characters crossing window refills, one longer than the window
+		StringBuilder b = new StringBuilder();
+		for (int i = 1; i < 500; i++) {
+			b.append("a1".repeat(i)).append(' ').append(i).append(' ');
+		}
+		b.append("z".repeat(20_000)).append(' ').append("9".repeat(20_000));
+		String input = b.toString();
+		SomeLexTerms whole = SomeLexTerms.from(input.toCharArray());
+		that(whole.ok()).is(true);
+		that(whole.count()).is(499 * 4 + 3);
+		that(SomeLexTerms.from(input).show()).is(whole.show());
+		that(SomeLexTerms.from(new StringReader(input)).show()).is(whole.show());
+	}
+
+	@Test
+	public void termPositions() throws IOException {
+		// enough terms to span several storage segments and a term too long to store as char length
+		String input = "if (affiliate) == 12 <<\n".repeat(1000) + "a".repeat(70_000) + " ff ()\n".repeat(100);
+		SomeLexTerms whole = SomeLexTerms.from(input.toCharArray());
+		SomeLexTerms sequence = SomeLexTerms.from(input);
+		SomeLexTerms streamed = SomeLexTerms.from(new StringReader(input));
+		SomeLexTerms arena = SomeLexTerms.from(input, new ParseArena());
+		that(streamed.count()).is(whole.count());
+		for (int i = 0; i < whole.count(); i++) {
+			Source.Range range = whole.range(i * 2);
+			that(sequence.range(i * 2)).equalTo(range);
+			that(streamed.range(i * 2)).equalTo(range);
+			that(arena.range(i * 2)).equalTo(range);
+		}
+	}
+
 	@Test
 	public void exprParseOld() {
 		String string = "1  +[2 ,3,vvgg ] ";
@@ -85,4 +144,181 @@ public class TestFixture {
 		that(range.begin).equalTo(Source.Position.of(14, 1, 15));
 		that(range.end).equalTo(Source.Position.of(17, 1, 18));
 	}
+
+	@Test
+	public void memoizedParse() {
+		for (String input : new String[] {"((a)+)", "(((a)+)+)+", "((a)", "((a) b)", "(a)+)"}) {
+			NestedProductions<?> plain = NestedProductions.nested(NestedTerms.from(input));
+			NestedMemoizedProductions<?> memoized = NestedMemoizedProductions.nested(NestedMemoizedTerms.from(input));
+			that(memoized.ok()).is(plain.ok());
+			that(memoized.show()).is(plain.show());
+			that(memoized.message()).is(plain.message());
+		}
+	}
+
+	@Test
+	public void memoizedExprParse() {
+		String[] inputs = {
+			"1 + [a, 2, [b, c]] - x",
+			"[] - [[]] + [[a], [], 1]",
+			"a + [1, 2",
+			"a + [1,, 2] - b",
+			"x - y + " + "[a, [b, 3], []] + ".repeat(200) + "z",
+		};
+		for (String input : inputs) {
+			ExprProductions<?> plain = ExprProductions.expressions(ExprTerms.from(input));
+			ExprMemoizedProductions<?> memoized = ExprMemoizedProductions.expressions(ExprMemoizedTerms.from(input));
+			that(memoized.ok()).is(plain.ok());
+			that(memoized.show()).is(plain.show());
+			that(memoized.message()).is(plain.message());
+			that(memoized.construct()).hasToString(plain.construct().toString());
+		}
+	}
+
+	@Test
+	public void incrementalEdit() {
+		String input = "1 + [a, 2, [b, c]] - x\n+ [3, 4] + y";
+		ExprTerms terms = ExprTerms.from(input.toCharArray());
+		ExprProductions<?> productions = ExprProductions.expressions(terms);
+
+		String[][] edits = {{"6", "7", "abc"}, {"0", "1", "[]"}, {"21", "21", " - z"}, {"9", "11", ""}, {"3", "4", "["}};
+		for (String[] edit : edits) {
+			int begin = Integer.parseInt(edit[0]);
+			int end = Integer.parseInt(edit[1]);
+			input = input.substring(0, begin) + edit[2] + input.substring(end);
+			terms = terms.edit(begin, end, edit[2]);
+			productions = ExprProductions.expressions(terms, productions);
+
+			ExprTerms expectedTerms = ExprTerms.from(input.toCharArray());
+			ExprProductions<?> expected = ExprProductions.expressions(expectedTerms);
+			that(terms.source().toString()).is(input);
+			that(terms.show()).is(expectedTerms.show());
+			that(productions.ok()).is(expected.ok());
+			that(productions.show()).is(expected.show());
+			that(productions.message()).is(expected.message());
+		}
+	}
+
+	@Test
+	public void incrementalEditBeginMiddleEnd() {
+		String input = "a + [1, b] - [c, [2, 3]] + d\n".repeat(50) + "x";
+		ExprTerms terms = ExprTerms.from(input.toCharArray());
+		ExprProductions<?> productions = ExprProductions.expressions(terms);
+
+		int middle = input.length() / 2;
+		String[][] edits = {
+			{"0", "0", "z + "},
+			{"0", "2", "[y]"},
+			{"" + middle, "" + middle, "q - "},
+			{"" + (middle - 3), "" + (middle + 5), ""},
+			{"-0", "-0", " - 42"},
+			{"-2", "-0", "[w, v]"},
+			{"-1", "-0", ""},
+		};
+		for (String[] edit : edits) {
+			int begin = offset(edit[0], input);
+			int end = offset(edit[1], input);
+			input = input.substring(0, begin) + edit[2] + input.substring(end);
+			terms = terms.edit(begin, end, edit[2]);
+			productions = ExprProductions.expressions(terms, productions);
+
+			ExprTerms expectedTerms = ExprTerms.from(input.toCharArray());
+			ExprProductions<?> expected = ExprProductions.expressions(expectedTerms);
+			that(terms.show()).is(expectedTerms.show());
+			that(productions.ok()).is(expected.ok());
+			that(productions.show()).is(expected.show());
+			that(productions.message()).is(expected.message());
+		}
+	}
+
+	/** Offsets starting with minus are from the end of input. */
+	private static int offset(String offset, String input) {
+		return offset.startsWith("-")
+				? input.length() - Integer.parseInt(offset.substring(1))
+				: Integer.parseInt(offset);
+	}
+
+	@Test
+	public void parseArena() {
+		ParseArena arena = new ParseArena();
+		for (String input : new String[] {"1 + [a, 2]", "x - y + [[]] - 3", "[1,", "a\n+\n" + "b + c - ".repeat(1000) + "d"}) {
+			ExprProductions<?> expected = ExprProductions.expressions(ExprTerms.from(input));
+			ExprTerms terms = ExprTerms.from(input, arena);
+			that(ExprProductions.expressions(terms).show()).is(expected.show());
+			that(ExprProductions.expressions(terms).message()).is(expected.message());
+		}
+	}
+
+	@Test
+	public void parseArenaMemoized() {
+		ParseArena arena = new ParseArena();
+		// larger input first, so smaller ones fill already allocated buffers
+		String[] inputs = {"a\n+\n" + "[b, 1] + c - ".repeat(2000) + "d", "x - [y, [1]]", "[1,", "", "[[]] + 2"};
+		for (String input : inputs) {
+			ExprProductions<?> expected = ExprProductions.expressions(ExprTerms.from(input));
+			ExprMemoizedTerms terms = ExprMemoizedTerms.from(input.toCharArray(), arena);
+			ExprMemoizedProductions<?> productions = ExprMemoizedProductions.expressions(terms);
+			that(productions.ok()).is(expected.ok());
+			that(productions.show()).is(expected.show());
+			that(productions.message()).is(expected.message());
+		}
+	}
+
+	@Test
+	public void lazyElements() {
+		ExprProductions<?> productions = ExprProductions.expressions(ExprTerms.from("1 + [a, 2] - x"));
+		var root = productions.root();
+		that(root.kind()).is(ExprProductions.KIND_EXPRESSIONS);
+		that(root.children().size()).is(5);
+		that(root.children().get(2).text().toString()).is("[a, 2]");
+		that(root.children().get(2).next().get().text().toString()).is("-");
+		that(root.children().get(4).next().isPresent()).is(false);
+
+		var constants = productions.find(ExprProductions.KIND_CONSTANT);
+		that(constants.size()).is(2);
+		that(constants.get(1).construct()).hasToString("Constant{value=2}");
+		that(root.children().get(2).find(ExprProductions.KIND_VARIABLE).size()).is(1);
+		that(root.construct()).hasToString(productions.construct().toString());
+	}
+
+	@Test
+	public void constructEachElement() {
+		String input = "1 + [a, 2, [b, []]] // y";
+		ExprProductions<?> plain = ExprProductions.expression(ExprTerms.from(input));
+		ExprMemoizedProductions<?> memoized = ExprMemoizedProductions.expression(ExprMemoizedTerms.from(input));
+		String constructed = constructEach(plain.root(), new StringBuilder()).toString();
+		that(constructEach(memoized.root(), new StringBuilder()).toString()).is(constructed);
+		that(constructed.split("\n")).isOf(
+				plain.construct().toString(),
+				"Constant{value=1}",
+				"Operator{}",
+				"List{elem=[Variable{name=a}, Constant{value=2}, List{elem=[Variable{name=b}, List{elem=[]}]}]}",
+				"Variable{name=a}",
+				"Constant{value=2}",
+				"List{elem=[Variable{name=b}, List{elem=[]}]}",
+				"Variable{name=b}",
+				"List{elem=[]}");
+	}
+
+	/** Constructs every production element and checks it is the tree node of the same production. */
+	private static StringBuilder constructEach(Productions<?, ?>.Element element, StringBuilder constructed) {
+		if (element.isTerm()) return constructed;
+		TreeProduction<?> node = element.construct();
+		that(node.productionKind()).is((int) element.kind());
+		that(node.termBegin()).is(element.termBegin());
+		that(node.termEnd()).is(element.termEnd());
+		constructed.append(node).append('\n');
+		for (Productions<?, ?>.Element e : element.children()) {
+			constructEach(e, constructed);
+		}
+		return constructed;
+	}
+
+	@Test
+	public void memoizedDeeplyNested() {
+		String input = Strings.repeat("(", 200) + "x" + Strings.repeat(")", 200);
+		NestedMemoizedProductions<?> memoized = NestedMemoizedProductions.nested(NestedMemoizedTerms.from(input));
+		that().is(memoized.ok());
+		that(memoized.length()).is(202);
+	}
 }
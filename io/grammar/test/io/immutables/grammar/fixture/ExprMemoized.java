@@ -0,0 +1,6 @@
+package io.immutables.grammar.fixture;
+
+import io.immutables.grammar.Grammar;
+
+@Grammar(memoize = true)
+enum ExprMemoized {}
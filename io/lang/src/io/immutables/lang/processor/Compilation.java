@@ -0,0 +1,214 @@
+package io.immutables.lang.processor;
+
+import com.google.common.base.Throwables;
+import io.immutables.Nullable;
+import io.immutables.lang.SyntaxProductions;
+import io.immutables.lang.SyntaxTerms;
+import io.immutables.lang.SyntaxTrees;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiled sources kept in memory between compilations. Each source file is kept with its terms,
+ * productions, syntax tree and outcome: unchanged files are not read into terms and parsed again,
+ * changed files are re-tokenized and re-parsed incrementally from the previous result. Sources are
+ * compiled independently, as there's no type checking across modules yet, which would require
+ * sources importing a changed module to be checked again. Compilation is used from the annotation
+ * processors, shared while processor classes stay loaded, and from the {@link CompileServer}, so that
+ * it stays warm across javac invocations.
+ */
+final class Compilation {
+	private static final Compilation shared = new Compilation();
+
+	private final Map<Path, Unit> units = new HashMap<>();
+
+	/** Compilation shared by processors loaded by the same class loader. */
+	static Compilation shared() {
+		return shared;
+	}
+
+	/**
+	 * Compiles sources using {@link CompileServer} if its port is given in processor options and it is
+	 * running, otherwise using the shared compilation.
+	 */
+	static List<Outcome> compileWarm(Map<String, String> options, Path dir, String glob) throws IOException {
+		@Nullable String port = options.get(CompileServer.OPTION);
+		if (port != null) {
+			@Nullable String token = CompileServer.readToken(Integer.parseInt(port));
+			if (token != null) {
+				@Nullable List<Outcome> outcomes = CompileServer.request(Integer.parseInt(port), token, dir, glob);
+				if (outcomes != null) return outcomes;
+			}
+		}
+		return shared.compile(dir, glob);
+	}
+
+	/** Result of compiling a source, all which is needed to report on it. */
+	static final class Outcome {
+		final String filename;
+		final String content;
+		final boolean failed;
+		final String message;
+
+		Outcome(String filename, String content, boolean failed, String message) {
+			this.filename = filename;
+			this.content = content;
+			this.failed = failed;
+			this.message = message;
+		}
+	}
+
+	private static final class Unit {
+		final Path path;
+		final String content;
+		final @Nullable SyntaxTerms terms;
+		final @Nullable SyntaxProductions<SyntaxTrees.Unit> productions;
+		@Nullable SyntaxTrees.Unit tree;
+		Outcome outcome;
+
+		Unit(Path path, String content,
+				@Nullable SyntaxTerms terms,
+				@Nullable SyntaxProductions<SyntaxTrees.Unit> productions) {
+			this.path = path;
+			this.content = content;
+			this.terms = terms;
+			this.productions = productions;
+		}
+
+		String filename() {
+			return path.getFileName().toString();
+		}
+	}
+
+	/**
+	 * Compiles sources in directory matching glob, returns outcomes ordered by filename. Only sources
+	 * which changed since the last compilation are compiled again, sources which are no longer in the
+	 * directory are dropped.
+	 */
+	synchronized List<Outcome> compile(Path dir, String glob) throws IOException {
+		Path absoluteDir = dir.toAbsolutePath();
+		var paths = new ArrayList<Path>();
+		try (DirectoryStream<Path> sources = Files.newDirectoryStream(absoluteDir, glob)) {
+			for (Path path : sources) {
+				paths.add(path);
+			}
+		}
+		paths.sort(Comparator.comparing(p -> p.getFileName().toString()));
+
+		var listed = new HashSet<>(paths);
+		var changed = new ArrayList<Path>(paths);
+		PathMatcher matcher = absoluteDir.getFileSystem().getPathMatcher("glob:" + glob);
+		for (Path path : units.keySet()) {
+			if (absoluteDir.equals(path.getParent())
+					&& matcher.matches(path.getFileName())
+					&& !listed.contains(path)) {
+				changed.add(path); // deleted, will be dropped by refresh
+			}
+		}
+		refresh(changed);
+
+		var outcomes = new ArrayList<Outcome>(paths.size());
+		for (Path path : paths) {
+			outcomes.add(units.get(path).outcome);
+		}
+		return outcomes;
+	}
+
+	/**
+	 * Compiles changed (created or modified) sources again and drops deleted ones. Returns paths of
+	 * sources compiled again.
+	 */
+	synchronized Set<Path> refresh(Collection<Path> changed) throws IOException {
+		var recompiled = new LinkedHashSet<Path>();
+		for (Path p : changed) {
+			Path path = p.toAbsolutePath();
+			@Nullable Unit previous = units.get(path);
+			@Nullable String content = read(path);
+			if (content == null) {
+				units.remove(path);
+				continue;
+			}
+			if (previous != null && previous.content.equals(content)) continue;
+
+			Unit unit = parse(path, content, previous);
+			construct(unit);
+			units.put(path, unit);
+			recompiled.add(path);
+		}
+		return recompiled;
+	}
+
+	private static @Nullable String read(Path path) throws IOException {
+		try {
+			return Files.readString(path, StandardCharsets.UTF_8);
+		} catch (NoSuchFileException ex) {
+			return null;
+		}
+	}
+
+	private static Unit parse(Path path, String content, @Nullable Unit previous) {
+		try {
+			SyntaxTerms terms;
+			SyntaxProductions<SyntaxTrees.Unit> productions;
+			if (previous != null && previous.productions != null && previous.productions.ok()) {
+				terms = edited(previous.terms, previous.content, content);
+				productions = SyntaxProductions.unit(terms, previous.productions);
+			} else {
+				terms = SyntaxTerms.from(content.toCharArray());
+				productions = SyntaxProductions.unit(terms);
+			}
+			Unit unit = new Unit(path, content, terms, productions);
+			if (!productions.ok()) {
+				unit.outcome = new Outcome(unit.filename(), content, true, productions.messageForFile(unit.filename()));
+			}
+			return unit;
+		} catch (Exception ex) {
+			Unit unit = new Unit(path, content, null, null);
+			unit.outcome = new Outcome(unit.filename(), content, true, Throwables.getStackTraceAsString(ex));
+			return unit;
+		}
+	}
+
+	/** Terms of the new content as a single edit of the changed middle part of the previous content. */
+	private static SyntaxTerms edited(SyntaxTerms terms, String previous, String content) {
+		int limit = Math.min(previous.length(), content.length());
+		int prefix = 0;
+		while (prefix < limit && previous.charAt(prefix) == content.charAt(prefix)) {
+			prefix++;
+		}
+		int suffix = 0;
+		while (suffix < limit - prefix
+				&& previous.charAt(previous.length() - 1 - suffix) == content.charAt(content.length() - 1 - suffix)) {
+			suffix++;
+		}
+		return terms.edit(prefix, previous.length() - suffix,
+				content.subSequence(prefix, content.length() - suffix));
+	}
+
+	/** Constructs syntax tree of the parsed source. */
+	private static void construct(Unit unit) {
+		if (unit.productions == null || !unit.productions.ok()) return;
+		try {
+			// this should not fail in theory,
+			// but any exceptions will be caught by the exception handler
+			unit.tree = unit.productions.construct();
+			unit.outcome = new Outcome(unit.filename(), unit.content, false, "");
+		} catch (Exception ex) {
+			unit.outcome = new Outcome(unit.filename(), unit.content, true, Throwables.getStackTraceAsString(ex));
+		}
+	}
+}
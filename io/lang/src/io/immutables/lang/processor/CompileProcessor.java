@@ -1,9 +1,6 @@
 package io.immutables.lang.processor;
 
 import io.immutables.lang.Compile;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.DirectoryStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import javax.annotation.processing.SupportedSourceVersion;
@@ -14,7 +11,11 @@ import javax.tools.Diagnostic;
 import org.immutables.generator.AbstractGenerator;
 import org.immutables.generator.Generator.SupportedAnnotations;
 
-/** Compiler embedded as annotation processor. */
+/**
+ * Compiler embedded as annotation processor. Sources which fail to compile are reported as errors on
+ * the {@link Compile} annotated package, so, unlike when sources were only listed, a broken source now
+ * fails the build.
+ */
 @SupportedSourceVersion(SourceVersion.RELEASE_11)
 @SupportedAnnotations(Compile.class)
 public final class CompileProcessor extends AbstractGenerator {
@@ -28,13 +29,12 @@ public final class CompileProcessor extends AbstractGenerator {
 			Compile compile = compileOriginType.getAnnotation(Compile.class);
 			String glob = compile.value();
 
-			try (DirectoryStream<Path> sources =
-					Files.newDirectoryStream(packageDir(fixturePackage), glob)) {
-
-				for (Path path : sources) {
-					String content = Files.readString(path, StandardCharsets.UTF_8);
-					String filename = path.getFileName().toString();
-					processing().getFiler();
+			try {
+				for (Compilation.Outcome outcome
+						: Compilation.compileWarm(processingEnv.getOptions(), packageDir(fixturePackage), glob)) {
+					if (outcome.failed) {
+						processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, outcome.message, compileOriginType);
+					}
 				}
 			} catch (Exception ex) {
 				throw new RuntimeException(ex);
@@ -0,0 +1,256 @@
+package io.immutables.lang.processor;
+
+import io.immutables.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Long-lived compiler process keeping {@link Compilation} warm. Processors connect to it when
+ * {@code -Alang.compile.server=<port>} option is given and ask to compile sources in a directory
+ * matching glob, falling back to compiling in-process if server is not running or does not answer in
+ * time. Directories asked for are watched for changes, so changed sources are compiled in the
+ * background before the next request comes.
+ * <p>
+ * Usage: {@code CompileServer <port> <root> [<dir> <glob>]...}, only directories under the source root
+ * are served, directories with globs given on the command line are compiled and watched from the start.
+ * <p>
+ * Server listens on loopback only and, as any local process can connect, it writes a random token to
+ * the {@link #tokenFile(int) token file} readable only by the user running it. Protocol is a single
+ * exchange per connection: request is the token, directory and glob, response is the number of outcomes
+ * followed by outcomes, see {@link #writeOutcome}, or {@code -1} if request is rejected. Strings are
+ * written as UTF-8 bytes prefixed by their length.
+ */
+public final class CompileServer {
+	/** Processor option having port of the compile server. */
+	static final String OPTION = "lang.compile.server";
+
+	private static final int CONNECT_TIMEOUT_MILLIS = 1_000;
+	private static final int READ_TIMEOUT_MILLIS = 30_000;
+	private static final int REJECTED = -1;
+
+	private final Compilation compilation = new Compilation();
+	private final Map<Path, PathMatcher> watched = new ConcurrentHashMap<>();
+	private final WatchService watchService;
+	private final Path root;
+	private final byte[] token;
+
+	CompileServer(Path root, String token) throws IOException {
+		this.root = root.toRealPath();
+		this.token = token.getBytes(StandardCharsets.UTF_8);
+		this.watchService = FileSystems.getDefault().newWatchService();
+	}
+
+	public static void main(String... args) throws IOException {
+		if (args.length < 2 || args.length % 2 != 0) {
+			System.err.println("Usage: CompileServer <port> <root> [<dir> <glob>]...");
+			System.exit(1);
+		}
+		int port = Integer.parseInt(args[0]);
+
+		var server = new CompileServer(Paths.get(args[1]), writeToken(port));
+		for (int i = 2; i < args.length; i += 2) {
+			server.compile(Paths.get(args[i]), args[i + 1]);
+		}
+
+		var watcher = new Thread(server::watch, "compile-server-watch");
+		watcher.setDaemon(true);
+		watcher.start();
+
+		try (var socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+			System.err.println("Compile server listening on " + socket.getLocalSocketAddress());
+			while (true) {
+				server.serve(socket.accept());
+			}
+		}
+	}
+
+	private List<Compilation.Outcome> compile(Path dir, String glob) throws IOException {
+		Path absoluteDir = dir.toAbsolutePath();
+		if (watched.putIfAbsent(absoluteDir, absoluteDir.getFileSystem().getPathMatcher("glob:" + glob)) == null) {
+			absoluteDir.register(watchService,
+					StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY,
+					StandardWatchEventKinds.ENTRY_DELETE);
+		}
+		return compilation.compile(absoluteDir, glob);
+	}
+
+	void serve(Socket connection) {
+		try (connection;
+				var in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+				var out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()))) {
+			// single connection is served at a time, so stalled client should not block others for long
+			connection.setSoTimeout(READ_TIMEOUT_MILLIS);
+			byte[] requestToken = readString(in).getBytes(StandardCharsets.UTF_8);
+			Path dir = Paths.get(readString(in));
+			String glob = readString(in);
+
+			if (!MessageDigest.isEqual(token, requestToken)) {
+				System.err.println("Rejected request with wrong token for " + dir);
+				out.writeInt(REJECTED);
+				return;
+			}
+			if (!dir.isAbsolute() || !dir.toRealPath().startsWith(root)) {
+				System.err.println("Rejected request for " + dir + " outside of " + root);
+				out.writeInt(REJECTED);
+				return;
+			}
+
+			List<Compilation.Outcome> outcomes = compile(dir.toRealPath(), glob);
+			out.writeInt(outcomes.size());
+			for (var o : outcomes) {
+				writeOutcome(out, o);
+			}
+		} catch (Exception ex) {
+			// client will fall back to compiling in-process
+			ex.printStackTrace();
+		}
+	}
+
+	private void watch() {
+		try {
+			while (true) {
+				WatchKey key = watchService.take();
+				Path dir = (Path) key.watchable();
+				@Nullable PathMatcher matcher = watched.get(dir);
+				var changed = new ArrayList<Path>();
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.context() instanceof Path) {
+						Path name = (Path) event.context();
+						if (matcher != null && matcher.matches(name)) changed.add(dir.resolve(name));
+					}
+				}
+				key.reset();
+				if (!changed.isEmpty()) {
+					var recompiled = compilation.refresh(changed);
+					System.err.println("Compiled " + recompiled.size() + " changed sources in " + dir);
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException ex) {
+			// stopped watching
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+	}
+
+	/**
+	 * File having token of the server running on port, in the user's home directory, so it is readable
+	 * only by the user running the server.
+	 */
+	static Path tokenFile(int port) {
+		return Paths.get(System.getProperty("user.home"), ".immutables", "lang-compile-server-" + port);
+	}
+
+	private static String writeToken(int port) throws IOException {
+		byte[] bytes = new byte[32];
+		new SecureRandom().nextBytes(bytes);
+		String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+		Path file = tokenFile(port);
+		Files.createDirectories(file.getParent());
+		Files.deleteIfExists(file);
+		if (file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+			Files.createFile(file, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+		} else {
+			Files.createFile(file);
+		}
+		Files.writeString(file, token, StandardCharsets.UTF_8);
+		file.toFile().deleteOnExit();
+		return token;
+	}
+
+	/** Token of the server running on port, or {@code null} if there's no token file. */
+	static @Nullable String readToken(int port) {
+		try {
+			return Files.readString(tokenFile(port), StandardCharsets.UTF_8);
+		} catch (IOException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Outcomes of compiling sources from the server running on port, or {@code null} if server
+	 * cannot be reached, does not answer in time or rejects the request.
+	 */
+	static @Nullable List<Compilation.Outcome> request(int port, String token, Path dir, String glob) {
+		return request(port, token, dir, glob, READ_TIMEOUT_MILLIS);
+	}
+
+	static @Nullable List<Compilation.Outcome> request(int port, String token, Path dir, String glob, int readTimeoutMillis) {
+		try (var connection = new Socket()) {
+			connection.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MILLIS);
+			connection.setSoTimeout(readTimeoutMillis);
+
+			var out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+			var in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+			writeString(out, token);
+			writeString(out, dir.toAbsolutePath().toString());
+			writeString(out, glob);
+			out.flush();
+
+			int count = in.readInt();
+			if (count == REJECTED) return null;
+			var outcomes = new ArrayList<Compilation.Outcome>(count);
+			for (int i = 0; i < count; i++) {
+				outcomes.add(readOutcome(in));
+			}
+			return outcomes;
+		} catch (IOException ex) {
+			return null;
+		}
+	}
+
+	private static void writeOutcome(DataOutputStream out, Compilation.Outcome outcome) throws IOException {
+		writeString(out, outcome.filename);
+		writeString(out, outcome.content);
+		out.writeBoolean(outcome.failed);
+		writeString(out, outcome.message);
+	}
+
+	private static Compilation.Outcome readOutcome(DataInputStream in) throws IOException {
+		String filename = readString(in);
+		String content = readString(in);
+		boolean failed = in.readBoolean();
+		String message = readString(in);
+		return new Compilation.Outcome(filename, content, failed, message);
+	}
+
+	/** Unlike {@link DataOutputStream#writeUTF}, not limited to 64K of encoded content. */
+	private static void writeString(DataOutputStream out, String string) throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
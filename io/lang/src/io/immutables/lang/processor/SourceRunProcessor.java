@@ -1,9 +1,6 @@
 package io.immutables.lang.processor;
 
 import io.immutables.lang.SourceRun;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.DirectoryStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import javax.annotation.processing.SupportedSourceVersion;
@@ -28,19 +25,16 @@ public final class SourceRunProcessor extends AbstractGenerator {
 			SourceRun sourceFixture = fixtureType.getAnnotation(SourceRun.class);
 			String glob = sourceFixture.value();
 
-			try (DirectoryStream<Path> sources =
-					Files.newDirectoryStream(packageDir(fixturePackage), glob)) {
-
+			try {
 				SourceRuns generator = generator();
 				generator.originElement = fixtureType;
 				generator.packageName = fixturePackage.getQualifiedName().toString();
 				generator.fixtureName = fixtureType.getSimpleName().toString();
 
-				for (Path path : sources) {
-					String content = Files.readString(path, StandardCharsets.UTF_8);
-					String filename = path.getFileName().toString();
-					String testname = filename.replace('.', '_');
-					generator.process(testname, filename, content);
+				for (Compilation.Outcome outcome
+						: Compilation.compileWarm(processingEnv.getOptions(), packageDir(fixturePackage), glob)) {
+					String testname = outcome.filename.replace('.', '_');
+					generator.add(testname, outcome);
 				}
 
 				invoke(generator.generate());
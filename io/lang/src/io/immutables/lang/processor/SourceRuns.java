@@ -1,10 +1,6 @@
 package io.immutables.lang.processor;
 
 import com.google.common.base.CaseFormat;
-import com.google.common.base.Throwables;
-import io.immutables.lang.SyntaxProductions;
-import io.immutables.lang.SyntaxTerms;
-import io.immutables.lang.SyntaxTrees.Unit;
 import java.util.ArrayList;
 import java.util.List;
 import javax.lang.model.element.TypeElement;
@@ -35,21 +31,8 @@ abstract class SourceRuns extends AbstractTemplate {
 		}
 	}
 
-	void process(String name, String filename, String content) {
-		try {
-			SyntaxTerms terms = SyntaxTerms.from(content.toCharArray());
-			SyntaxProductions<Unit> productions = SyntaxProductions.unit(terms);
-			if (productions.ok()) {
-				// this should not fail in theory,
-				// but any exceptions will be caught by the exception handler
-				productions.construct();
-				sources.add(new Source(name, content, false, ""));
-			} else {
-				sources.add(new Source(name, content, true, productions.messageForFile(filename)));
-			}
-		} catch (Exception ex) {
-			sources.add(new Source(name, content, true, Throwables.getStackTraceAsString(ex)));
-		}
+	void add(String name, Compilation.Outcome outcome) {
+		sources.add(new Source(name, outcome.content, outcome.failed, outcome.message));
 	}
 
 	abstract Templates.Invokable generate();
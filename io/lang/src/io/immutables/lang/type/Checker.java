@@ -1,88 +1,45 @@
 package io.immutables.lang.type;
 
-import io.immutables.Nullable;
 import java.util.ArrayList;
-import java.util.IdentityHashMap;
-import java.util.List;
 
 final class Checker {
-	enum Resolution { Trivial, Assuming, Impossible, Deferred }
-
 	private final ArrayList<Constraint> effective = new ArrayList<>();
-	private final ArrayList<Constraint> eliminated = new ArrayList<>();
-	private final IdentityHashMap<Type.Variable, Type> resolved = new IdentityHashMap<>();
+	private final Unifier unifier = new Unifier();
+	private boolean failed;
 
 	void introduce(Constraint constraint) {
 		effective.add(constraint);
 	}
 
+	/**
+	 * Solves effective constraints. Substitutions are accumulated by the union-find unifier rather than
+	 * applied to the remaining constraints, so constraints are solved in a single pass.
+	 */
 	void solve() {
-		var c = new SolveControl();
-		if (!c.trySolve(effective)) {
-			failed = true;
-			return;
+		for (var c : effective) {
+			c.trySolve(unifier);
+			if (unifier.failed()) {
+				failed = true;
+				return;
+			}
 		}
-		c.doSubstitutions();
 		effective.clear();
-		effective.addAll(c.nextEffective);
 	}
 
-	private final class SolveControl implements Unify.Solution {
-		final ArrayList<Constraint> nextEffective = new ArrayList<>();
-		@Nullable Resolution resolution;
-
-		boolean trySolve(List<Constraint> constraints) {
-			for (var a : constraints) {
-				resolution = null;
-				a.trySolve(this);
-				if (resolution == Resolution.Impossible) {
-					return false;
-				}
-			}
-			return true; // ??
-		}
-
-		void doSubstitutions() {
-		}
-
-		@Override public void trivial() {
-			if (resolution == null) resolution = Resolution.Trivial;
-		}
-
-		@Override public void recursive(Type.Variable v, Type in) {
-			messages.add("recursive " + v + " :in: " + in);
-			resolution = Resolution.Impossible;
-		}
-
-		@Override public void alias(Type.Variable v, Type.Variable from) {
-			messages.add("alias " + v + " \u27FC " + from);
-			if (resolution != Resolution.Impossible) resolution = Resolution.Assuming;
-
-		}
-
-		@Override public void substitute(Type.Variable v, Type with) {
-			messages.add("when " + v + " \u27FC " + with);
-			if (resolution != Resolution.Impossible) resolution = Resolution.Assuming;
-		}
-
-		@Override public void bottom(Type to, Type from) {
-			messages.add("mismatch " + to + " </= " + from);
-			resolution = Resolution.Impossible;
-		}
+	/** Type with variables replaced as resolved so far. */
+	Type resolved(Type type) {
+		return unifier.resolve(type);
 	}
 
-	private final List<String> messages = new ArrayList<>();
-	private boolean failed;
-
 	static void typecheck(Type expected, Type actual) {
 		var checker = new Checker();
 		checker.introduce(Constraint.equivalence(expected, actual));
 		checker.solve();
-		boolean trivial = true;
+		boolean trivial = !checker.unifier.assumed();
 
 		if (checker.failed) {
 			System.out.println(" \u2718  " + expected + " <!= " + actual);
-			for (var a : checker.messages) {
+			for (var a : checker.unifier.problems()) {
 				System.out.println("    " + a);
 			}
 			System.out.println(" ----------------------------------");
@@ -90,7 +47,7 @@ final class Checker {
 		}
 		System.out.println(" \u2714  " + expected +
 				(trivial ? " = " :" \u225F ") +  actual);
-		for (var a : checker.messages) {
+		for (var a : checker.unifier.problems()) {
 			System.out.println("    " + a);
 		}
 		System.out.println(" ----------------------------------");
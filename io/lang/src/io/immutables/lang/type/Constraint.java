@@ -23,7 +23,9 @@ public interface Constraint {
 			}
 
 			@Override public Constraint transformTypes(Function<? super Type, ? extends Type> substitution) {
-				return equivalence(to.transform(substitution), from.transform(substitution));
+				var t = to.transform(substitution);
+				var f = from.transform(substitution);
+				return t != to || f != from ? equivalence(t, f) : this;
 			}
 
 			@Override public String toString() {
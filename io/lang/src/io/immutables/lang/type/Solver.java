@@ -65,10 +65,9 @@ public class Solver {
 			}
 
 			if (!substitutions.isEmpty() && !active.isEmpty()) {
+				var substitution = Types.substitution(substitutions);
 				for (var a : List.copyOf(active)) {
-					// it will be changed most of the time as of now if structural/applied types used,
-					// but it can be optimized later
-					var transformed = a.transform(Types.substitution(substitutions));
+					var transformed = a.transform(substitution);
 					if (transformed != a) {
 						eliminated.add(a);
 						active.remove(a);
@@ -90,9 +89,9 @@ public class Solver {
 			}
 
 			@Override public Proposition transform(Function<Type, Type> substitution) {
-				return conforms(
-						expected.transform(substitution),
-						actual.transform(substitution));
+				var e = expected.transform(substitution);
+				var a = actual.transform(substitution);
+				return e != expected || a != actual ? conforms(e, a) : this;
 			}
 
 			@Override public void solve(Solution solution) {
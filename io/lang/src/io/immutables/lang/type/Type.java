@@ -2,8 +2,17 @@ package io.immutables.lang.type;
 
 import io.immutables.collect.Vect;
 import java.util.function.Function;
-
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Types composed of other types, {@link Applied} and {@link Product}, are hash-consed: structurally equal
+ * instances are interned to a single canonical one. As components are canonical too, interned types are
+ * equal only if they are the same reference, so comparing them is cheap, and transforming types which
+ * are left unchanged returns the same instance rather than rebuilding them.
+ */
 public abstract class Type {
+	private static final Interner<Type> interned = Interners.newWeakInterner();
 
 	/** Type parameter as declared in signature. */
 	public static final class Parameter extends Type implements Named {
@@ -107,24 +116,28 @@ public abstract class Type {
 	public static final class Applied extends Nominal {
 		private final TypeConstructor constructor;
 		public final Vect<Type> arguments;
+		private final int hashCode;
 
 		private Applied(TypeConstructor constructor, Vect<Type> arguments) {
 			this.constructor = constructor;
 			this.arguments = arguments;
+			this.hashCode = constructor.hashCode() + arguments.hashCode();
 		}
 
 		@Override public String name() {return constructor.name();}
 
 		@Override public TypeConstructor constructor() {return constructor;}
 
+		/** Used for interning only, arguments are already canonical, so compared by reference. */
 		@Override public boolean equals(Object obj) {
 			return this == obj || (obj instanceof Applied
+					&& ((Applied) obj).hashCode == hashCode
 					&& ((Applied) obj).constructor == constructor
-					&& ((Applied) obj).arguments.equals(arguments));
+					&& sameComponents(((Applied) obj).arguments, arguments));
 		}
 
 		@Override public int hashCode() {
-			return constructor.hashCode() + arguments.hashCode();
+			return hashCode;
 		}
 
 		@Override public String toString() {
@@ -132,8 +145,16 @@ public abstract class Type {
 		}
 
 		@Override public Type transform(Function<? super Type, ? extends Type> substitution) {
+			return substitution instanceof Types.Substitution
+					? ((Types.Substitution) substitution).memoized(this, () -> transformArguments(substitution))
+					: transformArguments(substitution);
+		}
+
+		private Type transformArguments(Function<? super Type, ? extends Type> substitution) {
 			var t = substitution.apply(this);
-			return t != this ? t : instance(constructor, arguments.map(substitution));
+			if (t != this) return t;
+			var transformed = transformComponents(arguments, substitution);
+			return transformed != arguments ? instance(constructor, transformed) : this;
 		}
 
 		@Override public <I, O> O accept(Visitor<I, O> v, I in) {
@@ -141,25 +162,29 @@ public abstract class Type {
 		}
 
 		static Applied instance(TypeConstructor constructor, Vect<Type> arguments) {
-			return new Applied(constructor, arguments);
+			return (Applied) interned.intern(new Applied(constructor, arguments));
 		}
 	}
 
 	public static abstract class Structural extends Type {
 		protected final Vect<Type> components;
+		private final int hashCode;
 
 		protected Structural(Vect<Type> components) {
 			this.components = components;
+			this.hashCode = getClass().hashCode() + components.hashCode();
 		}
 
+		/** Used for interning only, components are already canonical, so compared by reference. */
 		@Override public boolean equals(Object o) {
 			if (this == o) return true;
 			if (o.getClass() != getClass()) return false;
-			return ((Structural) o).components.equals(components);
+			return ((Structural) o).hashCode == hashCode
+					&& sameComponents(((Structural) o).components, components);
 		}
 
 		@Override public int hashCode() {
-			return getClass().hashCode() + components.hashCode();
+			return hashCode;
 		}
 	}
 
@@ -173,11 +198,11 @@ public abstract class Type {
 		public static Product of(Vect<Type> components) {
 			if (components.isEmpty()) return Empty;
 			assert components.size() >= 2;
-			return new Product(components);
+			return (Product) interned.intern(new Product(components));
 		}
 
 		public static Product of(Type c0, Type c1, Type... components) {
-			return new Product(Vect.<Type>builder()
+			return of(Vect.<Type>builder()
 					.add(c0).add(c1)
 					.addAll(components)
 					.build());
@@ -188,8 +213,16 @@ public abstract class Type {
 		}
 
 		@Override public Type transform(Function<? super Type, ? extends Type> substitution) {
+			return substitution instanceof Types.Substitution
+					? ((Types.Substitution) substitution).memoized(this, () -> transformProduct(substitution))
+					: transformProduct(substitution);
+		}
+
+		private Type transformProduct(Function<? super Type, ? extends Type> substitution) {
 			var t = substitution.apply(this);
-			return t != this || t == Empty ? t : of(components.map(substitution));
+			if (t != this || t == Empty) return t;
+			var transformed = transformComponents(components, substitution);
+			return transformed != components ? of(transformed) : this;
 		}
 
 		@Override public <I, O> O accept(Visitor<I, O> v, I in) {
@@ -203,10 +236,39 @@ public abstract class Type {
 		return v.otherwise(this, in);
 	}
 
+	/**
+	 * Applies substitution to this type and, if it is not substituted, to its components, recursively.
+	 * Returns the same instance if nothing is substituted.
+	 */
 	public Type transform(Function<? super Type, ? extends Type> substitution) {
 		return substitution.apply(this);
 	}
 
+	/** Transformed components or the same components vector if none changed. */
+	private static Vect<Type> transformComponents(
+			Vect<Type> components,
+			Function<? super Type, ? extends Type> substitution) {
+		Vect.Builder<Type> builder = null;
+		for (int i = 0; i < components.size(); i++) {
+			var c = components.get(i);
+			var t = c.transform(substitution);
+			if (builder == null && t != c) {
+				builder = Vect.builderWithExpectedSize(components.size());
+				for (int j = 0; j < i; j++) builder.add(components.get(j));
+			}
+			if (builder != null) builder.add(t);
+		}
+		return builder != null ? builder.build() : components;
+	}
+
+	private static boolean sameComponents(Vect<Type> a, Vect<Type> b) {
+		if (a.size() != b.size()) return false;
+		for (int i = 0; i < a.size(); i++) {
+			if (a.get(i) != b.get(i)) return false;
+		}
+		return true;
+	}
+
 	public interface Visitor<I, O> {
 		default O parameter(Parameter d, I in) {
 			return otherwise(d, in);
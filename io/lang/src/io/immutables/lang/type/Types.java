@@ -1,29 +1,62 @@
 package io.immutables.lang.type;
 
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 class Types {
 	private Types() {}
 
-	static Function<Type, Type> substitution(Map<? extends Type, ? extends Type> map) {
-		return t -> {
+	static Substitution substitution(Map<? extends Type, ? extends Type> map) {
+		return new Substitution(t -> {
 			var v = map.get(t);
 			return v != null ? v : t;
-		};
+		});
 	}
 
-	static Function<Type, Type> substitution(Type.Parameter parameter, Type replacement) {
+	static Substitution substitution(Type.Parameter parameter, Type replacement) {
 		return replacementByRef(parameter, replacement);
 	}
 
-	static Function<Type, Type> substitution(Type.Variable variable, Type replacement) {
+	static Substitution substitution(Type.Variable variable, Type replacement) {
 		return replacementByRef(variable, replacement);
 	}
 
-	private static Function<Type, Type> replacementByRef(Type r, Type t) {
-		return type -> r == type ? t : type;
+	static Substitution substitution(Function<Type, Type> replacement) {
+		return new Substitution(replacement);
+	}
+
+	private static Substitution replacementByRef(Type r, Type t) {
+		return new Substitution(type -> r == type ? t : type);
+	}
+
+	/**
+	 * Substitution which memoizes results of transforming composite types. Composite types are interned,
+	 * so the same type occurring many times (within the same or different types transformed with this
+	 * substitution) is transformed once. Replacements should not change during the lifetime of substitution.
+	 */
+	static final class Substitution implements Function<Type, Type> {
+		private final Function<Type, Type> replacement;
+		private final Map<Type, Type> transformed = new IdentityHashMap<>();
+
+		private Substitution(Function<Type, Type> replacement) {
+			this.replacement = replacement;
+		}
+
+		@Override public Type apply(Type type) {
+			return replacement.apply(type);
+		}
+
+		Type memoized(Type type, Supplier<Type> transform) {
+			var t = transformed.get(type);
+			if (t == null) {
+				t = transform.get();
+				transformed.put(type, t);
+			}
+			return t;
+		}
 	}
 
 	private static final class Traversal implements Type.Visitor<Void, Void> {
@@ -0,0 +1,190 @@
+package io.immutables.lang.type;
+
+import io.immutables.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Union-find based solution for {@link Unify}. Type variables are kept in disjoint sets, linked by
+ * rank, with paths compressed on lookup, and each set can be bound to a type. Unifying two variables
+ * merges their sets; unifying a variable with a type binds its set or, if already bound, unifies the
+ * bound type with it. Bound types are never rewritten by substitution, variables occurring in them
+ * are looked up in sets when needed, so there's no re-transforming of pending constraints after each
+ * substitution. Occurs check is done on demand, when binding a set, by walking the type through
+ * current bindings.
+ */
+final class Unifier implements Unify.Solution {
+	private final IdentityHashMap<Type.Variable, Integer> indexes = new IdentityHashMap<>();
+	private Type.Variable[] variables = new Type.Variable[16];
+	private int[] parents = new int[16];
+	private byte[] ranks = new byte[16];
+	private Type[] bound = new Type[16];
+	private int[] checked = new int[16];
+	private int checkStamp;
+	private int count;
+
+	private final List<String> problems = new ArrayList<>();
+	private boolean assumed;
+
+	/** Unifies types in the context of what is already known, problems are recorded. */
+	void unify(Type to, Type from) {
+		Unify.unify(this, to, from);
+	}
+
+	boolean failed() {
+		return !problems.isEmpty();
+	}
+
+	List<String> problems() {
+		return problems;
+	}
+
+	/** If any variable was aliased or bound, as opposed to all types being trivially equal. */
+	boolean assumed() {
+		return assumed;
+	}
+
+	/**
+	 * Type with variables replaced by types they are bound to, and unbound variables replaced by
+	 * representatives of their sets.
+	 */
+	Type resolve(Type type) {
+		return type.transform(new Resolution().substitution);
+	}
+
+	/** Bound types can be shared in many places, memoizing substitution transforms each once. */
+	private final class Resolution implements Function<Type, Type> {
+		final Types.Substitution substitution = Types.substitution(this);
+
+		@Override public Type apply(Type type) {
+			if (!(type instanceof Type.Variable)) return type;
+			@Nullable Integer index = indexes.get(type);
+			if (index == null) return type;
+			int root = find(index);
+			@Nullable Type b = bound[root];
+			return b != null ? b.transform(substitution) : variables[root];
+		}
+	}
+
+	@Override public void trivial() {}
+
+	@Override public void recursive(Type.Variable v, Type in) {
+		problems.add("recursive " + v + " :in: " + in);
+	}
+
+	@Override public void alias(Type.Variable v, Type.Variable from) {
+		assumed = true;
+		int r1 = find(indexOf(v));
+		int r2 = find(indexOf(from));
+		if (r1 == r2) return;
+
+		@Nullable Type b1 = bound[r1];
+		@Nullable Type b2 = bound[r2];
+		int root = link(r1, r2);
+		// variables of one set may occur in the type the other set is bound to
+		boolean recursive1 = b1 != null && occurs(root, b1, ++checkStamp);
+		boolean recursive2 = b2 != null && occurs(root, b2, ++checkStamp);
+		if (recursive1 || recursive2) {
+			recursive(v, recursive1 ? b1 : b2);
+			// recursive binding is not kept, resolving it would never end
+			bound[root] = recursive1 ? (recursive2 ? null : b2) : b1;
+			return;
+		}
+		bound[root] = b1 != null ? b1 : b2;
+		if (b1 != null && b2 != null) {
+			// both were bound, now bound types are to be unified
+			Unify.unify(this, b1, b2);
+		}
+	}
+
+	@Override public void substitute(Type.Variable v, Type with) {
+		assumed = true;
+		int root = find(indexOf(v));
+		@Nullable Type b = bound[root];
+		if (b != null) {
+			Unify.unify(this, b, with);
+		} else if (occurs(root, with, ++checkStamp)) {
+			recursive(v, with);
+		} else {
+			bound[root] = with;
+		}
+	}
+
+	@Override public void bottom(Type to, Type from) {
+		problems.add("mismatch " + to + " </= " + from);
+	}
+
+	private int indexOf(Type.Variable v) {
+		@Nullable Integer index = indexes.get(v);
+		if (index != null) return index;
+
+		int i = count++;
+		if (i == variables.length) {
+			int capacity = i << 1;
+			variables = Arrays.copyOf(variables, capacity);
+			parents = Arrays.copyOf(parents, capacity);
+			ranks = Arrays.copyOf(ranks, capacity);
+			bound = Arrays.copyOf(bound, capacity);
+			checked = Arrays.copyOf(checked, capacity);
+		}
+		variables[i] = v;
+		parents[i] = i;
+		indexes.put(v, i);
+		return i;
+	}
+
+	private int find(int i) {
+		int root = i;
+		while (parents[root] != root) {
+			root = parents[root];
+		}
+		// path compression
+		while (parents[i] != root) {
+			int next = parents[i];
+			parents[i] = root;
+			i = next;
+		}
+		return root;
+	}
+
+	/** Links roots by rank, returns the new root. */
+	private int link(int r1, int r2) {
+		if (ranks[r1] < ranks[r2]) {
+			parents[r1] = r2;
+			return r2;
+		}
+		if (ranks[r1] == ranks[r2]) ranks[r1]++;
+		parents[r2] = r1;
+		return r1;
+	}
+
+	/**
+	 * If variable of the set occurs in type, following bound variables. Sets already checked with the same
+	 * stamp are skipped, so that shared bound types are not walked again.
+	 */
+	private boolean occurs(int root, Type type, int stamp) {
+		if (type instanceof Type.Variable) {
+			@Nullable Integer index = indexes.get(type);
+			if (index == null) return false;
+			int r = find(index);
+			if (r == root) return true;
+			if (checked[r] == stamp) return false;
+			checked[r] = stamp;
+			@Nullable Type b = bound[r];
+			return b != null && occurs(root, b, stamp);
+		}
+		if (type instanceof Type.Applied) {
+			for (var a : ((Type.Applied) type).arguments) {
+				if (occurs(root, a, stamp)) return true;
+			}
+		} else if (type instanceof Type.Product) {
+			for (var c : ((Type.Product) type).components()) {
+				if (occurs(root, c, stamp)) return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,182 @@
+package io.immutables.lang.processor;
+
+import io.immutables.Nullable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Test;
+import static io.immutables.that.Assert.that;
+
+public class TestCompilation {
+	private final Path dir = createDir();
+
+	@After
+	public void deleteDir() throws IOException {
+		try (Stream<Path> files = Files.walk(dir)) {
+			files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+		}
+	}
+
+	@Test
+	public void compileOrderedByFilename() throws IOException {
+		write("b.im", "type B()\n");
+		write("a.im", "type A()\n");
+		write("c.txt", "not a source");
+
+		var outcomes = new Compilation().compile(dir, "*.im");
+		that(filenames(outcomes)).isOf("a.im", "b.im");
+		that(outcomes.get(0).failed).is(false);
+		that(outcomes.get(0).content).is("type A()\n");
+	}
+
+	@Test
+	public void failedOutcome() throws IOException {
+		write("a.im", "type A(\n");
+
+		var outcomes = new Compilation().compile(dir, "*.im");
+		that(outcomes.get(0).failed).is(true);
+		that(outcomes.get(0).message).contains("a.im");
+	}
+
+	@Test
+	public void recompileOnlyChanged() throws IOException {
+		var compilation = new Compilation();
+		write("a.im", "type A()\n");
+		write("b.im", "type B()\n");
+		compilation.compile(dir, "*.im");
+
+		that(compilation.refresh(List.of(dir.resolve("a.im"), dir.resolve("b.im")))).isEmpty();
+
+		write("b.im", "type B()\ntype C()\n");
+		that(compilation.refresh(List.of(dir.resolve("a.im"), dir.resolve("b.im"))))
+				.isOf(List.of(dir.resolve("b.im").toAbsolutePath()));
+	}
+
+	@Test
+	public void incrementalReparse() throws IOException {
+		var compilation = new Compilation();
+		write("a.im", "type A()\n\ntype B()\n");
+		that(compilation.compile(dir, "*.im").get(0).failed).is(false);
+
+		write("a.im", "type A()\n\ntype B(\n");
+		that(compilation.compile(dir, "*.im").get(0).failed).is(true);
+
+		write("a.im", "type A()\n\ntype B()\n");
+		that(compilation.compile(dir, "*.im").get(0).failed).is(false);
+
+		write("a.im", "type Z()\ntype A()\n\ntype B()\ntype C()\n");
+		var outcome = compilation.compile(dir, "*.im").get(0);
+		that(outcome.failed).is(false);
+		that(outcome.content).is("type Z()\ntype A()\n\ntype B()\ntype C()\n");
+	}
+
+	@Test
+	public void deletedSourcesDropped() throws IOException {
+		var compilation = new Compilation();
+		write("a.im", "type A()\n");
+		write("b.im", "type B(\n");
+		that(filenames(compilation.compile(dir, "*.im"))).isOf("a.im", "b.im");
+
+		Files.delete(dir.resolve("b.im"));
+		that(filenames(compilation.compile(dir, "*.im"))).isOf("a.im");
+
+		// dropped, so same content is compiled again when file is back
+		write("b.im", "type B(\n");
+		that(compilation.refresh(List.of(dir.resolve("b.im")))).hasSize(1);
+	}
+
+	@Test
+	public void serverProtocol() throws Exception {
+		write("a.im", "type A()\n");
+		write("b.im", "type B(\n");
+
+		var outcomes = serve(new CompileServer(dir, "token"), "token", dir);
+
+		var expected = new Compilation().compile(dir, "*.im");
+		that(outcomes).hasSize(expected.size());
+		for (int i = 0; i < expected.size(); i++) {
+			that(outcomes.get(i).filename).is(expected.get(i).filename);
+			that(outcomes.get(i).content).is(expected.get(i).content);
+			that(outcomes.get(i).failed).is(expected.get(i).failed);
+			that(outcomes.get(i).message).is(expected.get(i).message);
+		}
+	}
+
+	@Test
+	public void serverRejectsWrongToken() throws Exception {
+		write("a.im", "type A()\n");
+
+		that(serve(new CompileServer(dir, "token"), "other", dir) == null).is(true);
+	}
+
+	@Test
+	public void serverRejectsOutsideOfRoot() throws Exception {
+		Path root = Files.createDirectory(dir.resolve("root"));
+		write("a.im", "type A()\n");
+
+		that(serve(new CompileServer(root, "token"), "token", dir) == null).is(true);
+		that(serve(new CompileServer(root, "token"), "token", root.resolve("..")) == null).is(true);
+		that(serve(new CompileServer(root, "token"), "token", root)).isEmpty();
+	}
+
+	@Test
+	public void serverNotRunning() throws Exception {
+		int port;
+		try (var socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			port = socket.getLocalPort();
+		}
+		that(CompileServer.request(port, "token", dir, "*.im") == null).is(true);
+	}
+
+	@Test
+	public void serverNotAnswering() throws Exception {
+		try (var socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			// accepted by backlog, but never served, request gives up after read timeout
+			that(CompileServer.request(socket.getLocalPort(), "token", dir, "*.im", 100) == null).is(true);
+		}
+	}
+
+	private static @Nullable List<Compilation.Outcome> serve(CompileServer server, String token, Path dir)
+			throws Exception {
+		try (var socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			var serving = new Thread(() -> {
+				try {
+					server.serve(socket.accept());
+				} catch (IOException ex) {
+					throw new AssertionError(ex);
+				}
+			});
+			serving.start();
+			var outcomes = CompileServer.request(socket.getLocalPort(), token, dir, "*.im");
+			serving.join();
+			return outcomes;
+		}
+	}
+
+	private void write(String filename, String content) throws IOException {
+		Files.writeString(dir.resolve(filename), content);
+	}
+
+	private static List<String> filenames(List<Compilation.Outcome> outcomes) {
+		var filenames = new ArrayList<String>();
+		for (var o : outcomes) {
+			filenames.add(o.filename);
+		}
+		return filenames;
+	}
+
+	private static Path createDir() {
+		try {
+			return Files.createTempDirectory("compilation");
+		} catch (IOException ex) {
+			throw new AssertionError(ex);
+		}
+	}
+}
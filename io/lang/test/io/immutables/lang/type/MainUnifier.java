@@ -0,0 +1,83 @@
+package io.immutables.lang.type;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import static io.immutables.lang.type.FixtureTypes.*;
+
+/**
+ * Compares solving of generated constraints over thousands of type variables: eager approach, which
+ * applies each substitution to all remaining constraints, goes quadratic, union-find one stays linear.
+ * Constraints alias a long chain of variables, bound at the end, while other variables are bound to
+ * types referring to variables of the chain.
+ */
+public class MainUnifier {
+	public static void main(String... args) {
+		for (int n = 1000; n <= 8000; n *= 2) {
+			var a = new ArrayList<Type.Variable>();
+			var b = new ArrayList<Type.Variable>();
+			var constraints = generate(n, a, b);
+			var expected = Bb_W_Y.instantiate(str, i32);
+
+			long t0 = System.nanoTime();
+			var eager = solveEagerly(constraints);
+			long t1 = System.nanoTime();
+			var unifier = new Unifier();
+			for (var c : constraints) c.trySolve(unifier);
+			var resolved = unifier.resolve(b.get(n / 2));
+			long t2 = System.nanoTime();
+
+			if (unifier.failed() || resolved != expected || eager.get(b.get(n / 2)) != expected) {
+				throw new AssertionError("Wrong solution");
+			}
+			System.out.printf("variables %6d eager %10dus union-find %8dus%n",
+					n * 2, (t1 - t0) / 1000, (t2 - t1) / 1000);
+		}
+	}
+
+	private static List<Constraint> generate(int n, List<Type.Variable> a, List<Type.Variable> b) {
+		for (int i = 0; i < n; i++) {
+			a.add(Type.Variable.allocate("A" + i));
+			b.add(Type.Variable.allocate("B" + i));
+		}
+		var constraints = new ArrayList<Constraint>();
+		for (int i = 0; i < n - 1; i++) {
+			constraints.add(Constraint.equivalence(a.get(i), a.get(i + 1)));
+			constraints.add(Constraint.equivalence(b.get(i), Bb_W_Y.instantiate(a.get(i), i32)));
+		}
+		Collections.shuffle(constraints, new Random(1));
+		constraints.add(Constraint.equivalence(a.get(n - 1), str));
+		return constraints;
+	}
+
+	/** Solves constraints one by one, applying each substitution to the remaining ones. */
+	private static Map<Type.Variable, Type> solveEagerly(List<Constraint> constraints) {
+		var remaining = new ArrayList<>(constraints);
+		var solution = new IdentityHashMap<Type.Variable, Type>();
+		var recorded = new IdentityHashMap<Type.Variable, Type>();
+		var control = new Unify.Solution() {
+			@Override public void trivial() {}
+			@Override public void recursive(Type.Variable v, Type in) {throw new AssertionError();}
+			@Override public void alias(Type.Variable v, Type.Variable from) {recorded.put(v, from);}
+			@Override public void substitute(Type.Variable v, Type with) {recorded.put(v, with);}
+			@Override public void bottom(Type to, Type from) {throw new AssertionError();}
+		};
+		for (int i = 0; i < remaining.size(); i++) {
+			remaining.get(i).trySolve(control);
+			if (recorded.isEmpty()) continue;
+			var substitution = Types.substitution(recorded);
+			for (int j = i + 1; j < remaining.size(); j++) {
+				remaining.set(j, remaining.get(j).transformTypes(substitution));
+			}
+			for (var e : solution.entrySet()) {
+				e.setValue(e.getValue().transform(substitution));
+			}
+			solution.putAll(recorded);
+			recorded.clear();
+		}
+		return solution;
+	}
+}
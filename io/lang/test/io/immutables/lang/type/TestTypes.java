@@ -22,6 +22,27 @@ public class TestTypes {
 		that(after).equalTo(Type.Product.of(A_, B_));
 	}
 
+	@Test
+	public void interned() {
+		that(Aa_T.instantiate(i32)).same(Aa_T.instantiate(i32));
+		that(productOf(Aa_T.instantiate(X), bool)).same(productOf(Aa_T.instantiate(X), bool));
+		that(Aa_T.instantiate(i32)).notSame(Aa_T.instantiate(bool));
+		that(productOf(i32, bool)).notSame(productOf(bool, i32));
+	}
+
+	@Test
+	public void transformNested() {
+		var nested = productOf(Aa_T.instantiate(X), Bb_W_Y.instantiate(X, Aa_T.instantiate(Y)));
+
+		var substitution = Types.substitution(X, i32);
+		var after = nested.transform(substitution);
+		that(after).same(productOf(Aa_T.instantiate(i32), Bb_W_Y.instantiate(i32, Aa_T.instantiate(Y))));
+		// memoized
+		that(nested.transform(substitution)).same(after);
+		// unchanged type is returned as is
+		that(nested.transform(Types.substitution(Z, i32))).same(nested);
+	}
+
 	@Test
 	public void signature() {
 		System.out.println(productOf(bool, i32));
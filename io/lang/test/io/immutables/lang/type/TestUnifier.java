@@ -0,0 +1,67 @@
+package io.immutables.lang.type;
+
+import org.junit.Test;
+import static io.immutables.lang.type.FixtureTypes.*;
+import static io.immutables.that.Assert.that;
+
+public class TestUnifier {
+	@Test
+	public void aliasedThenBound() {
+		var u = new Unifier();
+		u.unify(X, Y);
+		u.unify(Y, Z);
+		u.unify(Aa_T.instantiate(Z), Aa_T.instantiate(i32));
+
+		that(u.failed()).is(false);
+		that(u.resolve(X)).same(i32);
+		that(u.resolve(productOf(X, Aa_T.instantiate(Y)))).same(productOf(i32, Aa_T.instantiate(i32)));
+	}
+
+	@Test
+	public void unboundResolvedToRepresentative() {
+		var u = new Unifier();
+		u.unify(J, K);
+		u.unify(K, L);
+
+		that(u.resolve(J)).same(u.resolve(L));
+		that(u.resolve(Aa_T.instantiate(K))).same(Aa_T.instantiate(u.resolve(J)));
+	}
+
+	@Test
+	public void mismatchOfBound() {
+		var u = new Unifier();
+		u.unify(X, i32);
+		u.unify(Y, bool);
+		u.unify(X, Y);
+
+		that(u.failed()).is(true);
+	}
+
+	@Test
+	public void recursiveThroughBound() {
+		var u = new Unifier();
+		u.unify(X, Aa_T.instantiate(Y));
+		u.unify(Y, productOf(X, str));
+
+		that(u.failed()).is(true);
+	}
+
+	@Test
+	public void recursiveThroughAlias() {
+		var u = new Unifier();
+		u.unify(X, Aa_T.instantiate(Y));
+		u.unify(X, Y);
+
+		that(u.failed()).is(true);
+		that(u.resolve(X)).same(u.resolve(Y));
+	}
+
+	@Test
+	public void checker() {
+		var c = new Checker();
+		c.introduce(Constraint.equivalence(Bb_W_Y.instantiate(J, K), Bb_W_Y.instantiate(K, str)));
+		c.solve();
+
+		that(c.resolved(J)).same(str);
+	}
+}
@@ -1,6 +1,7 @@
 package io.immutables.micro;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.Collection;
 import javax.inject.Inject;
 import javax.inject.Provider;
@@ -133,6 +134,15 @@ public class Databases {
       return Isolate.SCHEMA;
     }
 
+    /**
+     * SQL access method calls taking longer than this are logged as slow queries together with the statements
+     * excerpt and are reported in the {@code sql-slow} facts.
+     */
+    @Value.Default
+    default Duration slowQuery() {
+      return Duration.ofSeconds(1);
+    }
+
     enum Isolate {
       SCHEMA,
       DATABASE
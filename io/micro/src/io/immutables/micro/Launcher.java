@@ -1,17 +1,27 @@
 package io.immutables.micro;
 
+import io.immutables.micro.StartupTimeline.Phase;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 import javax.annotation.Nullable;
 import javax.inject.Provider;
+import com.google.common.base.Throwables;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.inject.Module;
 import com.google.inject.*;
 import com.google.inject.multibindings.Multibinder;
-import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import com.google.inject.spi.Element;
+import com.google.inject.spi.Elements;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -21,6 +31,8 @@ import static java.util.Objects.requireNonNull;
 public final class Launcher {
   private final Stage stage;
   private final List<Module> modules = new ArrayList<>();
+  private final StartupTimeline timeline = new StartupTimeline();
+  private int parallelism = Runtime.getRuntime().availableProcessors();
 
   public Launcher(Stage stage) {
     this.stage = requireNonNull(stage);
@@ -39,6 +51,25 @@ public final class Launcher {
     return add(servicelet(b -> b.install(module)));
   }
 
+  /**
+   * Maximum number of servicelet injectors to create in parallel, {@code 1} to create them one by one. Defaults to
+   * the number of available processors. Servicelet injectors are created in parallel only if all mixins are
+   * {@link MixinModule#concurrent()}, which mixins are not unless they opt in.
+   */
+  public Launcher parallelism(int parallelism) {
+    if (parallelism < 1) throw new IllegalArgumentException("parallelism should be positive, was " + parallelism);
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  /**
+   * Timeline of this launcher's startup, it is also bound in platform injector to be reported and to record service
+   * start times.
+   */
+  public StartupTimeline timeline() {
+    return timeline;
+  }
+
   /**
    * Turns servicelet module into platform module which contributes said servicelet to the set of servicelet.
    */
@@ -55,38 +86,128 @@ public final class Launcher {
 
   public Injector inject() {
     AtomicReference<Set<Injector>> serviceletInjectorsRef = new AtomicReference<>();
-    Injector platformInjector = createPlatformInjector(serviceletInjectorsRef::get);
-    Injector sharedInjector = sharedPlatformBindings(platformInjector);
-    serviceletInjectorsRef.set(createServiceletInjectors(platformInjector, sharedInjector));
-    serviceletCreated(platformInjector, serviceletInjectorsRef.get());
+    Injector platformInjector = timeline.time(Phase.INJECTOR, "platform",
+        () -> createPlatformInjector(serviceletInjectorsRef::get));
+    Injector sharedInjector = timeline.time(Phase.INJECTOR, "shared",
+        () -> sharedPlatformBindings(platformInjector));
+    List<Injector> servicelets = createServiceletInjectors(platformInjector, sharedInjector);
+    serviceletInjectorsRef.set(ImmutableSet.copyOf(servicelets));
+    serviceletCreated(platformInjector, servicelets);
     return platformInjector;
   }
 
-  private void serviceletCreated(Injector platform, Set<Injector> servicelets) {
+  private void serviceletCreated(Injector platform, List<Injector> servicelets) {
     Set<ServiceletLifecycle> platformLifecycles = platform.getInstance(SERVICELET_LIFECYCLE);
-    for (Injector s : servicelets) {
+    for (int i = 0; i < servicelets.size(); i++) {
+      Injector s = servicelets.get(i);
       for (ServiceletLifecycle lifecycle : platformLifecycles) {
-        lifecycle.created(s);
+        timeline.time(Phase.LIFECYCLE, lifecycleName(lifecycle, s, i), () -> lifecycle.created(s));
       }
     }
-    for (Injector s : servicelets) {
+    for (int i = 0; i < servicelets.size(); i++) {
+      Injector s = servicelets.get(i);
       for (ServiceletLifecycle lifecycle : s.getInstance(SERVICELET_LIFECYCLE)) {
-        lifecycle.created(s);
+        timeline.time(Phase.LIFECYCLE, lifecycleName(lifecycle, s, i), () -> lifecycle.created(s));
       }
     }
   }
 
-  private Set<Injector> createServiceletInjectors(Injector platformInjector, Injector sharedInjector) {
+  /**
+   * Creates servicelet injectors in the order of servicelet modules. Configuring servicelet and mixin modules into
+   * elements, and creating injectors from these elements, is done in parallel when there are many servicelets and
+   * mixins allow it. Guice builds bindings of child injectors of the same parent one at a time, but it's after modules
+   * are configured, and eager singletons are still instantiated concurrently.
+   */
+  private List<Injector> createServiceletInjectors(Injector platformInjector, Injector sharedInjector) {
     Set<MixinModule> mixins = platformInjector.getInstance(MIXINS);
-    Set<ServiceletModule> servicelets = platformInjector.getInstance(SERVICELETS);
+    List<ServiceletModule> servicelets = List.copyOf(platformInjector.getInstance(SERVICELETS));
+
+    List<ServiceletInjection> injections = new ArrayList<>(servicelets.size());
+    if (parallelism > 1 && servicelets.size() > 1 && mixins.stream().allMatch(MixinModule::concurrent)) {
+      ExecutorService executor = Executors.newFixedThreadPool(
+          Math.min(parallelism, servicelets.size()),
+          new ThreadFactoryBuilder()
+              .setNameFormat("servicelet-injector-%d")
+              .setDaemon(true)
+              .build());
+      try {
+        List<Future<ServiceletInjection>> futures = new ArrayList<>(servicelets.size());
+        for (int i = 0; i < servicelets.size(); i++) {
+          int index = i;
+          futures.add(executor.submit(() ->
+              createServiceletInjector(sharedInjector, index, servicelets.get(index), mixins)));
+        }
+        for (Future<ServiceletInjection> f : futures) {
+          injections.add(getInjection(f));
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+    } else {
+      for (int i = 0; i < servicelets.size(); i++) {
+        injections.add(createServiceletInjector(sharedInjector, i, servicelets.get(i), mixins));
+      }
+    }
+
+    List<Injector> injectors = new ArrayList<>(injections.size());
+    for (ServiceletInjection i : injections) {
+      String name = serviceletName(i.injector, injectors.size());
+      timeline.record(Phase.MODULE, name, i.configuring, i.creating);
+      timeline.record(Phase.INJECTOR, name, i.creating, i.created);
+      injectors.add(i.injector);
+    }
+    return injectors;
+  }
 
-    return servicelets.stream()
-        .map(module -> sharedInjector.createChildInjector(
-            FluentIterable.<Module>of(this::preconfigure)
-                .append(module)
-                .append(mixins)
-                .append(Launcher::serviceletInjected)))
-        .collect(toImmutableSet());
+  private ServiceletInjection createServiceletInjector(
+      Injector sharedInjector,
+      int index,
+      ServiceletModule module,
+      Set<MixinModule> mixins) {
+    long configuring = System.nanoTime();
+    List<Element> elements = Elements.getElements(stage,
+        FluentIterable.<Module>of(this::preconfigure)
+            .append(binder -> binder.bind(SERVICELET_INDEX).toInstance(index))
+            .append(module)
+            .append(mixins)
+            .append(Launcher::serviceletInjected));
+    long creating = System.nanoTime();
+    Injector injector = sharedInjector.createChildInjector(Elements.getModule(elements));
+    return new ServiceletInjection(injector, configuring, creating, System.nanoTime());
+  }
+
+  private static ServiceletInjection getInjection(Future<ServiceletInjection> future) {
+    try {
+      return Uninterruptibles.getUninterruptibly(future);
+    } catch (ExecutionException ex) {
+      // mostly CreationException, rethrown as if injector was created in this thread
+      Throwables.throwIfUnchecked(ex.getCause());
+      throw new IllegalStateException(ex.getCause());
+    }
+  }
+
+  private static final class ServiceletInjection {
+    final Injector injector;
+    final long configuring;
+    final long creating;
+    final long created;
+
+    ServiceletInjection(Injector injector, long configuring, long creating, long created) {
+      this.injector = injector;
+      this.configuring = configuring;
+      this.creating = creating;
+      this.created = created;
+    }
+  }
+
+  /** Name of the servicelet if it has one, otherwise an index in the order servicelets are created. */
+  private static String serviceletName(Injector servicelet, int index) {
+    @Nullable Binding<Servicelet.Name> binding = servicelet.getExistingBinding(SERVICELET_NAME);
+    return binding != null ? binding.getProvider().get().toString() : "servicelet #" + index;
+  }
+
+  private static String lifecycleName(ServiceletLifecycle lifecycle, Injector servicelet, int index) {
+    return StartupTimeline.nameOf(lifecycle) + " " + serviceletName(servicelet, index);
   }
 
   private Injector createPlatformInjector(Supplier<Set<Injector>> injectors) {
@@ -94,13 +215,27 @@ public final class Launcher {
       serviceletModules(binder);
       mixinModules(binder);
       binder.bind(INJECTORS).toProvider(deferredReference(INJECTORS, injectors));
+      binder.bind(StartupTimeline.class).toInstance(timeline);
     };
     return Guice.createInjector(stage, FluentIterable.<Module>of(this::preconfigure)
         .append(platformPreconfigure)
-        .append(modules)
+        .append(FluentIterable.from(modules).transform(this::timed))
         .append(Launcher::serviceletInjected));
   }
 
+  /** Module which records time it took to configure module into the timeline. */
+  private Module timed(Module module) {
+    return new Module() {
+      @Override public void configure(Binder binder) {
+        timeline.time(Phase.MODULE, StartupTimeline.nameOf(module), () -> binder.install(module));
+      }
+
+      @Override public String toString() {
+        return module.toString();
+      }
+    };
+  }
+
   /**
    * Given injector it gets all of its (own) bindings qualified by {@link Systems.Shared} annotation and makes these
    * bindings available into new injector in unqualified form (unique only by type, so use these mindfully). This new
@@ -165,4 +300,11 @@ public final class Launcher {
   private static final Key<Set<MixinModule>> MIXINS = Keys.setOf(MixinModule.class);
   private static final Key<Set<Injector>> INJECTORS = Keys.setOf(Injector.class, Systems.class);
   private static final Key<Set<ServiceletLifecycle>> SERVICELET_LIFECYCLE = Keys.setOf(ServiceletLifecycle.class);
+  private static final Key<Servicelet.Name> SERVICELET_NAME = Key.get(Servicelet.Name.class);
+
+  /**
+   * Index of servicelet in the order of servicelet modules, bound in each servicelet injector. It doesn't depend on
+   * whether servicelet injectors are created in parallel, so it can be used to derive stable automatic names.
+   */
+  public static final Key<Integer> SERVICELET_INDEX = Key.get(Integer.class, Systems.class);
 }
@@ -1,6 +1,7 @@
 package io.immutables.micro;
 
 import java.net.URI;
+import java.util.List;
 import java.util.Set;
 import com.google.common.net.HostAndPort;
 import org.immutables.data.Data;
@@ -16,6 +17,8 @@ public interface MicroInfo extends Origin.Traced<MicroInfo> {
   HostAndPort listen();
   Set<Servicelet.Name> servicelets();
   Set<DatabaseInfo> databases();
+  /** Timeline of the startup, in the order phases started. */
+  List<StartupTimeline.Timing> startup();
 
   @Value.Immutable
   interface DatabaseInfo {
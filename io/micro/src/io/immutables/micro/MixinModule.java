@@ -1,5 +1,6 @@
 package io.immutables.micro;
 
+import com.google.inject.Binder;
 import com.google.inject.Module;
 import com.google.inject.multibindings.Multibinder;
 import com.google.inject.multibindings.ProvidesIntoSet;
@@ -11,4 +12,32 @@ import com.google.inject.multibindings.ProvidesIntoSet;
  * cannot do multibinding for {@code Set<Module>}. But if we use subinterface {@link MixinModule}, Guice works as
  * expected.
  */
-public interface MixinModule extends Module {}
+public interface MixinModule extends Module {
+  /**
+   * If this mixin can configure binders of different servicelets at the same time. {@link Launcher} creates
+   * servicelet injectors in parallel only if all mixins allow it. Mixins are not assumed to be such, stateless mixins
+   * should override this to return {@code true} or be created using {@link #concurrently(Module)}.
+   */
+  default boolean concurrent() {
+    return false;
+  }
+
+  /**
+   * Turns module into concurrent mixin, module should not keep any mutable state while configuring binder.
+   */
+  static MixinModule concurrently(Module module) {
+    return new MixinModule() {
+      @Override public void configure(Binder binder) {
+        binder.install(module);
+      }
+
+      @Override public boolean concurrent() {
+        return true;
+      }
+
+      @Override public String toString() {
+        return module.toString();
+      }
+    };
+  }
+}
@@ -0,0 +1,86 @@
+package io.immutables.micro;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.annotation.concurrent.ThreadSafe;
+import org.immutables.data.Data;
+import org.immutables.value.Value;
+import static java.util.stream.Collectors.toUnmodifiableList;
+
+/**
+ * Timeline of platform startup: time spent configuring modules, creating injectors, running servicelet lifecycle hooks
+ * and starting services. Timeline is started and recorded by {@link Launcher}, which also binds it in platform
+ * injector, so that service start times can be added and timings be reported, see {@link MicroInfo#startup()}.
+ */
+@Data
+@Value.Enclosing
+@ThreadSafe
+public final class StartupTimeline {
+  private final long startedNanos = System.nanoTime();
+  private final Queue<Timing> timings = new ConcurrentLinkedQueue<>();
+
+  public enum Phase {
+    MODULE, INJECTOR, LIFECYCLE, SERVICE
+  }
+
+  @Value.Immutable
+  public interface Timing {
+    Phase phase();
+    String name();
+    /** Milliseconds since the timeline started to the start of this phase. */
+    long at();
+    /** Milliseconds it took. */
+    long millis();
+
+    class Builder extends ImmutableStartupTimeline.Timing.Builder {}
+  }
+
+  /**
+   * Records timing of a phase by {@link System#nanoTime()} values taken when it started and ended.
+   */
+  public void record(Phase phase, String name, long startNanos, long endNanos) {
+    timings.add(new Timing.Builder()
+        .phase(phase)
+        .name(name)
+        .at(TimeUnit.NANOSECONDS.toMillis(startNanos - startedNanos))
+        .millis(TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos))
+        .build());
+  }
+
+  public <T> T time(Phase phase, String name, Supplier<T> action) {
+    long start = System.nanoTime();
+    try {
+      return action.get();
+    } finally {
+      record(phase, name, start, System.nanoTime());
+    }
+  }
+
+  public void time(Phase phase, String name, Runnable action) {
+    time(phase, name, () -> {
+      action.run();
+      return null;
+    });
+  }
+
+  /** Timings recorded so far, in the order of when phases started. */
+  public List<Timing> timings() {
+    return timings.stream()
+        .sorted(Comparator.comparingLong(Timing::at))
+        .collect(toUnmodifiableList());
+  }
+
+  /**
+   * Readable name for modules, hooks and services by their class, lambdas are named after the class where they are
+   * defined.
+   */
+  public static String nameOf(Object object) {
+    String name = object.getClass().getName();
+    int lambda = name.indexOf("$$Lambda");
+    return lambda > 0 ? name.substring(0, lambda) + "$$Lambda" : name;
+  }
+}
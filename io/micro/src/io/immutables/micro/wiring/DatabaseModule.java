@@ -5,6 +5,7 @@ import io.immutables.micro.*;
 import io.immutables.regres.ConnectionProvider;
 import io.immutables.regres.Regresql;
 import io.immutables.regres.SqlAccessor;
+import io.immutables.regres.SqlMetrics;
 
 import io.immutables.micro.wiring.docker.DockerRunner;
 import java.lang.reflect.Method;
@@ -64,9 +65,15 @@ public final class DatabaseModule implements Module {
         : () -> DriverManager.getConnection(connect, username, password);
   }
 
+  @Provides
+  @Singleton
+  public SqlMetrics sqlMetrics(Databases.Setup setup) {
+    return new SqlMetrics(setup.slowQuery());
+  }
+
   @ProvidesIntoSet
   public MixinModule perServicelet() {
-    return b -> Multibinder.newSetBinder(b, DatabaseScript.class);
+    return MixinModule.concurrently(b -> Multibinder.newSetBinder(b, DatabaseScript.class));
   }
 
   @Provides
@@ -92,13 +99,17 @@ public final class DatabaseModule implements Module {
 
   @Provides
   @Singleton
-  public Databases.RepositoryFactory repositoryFactory(Resolver codecs, DatabaseManager manager) {
+  public Databases.RepositoryFactory repositoryFactory(
+      Resolver codecs,
+      DatabaseManager manager,
+      SqlMetrics metrics) {
     return (servicelet, key) -> {
       return new DatabaseSwitchHandler(
           key.getTypeLiteral().getRawType(),
           manager.connectionInfo.setup(),
           manager.connections,
           codecs,
+          metrics,
           manager.databaseFor(servicelet)).newProxy();
     };
   }
@@ -290,11 +301,12 @@ public final class DatabaseModule implements Module {
         Databases.Setup setup,
         ConnectionProvider connections,
         Resolver codecs,
+        SqlMetrics metrics,
         Supplier<String> databaseSupplier) {
       super(interfaceType);
       this.setup = setup;
       this.connections = connections;
-      this.delegate = Regresql.create(interfaceType, codecs, connections);
+      this.delegate = Regresql.create(interfaceType, codecs, connections, null, metrics);
       this.databaseSupplier = databaseSupplier;
     }
 
@@ -1,6 +1,7 @@
 package io.immutables.micro.wiring;
 
 import io.immutables.micro.*;
+import io.immutables.regres.SqlMetrics;
 
 import java.io.PrintStream;
 import java.util.*;
@@ -51,6 +52,8 @@ public class FactReporting extends AbstractModule {
       @JaxrsRemoteModule.Discovered Set<Jaxrs.EndpointEntry> discoveredEndpoints,
       @Systems Map<Servicelet.Name, DatabaseModule.DatabaseForServicelet> perServiceletDatabases,
       AtomicReference<MicroInfo> microInfo,
+      StartupTimeline timeline,
+      SqlMetrics sqlMetrics,
       Provider<ServiceManager> manager) {
 
     Printer printer = new Printer(System.out);
@@ -62,12 +65,16 @@ public class FactReporting extends AbstractModule {
         .add(facts(printer, "http-requires", resolvedEndpoints::values, this::formatRequires))
         .add(facts(printer, "http-discover", () -> discoveredEndpoints, this::formatRequires))
         .add(facts(printer, "database", perServiceletDatabases::values, this::formatDatabase))
+        .add(facts(printer, "sql-slow", sqlMetrics::recentSlowQueries))
         .add(facts(printer, "services", () -> manager.get().servicesByState().entries(), this::formatServices))
         .add(facts(printer, "startup", () -> manager.get().isHealthy()
             ? (Optional.ofNullable(microInfo.get())
             .map(info -> ImmutableMap.of("at", info.at(), "pid", info.pid(), "time", stopwatch))
             .orElseGet(() -> ImmutableMap.of("time", stopwatch)).entrySet())
             : ImmutableSet.of(), this::formatEntries))
+        .add(facts(printer, "startup-timeline", () -> manager.get().isHealthy()
+            ? timeline.timings()
+            : ImmutableList.of(), this::formatTiming))
         .build();
   }
 
@@ -81,6 +88,17 @@ public class FactReporting extends AbstractModule {
     };
   }
 
+  @ProvidesIntoSet
+  public ServiceManager.Listener sqlStatsOnStop(SqlMetrics sqlMetrics) {
+    // stats change with every query, so are not printed as facts, but logged once stopped
+    return new ServiceManager.Listener() {
+      @Override
+      public void stopped() {
+        sqlMetrics.logSnapshot();
+      }
+    };
+  }
+
   @ProvidesIntoSet
   public Service job(List<Facts> facts) {
     return new AbstractScheduledService() {
@@ -226,14 +244,15 @@ public class FactReporting extends AbstractModule {
     return String.format("%s: %s", entry.getKey(), entry.getValue());
   }
 
+  private String formatTiming(StartupTimeline.Timing timing) {
+    return String.format("+%d ms %s %s (%d ms)", timing.at(), timing.phase(), timing.name(), timing.millis());
+  }
+
   // we use entries so that we react (fact change) on the state change
   private String formatServices(Map.Entry<State, Service> byState) {
     var state = byState.getKey();
     var service = byState.getValue();
-    String name = service.toString();
-    if (name.contains("[")) {
-      name = name.substring(0, name.indexOf('[')).trim();
-    }
+    String name = ServiceManagerModule.serviceName(service);
     return "[" + Strings.padEnd(state.name() + "]", 11, ' ') + " " + name;
   }
 
@@ -49,7 +49,7 @@ public final class JaxrsModule implements Module {
 
   @ProvidesIntoSet
   public MixinModule registeredDeclaration() {
-    return Jaxrs::registered;
+    return MixinModule.concurrently(Jaxrs::registered);
   }
 
   /**
@@ -49,8 +49,8 @@ public final class JsonModule implements Module {
   }
 
   @ProvidesIntoSet
-  public CodecConfigurer jsonbString() {
-    return f -> f.add(new OkJson.JsonStringFactory(), Jsonbs.of(), 0);
+  public CodecConfigurer jsonb() {
+    return f -> f.add(Jsonbs.codecs(), Jsonbs.of(), 0);
   }
 
   @ProvidesIntoSet
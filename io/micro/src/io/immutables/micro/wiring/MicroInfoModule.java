@@ -99,7 +99,8 @@ public class MicroInfoModule extends AbstractModule {
       @Jaxrs.Registered HostAndPort listen,
       @Systems ConcurrentMap<Servicelet.Name, Injector> servicelets,
       DatabaseModule.ConnectionInfo connectionInfo,
-      @Systems Map<Servicelet.Name, DatabaseModule.DatabaseForServicelet> databases) {
+      @Systems Map<Servicelet.Name, DatabaseModule.DatabaseForServicelet> databases,
+      StartupTimeline timeline) {
     return new ServiceManager.Listener() {
       @Override public void healthy() {
         if (setup.expose()) {
@@ -112,6 +113,7 @@ public class MicroInfoModule extends AbstractModule {
               .origin(setup.origin())
               .servicelets(servicelets.keySet())
               .databases(databases())
+              .startup(timeline.timings())
               .build());
         }
       }
@@ -2,6 +2,7 @@ package io.immutables.micro.wiring;
 
 import io.immutables.micro.Keys;
 import io.immutables.micro.MixinModule;
+import io.immutables.micro.StartupTimeline;
 import io.immutables.micro.Systems;
 import java.util.ArrayList;
 import java.util.List;
@@ -37,19 +38,21 @@ public final class ServiceManagerModule implements Module {
    */
   @ProvidesIntoSet
   public MixinModule managedServicesInServicelet() {
-    return this::configure;
+    return MixinModule.concurrently(this::configure);
   }
 
   @Provides
   @Singleton
   public ServiceManager manager(
       Injector platform,
-      @Systems Provider<Set<Injector>> servicelets) {
+      @Systems Provider<Set<Injector>> servicelets,
+      StartupTimeline timeline) {
     List<Service> allServices = new ArrayList<>(platform.getInstance(SERVICES));
     for (Injector m : servicelets.get()) {
       allServices.addAll(m.getInstance(SERVICES));
     }
     allServices.removeIf(s -> s == NOOP);
+    allServices.forEach(s -> s.addListener(startupTiming(s, timeline), MoreExecutors.directExecutor()));
 
     ServiceManager manager = new ServiceManager(allServices);
 
@@ -62,6 +65,28 @@ public final class ServiceManagerModule implements Module {
     return manager;
   }
 
+  /** Records time from when service is starting until it is running into the startup timeline. */
+  private static Service.Listener startupTiming(Service service, StartupTimeline timeline) {
+    return new Service.Listener() {
+      long starting;
+
+      @Override public void starting() {
+        starting = System.nanoTime();
+      }
+
+      @Override public void running() {
+        timeline.record(StartupTimeline.Phase.SERVICE, serviceName(service), starting, System.nanoTime());
+      }
+    };
+  }
+
+  /** Service names without state, which is usually appended in brackets by Guava services. */
+  static String serviceName(Service service) {
+    String name = service.toString();
+    int bracket = name.indexOf('[');
+    return bracket > 0 ? name.substring(0, bracket).trim() : name;
+  }
+
   public static Multibinder<Service> managedServices(Binder binder) {
     return Multibinder.newSetBinder(binder, Service.class);
   }
@@ -7,7 +7,6 @@ import io.immutables.micro.Systems;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.atomic.AtomicInteger;
 import javax.inject.Singleton;
 import com.google.inject.*;
 import com.google.inject.multibindings.OptionalBinder;
@@ -21,20 +20,19 @@ import com.google.inject.multibindings.ProvidesIntoSet;
 public class ServiceletNameModule extends AbstractModule {
   private static final Key<Servicelet.Name> NAME = Key.get(Servicelet.Name.class);
 
-  private final AtomicInteger autoIdCounter = new AtomicInteger();
-
+  /**
+   * Servicelets without explicit name are named automatically by their index, so names do not depend on the order in
+   * which servicelet injectors are created and their names are instantiated.
+   */
   @ProvidesIntoSet
   public MixinModule defaultName() {
-    return binder -> {
+    return MixinModule.concurrently(binder -> {
+      Provider<Integer> index = binder.getProvider(Launcher.SERVICELET_INDEX);
       OptionalBinder.newOptionalBinder(binder, NAME)
           .setDefault()
-          .toProvider(this::automaticName)
+          .toProvider(() -> Servicelet.name("-servicelet-" + index.get()))
           .in(Scopes.SINGLETON);
-    };
-  }
-
-  private Servicelet.Name automaticName() {
-    return Servicelet.name("-servicelet-" + autoIdCounter.getAndIncrement());
+    });
   }
 
   /**
@@ -2,10 +2,12 @@ package io.immutables.micro.wiring;
 
 import io.immutables.codec.OkJson;
 import io.immutables.micro.Launcher;
+import io.immutables.regres.Jsonbs;
 import io.immutables.that.Assert;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import com.google.common.reflect.TypeToken;
 import org.junit.Test;
 import static io.immutables.that.Assert.that;
 
@@ -24,6 +26,13 @@ public class JsonTest {
     Assert.that(okJson.fromJson(okJson.toJson(VAL, SampleEndpoint.Val.class), SampleEndpoint.Val.class)).equalTo(VAL);
   }
 
+  @Test
+  public void jsonbQualifiedCodecParsesStreaming() throws Exception {
+    var codec = okJson.get(new TypeToken<Map<String, Integer>>() {}, Jsonbs.of());
+    that(codec.toString()).startsWith("jsonb for");
+    that(okJson.fromJson(okJson.toJson(Map.of("a", 1), codec), codec)).equalTo(Map.of("a", 1));
+  }
+
   @Test
   public void dynamicObjectAdapterForStruct() {
     var codec = okJson.get(Object.class);
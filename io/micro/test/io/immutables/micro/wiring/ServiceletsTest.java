@@ -3,19 +3,27 @@ package io.immutables.micro.wiring;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.common.util.concurrent.Service;
 import com.google.common.util.concurrent.ServiceManager;
+import com.google.inject.AbstractModule;
 import com.google.inject.Binder;
 import com.google.inject.Injector;
 import com.google.inject.Key;
+import com.google.inject.Provides;
 import com.google.inject.Scopes;
+import com.google.inject.Singleton;
 import com.google.inject.Stage;
 import com.google.inject.binder.LinkedBindingBuilder;
 import com.google.inject.multibindings.Multibinder;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.junit.Test;
 import io.immutables.micro.Keys;
 import io.immutables.micro.Launcher;
+import io.immutables.micro.MixinModule;
+import io.immutables.micro.Servicelet;
+import io.immutables.micro.StartupTimeline;
 import io.immutables.micro.Systems;
 import static io.immutables.that.Assert.that;
 
@@ -95,6 +103,112 @@ public class ServiceletsTest {
     that(manager.servicesByState().keySet()).isOf(Service.State.TERMINATED);
   }
 
+  @Test
+  public void parallelServiceletInjectorsInOrder() {
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    Launcher launcher = new Launcher()
+        .parallelism(4)
+        .add(new ServiceletNameModule())
+        .add(Launcher.mixin(MixinModule.concurrently(b -> threads.add(Thread.currentThread().getName()))));
+
+    List<String> names = List.of("a", "b", "c", "d", "e");
+    for (String n : names) {
+      launcher.addServicelet(b -> ServiceletNameModule.assignName(b, Servicelet.name(n)));
+    }
+    Injector injector = launcher.inject();
+
+    List<String> created = new ArrayList<>();
+    for (Injector s : injector.getInstance(SERVICELETS)) {
+      created.add(ServiceletNameModule.getName(s).toString());
+    }
+    that(created).isOf(names);
+    // mixins configured in servicelet injector threads
+    that(threads.contains(Thread.currentThread().getName())).is(false);
+
+    List<String> injectors = new ArrayList<>();
+    for (StartupTimeline.Timing t : launcher.timeline().timings()) {
+      if (t.phase() == StartupTimeline.Phase.INJECTOR) injectors.add(t.name());
+    }
+    that(injectors).hasOnly("platform", "shared", "a", "b", "c", "d", "e");
+  }
+
+  @Test
+  public void sequentialServiceletInjectorsForNonConcurrentMixin() {
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    Injector injector = new Launcher()
+        .parallelism(4)
+        .add(Launcher.mixin(b -> threads.add(Thread.currentThread().getName())))
+        .addServicelet(b -> {})
+        .addServicelet(b -> {})
+        .inject();
+
+    that(injector.getInstance(SERVICELETS)).hasSize(2);
+    that(threads).isOf(Thread.currentThread().getName());
+  }
+
+  @Test
+  public void concurrentMixinInstallsProvidesMethods() {
+    Injector injector = new Launcher()
+        .parallelism(4)
+        .add(Launcher.mixin(MixinModule.concurrently(new AbstractModule() {
+          @Provides
+          @Singleton
+          SampleObject sample() {
+            return new SampleObject();
+          }
+        })))
+        .addServicelet(b -> {})
+        .addServicelet(b -> {})
+        .inject();
+
+    List<Injector> servicelets = new ArrayList<>(injector.getInstance(SERVICELETS));
+    that(servicelets).hasSize(2);
+    that(servicelets.get(0).getInstance(SampleObject.class))
+        .same(servicelets.get(0).getInstance(SampleObject.class));
+    that(servicelets.get(0).getInstance(SampleObject.class))
+        .notSame(servicelets.get(1).getInstance(SampleObject.class));
+  }
+
+  @Test
+  public void automaticNamesByServiceletIndex() {
+    Launcher launcher = new Launcher()
+        .parallelism(4)
+        .add(new ServiceletNameModule());
+
+    for (int i = 0; i < 5; i++) {
+      launcher.addServicelet(b -> {});
+    }
+    Injector injector = launcher.inject();
+
+    List<String> names = new ArrayList<>();
+    for (Injector s : injector.getInstance(SERVICELETS)) {
+      names.add(ServiceletNameModule.getName(s).toString());
+    }
+    that(names).isOf("-servicelet-0", "-servicelet-1", "-servicelet-2", "-servicelet-3", "-servicelet-4");
+  }
+
+  @Test
+  public void startupTimeline() {
+    Launcher launcher = new Launcher()
+        .add(new ServiceManagerModule())
+        .add(b -> addService(b).toProvider(SampleService::new))
+        .addServicelet(b -> {
+          addService(b).toProvider(SampleService::new);
+          Launcher.serviceletInjected(b).addBinding().toInstance(servicelet -> {});
+        });
+    Injector injector = launcher.inject();
+
+    ServiceManager manager = injector.getInstance(ServiceManager.class);
+    manager.startAsync().awaitHealthy();
+    manager.stopAsync().awaitStopped();
+
+    Set<StartupTimeline.Phase> phases = new HashSet<>();
+    for (StartupTimeline.Timing t : injector.getInstance(StartupTimeline.class).timings()) {
+      phases.add(t.phase());
+    }
+    that(phases).hasOnly(StartupTimeline.Phase.values());
+  }
+
   private static LinkedBindingBuilder<Service> addService(Binder b) {
     return Multibinder.newSetBinder(b, Service.class).addBinding();
   }
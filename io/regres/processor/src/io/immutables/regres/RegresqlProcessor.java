@@ -0,0 +1,359 @@
+package io.immutables.regres;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multiset;
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.sun.source.util.Trees;
+import io.immutables.Nullable;
+import io.immutables.Source;
+import io.immutables.collect.Vect;
+import io.immutables.regres.SqlAccessor.Batch;
+import io.immutables.regres.SqlAccessor.Column;
+import io.immutables.regres.SqlAccessor.Named;
+import io.immutables.regres.SqlAccessor.Single;
+import io.immutables.regres.SqlAccessor.Spread;
+import io.immutables.regres.SqlAccessor.UpdateCount;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates implementations of SQL access interfaces annotated with {@link SqlAccessor.Generate}, which
+ * are then picked up by {@link Regresql#create}. The {@code .sql} source is parsed here, at compile time,
+ * the same way it would be parsed at runtime: prepared statements, placeholders and source ranges of
+ * each method become constants of the generated class. Mismatches between SQL and interface methods,
+ * placeholders having no corresponding parameters, and misused annotations are reported as compilation
+ * errors, in which case nothing is generated.
+ * <p>
+ * The {@code .sql} file is looked up next to the source file of the interface, then in directories
+ * listed in {@code -Aresources.root} option (separated by path separator), then on source path and
+ * class path.
+ */
+@SupportedAnnotationTypes("io.immutables.regres.SqlAccessor.Generate")
+@SupportedOptions(RegresqlProcessor.RESOURCES_ROOT)
+public final class RegresqlProcessor extends AbstractProcessor {
+	static final String RESOURCES_ROOT = "resources.root";
+
+	private static final ClassName CALLS = ClassName.get(Regresql.Calls.class);
+	private static final ClassName SETUP = ClassName.get(Regresql.Setup.class);
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+		for (TypeElement type : ElementFilter.typesIn(round.getElementsAnnotatedWith(SqlAccessor.Generate.class))) {
+			new Accessor(type).process();
+		}
+		return false;
+	}
+
+	private final class Accessor {
+		final TypeElement type;
+		final PackageElement packageElement;
+		final String nestedName;
+		final List<ExecutableElement> methods = new ArrayList<>();
+		@Nullable ExecutableElement connectionHandle;
+		boolean failed;
+
+		Accessor(TypeElement type) {
+			this.type = type;
+			this.packageElement = processingEnv.getElementUtils().getPackageOf(type);
+			String qualifiedName = type.getQualifiedName().toString();
+			this.nestedName = packageElement.isUnnamed()
+					? qualifiedName
+					: qualifiedName.substring(packageElement.getQualifiedName().length() + 1);
+		}
+
+		void process() {
+			if (type.getKind() != ElementKind.INTERFACE) {
+				error(type, "@SqlAccessor.Generate can only be used on interfaces");
+				return;
+			}
+			if (!type.getTypeParameters().isEmpty()) {
+				error(type, "@SqlAccessor.Generate does not support interfaces with type parameters");
+				return;
+			}
+			collectMethods();
+
+			@Nullable Regresql.SqlSource source = loadSqlSource();
+			if (source == null) {
+				error(type, "Cannot find " + nestedName + ".sql for " + type.getQualifiedName()
+						+ ", should be next to the source file or in one of -A" + RESOURCES_ROOT + " directories");
+				return;
+			}
+
+			Vect<Regresql.MethodSnippet> snippets = Regresql.parse(source.content(), source.lines());
+			Set<String> names = methods.stream()
+					.map(m -> m.getSimpleName().toString())
+					.collect(Collectors.toCollection(LinkedHashSet::new));
+
+			for (Source.Problem problem : Regresql.snippetProblems(source, snippets, names)) {
+				error(type, problem.toString());
+			}
+			if (failed) return;
+
+			List<Regresql.MethodSnippet> ordered = new ArrayList<>();
+			for (ExecutableElement m : methods) {
+				Regresql.MethodSnippet snippet = snippets.stream()
+						.filter(s -> s.name().contentEquals(m.getSimpleName()))
+						.findFirst()
+						.orElseThrow(AssertionError::new);
+				checkMethod(m, snippet);
+				ordered.add(snippet);
+			}
+			if (failed) return;
+
+			write(ordered);
+		}
+
+		void collectMethods() {
+			Multiset<String> names = HashMultiset.create();
+			for (ExecutableElement m : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+				if (!m.getModifiers().contains(Modifier.ABSTRACT)
+						|| m.getEnclosingElement().getKind() != ElementKind.INTERFACE) continue;
+
+				if (isConnectionHandle(m)) {
+					connectionHandle = m;
+					continue;
+				}
+				methods.add(m);
+				names.add(m.getSimpleName().toString());
+			}
+			for (ExecutableElement m : methods) {
+				if (names.count(m.getSimpleName().toString()) > 1) {
+					error(m, "Method overloads are not supported for SQL access methods: " + m.getSimpleName());
+				}
+			}
+		}
+
+		boolean isConnectionHandle(ExecutableElement m) {
+			return m.getSimpleName().contentEquals("connectionHandle")
+					&& m.getParameters().isEmpty()
+					&& ((TypeElement) m.getEnclosingElement()).getQualifiedName()
+							.contentEquals(SqlAccessor.class.getCanonicalName());
+		}
+
+		/** Checks what can be checked without codecs, mirroring checks done at runtime. */
+		void checkMethod(ExecutableElement method, Regresql.MethodSnippet snippet) {
+			boolean updateCount = method.getAnnotation(UpdateCount.class) != null;
+			if (updateCount && (method.getAnnotation(Column.class) != null || method.getAnnotation(Single.class) != null)) {
+				error(method, "@UpdateCount and (@Column extraction or @Single result) cannot be used together");
+			}
+
+			Set<String> named = new HashSet<>();
+			boolean spread = false;
+			int batchCount = 0;
+			for (VariableElement p : method.getParameters()) {
+				@Nullable Named n = p.getAnnotation(Named.class);
+				boolean s = p.getAnnotation(Spread.class) != null;
+				if (n == null && !s) {
+					error(p, "Parameter must have @Named annotation (unless @Spread)");
+				}
+				if (n != null) named.add(n.value());
+				spread |= s;
+				if (p.getAnnotation(Batch.class) != null) batchCount++;
+			}
+			if (batchCount > 1) {
+				error(method, "@Batch should not be present on more than one parameter");
+			}
+			if (batchCount > 0 && !updateCount && method.getReturnType().getKind() != TypeKind.VOID) {
+				error(method, "@Batch requires returning @UpdateCount or void return type");
+			}
+			if (!spread) {
+				// with spread parameters, placeholders are matched to attributes only at runtime
+				for (String placeholder : ImmutableSet.copyOf(snippet.placeholders())) {
+					if (!named.contains(placeholder)) {
+						error(method, "Placeholder :" + placeholder + " has no corresponding @Named parameter");
+					}
+				}
+			}
+		}
+
+		@Nullable Regresql.SqlSource loadSqlSource() {
+			String filename = nestedName + ".sql";
+			String packagePath = packageElement.isUnnamed()
+					? ""
+					: packageElement.getQualifiedName().toString().replace('.', '/');
+
+			var candidates = new ArrayList<Path>();
+			try {
+				URI sourceUri = Trees.instance(processingEnv).getPath(type).getCompilationUnit().getSourceFile().toUri();
+				if ("file".equals(sourceUri.getScheme())) {
+					candidates.add(Paths.get(sourceUri).resolveSibling(filename));
+				}
+			} catch (IllegalArgumentException | NullPointerException notJavacOrNoSource) {
+				// will look elsewhere
+			}
+			@Nullable String roots = processingEnv.getOptions().get(RESOURCES_ROOT);
+			if (roots != null) {
+				for (String root : roots.split(File.pathSeparator)) {
+					candidates.add(Paths.get(root, packagePath, filename));
+				}
+			}
+
+			for (Path path : candidates) {
+				if (Files.isRegularFile(path)) {
+					try {
+						return sqlSource(packagePath, filename, Files.readString(path, StandardCharsets.UTF_8));
+					} catch (IOException ex) {
+						error(type, "Cannot read " + path + ": " + ex);
+						return null;
+					}
+				}
+			}
+
+			String packageName = packageElement.getQualifiedName().toString();
+			for (StandardLocation location : new StandardLocation[] {StandardLocation.SOURCE_PATH, StandardLocation.CLASS_PATH}) {
+				try {
+					FileObject resource = processingEnv.getFiler().getResource(location, packageName, filename);
+					return sqlSource(packagePath, filename, resource.getCharContent(true).toString());
+				} catch (IOException | IllegalArgumentException notFound) {
+					// try next location
+				}
+			}
+			return null;
+		}
+
+		Regresql.SqlSource sqlSource(String packagePath, String filename, String content) {
+			// the same filename which will be used at runtime
+			return new Regresql.SqlSource.Builder()
+					.filename("/" + (packagePath.isEmpty() ? "" : packagePath + "/") + filename)
+					.content(content)
+					.lines(Source.Lines.from(content))
+					.build();
+		}
+
+		void write(List<Regresql.MethodSnippet> snippets) {
+			DeclaredType declaredType = (DeclaredType) type.asType();
+			String simpleName = Regresql.GENERATED_PREFIX + nestedName.replace('.', '_');
+
+			CodeBlock.Builder names = CodeBlock.builder();
+			CodeBlock.Builder statements = CodeBlock.builder();
+			CodeBlock.Builder placeholders = CodeBlock.builder();
+			CodeBlock.Builder ranges = CodeBlock.builder();
+			for (int i = 0; i < snippets.size(); i++) {
+				Regresql.MethodSnippet s = snippets.get(i);
+				String separator = i > 0 ? ",\n" : "";
+				names.add(separator + "$S", s.name());
+				statements.add(separator + "$S", s.preparedStatements());
+				placeholders.add(separator + "{$L}", s.placeholders().stream()
+						.map(p -> CodeBlock.of("$S", p))
+						.collect(CodeBlock.joining(", ")));
+				ranges.add(separator + "$L, $L, $L, $L",
+						s.identifierRange().begin.position,
+						s.identifierRange().end.position,
+						s.statementsRange().begin.position,
+						s.statementsRange().end.position);
+			}
+
+			TypeSpec.Builder builder = TypeSpec.classBuilder(simpleName)
+					.addOriginatingElement(type)
+					.addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+					.addSuperinterface(TypeName.get(declaredType))
+					.addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
+							.addMember("value", "$S", "unchecked")
+							.build())
+					.addField(constant(String[].class, "NAMES", names.build()))
+					.addField(constant(String[].class, "STATEMENTS", statements.build()))
+					.addField(constant(String[][].class, "PLACEHOLDERS", placeholders.build()))
+					.addField(constant(int[].class, "RANGES", ranges.build()))
+					.addField(CALLS, "calls", Modifier.PRIVATE, Modifier.FINAL)
+					.addMethod(MethodSpec.constructorBuilder()
+							.addModifiers(Modifier.PUBLIC)
+							.addParameter(SETUP, "setup")
+							.addStatement("this.calls = setup.calls(NAMES, STATEMENTS, PLACEHOLDERS, RANGES)")
+							.build());
+
+			if (processingEnv.getElementUtils().getTypeElement("javax.annotation.processing.Generated") != null) {
+				builder.addAnnotation(AnnotationSpec.builder(ClassName.get("javax.annotation.processing", "Generated"))
+						.addMember("value", "$S", RegresqlProcessor.class.getName())
+						.build());
+			}
+
+			for (int i = 0; i < methods.size(); i++) {
+				ExecutableElement m = methods.get(i);
+				MethodSpec.Builder method = MethodSpec.overriding(m, declaredType, processingEnv.getTypeUtils());
+				ExecutableType executable = (ExecutableType) processingEnv.getTypeUtils().asMemberOf(declaredType, m);
+
+				CodeBlock arguments = m.getParameters().isEmpty()
+						? CodeBlock.of("$L", i)
+						: CodeBlock.of("$L, new Object[] {$L}", i, m.getParameters().stream()
+								.map(p -> CodeBlock.of("$N", p.getSimpleName().toString()))
+								.collect(CodeBlock.joining(", ")));
+
+				if (executable.getReturnType().getKind() == TypeKind.VOID) {
+					method.addStatement("calls.invoke($L)", arguments);
+				} else {
+					method.addStatement("return ($T) calls.invoke($L)", TypeName.get(executable.getReturnType()), arguments);
+				}
+				builder.addMethod(method.build());
+			}
+
+			if (connectionHandle != null) {
+				builder.addMethod(MethodSpec.overriding(connectionHandle, declaredType, processingEnv.getTypeUtils())
+						.addStatement("return calls.connectionHandle()")
+						.build());
+			}
+
+			try {
+				JavaFile.builder(packageElement.getQualifiedName().toString(), builder.build())
+						.skipJavaLangImports(true)
+						.build()
+						.writeTo(processingEnv.getFiler());
+			} catch (IOException ex) {
+				error(type, "Cannot write generated " + simpleName + ": " + ex);
+			}
+		}
+
+		FieldSpec constant(Class<?> arrayType, String name, CodeBlock elements) {
+			return FieldSpec.builder(arrayType, name, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+					.initializer("{\n$>$L$<\n}", elements)
+					.build();
+		}
+
+		void error(Element element, String message) {
+			failed = true;
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package io.immutables.regres;
+
+import io.immutables.codec.Codecs;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.junit.Test;
+import static io.immutables.that.Assert.that;
+
+public class TestRegresqlProcessor {
+	private final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+	@Test
+	public void generate() throws Exception {
+		Path dir = Files.createTempDirectory("regresql");
+		Files.writeString(dir.resolve("Dao.java"), String.join("\n",
+				"import io.immutables.regres.SqlAccessor;",
+				"@SqlAccessor.Generate",
+				"public interface Dao extends SqlAccessor {",
+				"  @UpdateCount int insert(@Named(\"a\") int a, @Named(\"b\") String b);",
+				"  @Single @Column String name(@Named(\"id\") int id);",
+				"  void truncate();",
+				"}"));
+		Files.writeString(dir.resolve("Dao.sql"), String.join("\n",
+				"--.insert",
+				"insert into t(a, b) values (:a, :b::text);",
+				"--.name",
+				"select name from t where id = :id",
+				"--.truncate",
+				"truncate t;",
+				""));
+
+		that(compile(dir)).is(true);
+
+		String generated = Files.readString(dir.resolve("Regresql_Dao.java"));
+		that(generated).contains("insert into t(a, b) values (? , ? ::text);");
+		that(generated).contains("public final class Regresql_Dao implements Dao");
+
+		try (var loader = new URLClassLoader(new URL[] {dir.toUri().toURL()}, getClass().getClassLoader())) {
+			Class<?> dao = loader.loadClass("Dao");
+			Object instance = Regresql.create(dao, Codecs.builtin().toResolver(), new ConnectionProvider() {
+				@Override public Connection get() {
+					throw new UnsupportedOperationException();
+				}
+				@Override public void recycle(Connection c) {}
+			});
+			that(instance.getClass().getName()).is("Regresql_Dao");
+		}
+	}
+
+	@Test
+	public void mismatches() throws Exception {
+		Path dir = Files.createTempDirectory("regresql");
+		Files.writeString(dir.resolve("Dao.java"), String.join("\n",
+				"import io.immutables.regres.SqlAccessor;",
+				"@SqlAccessor.Generate",
+				"public interface Dao extends SqlAccessor {",
+				"  void insert(@Named(\"a\") int a);",
+				"  void delete();",
+				"}"));
+		Files.writeString(dir.resolve("Dao.sql"), String.join("\n",
+				"--.insert",
+				"insert into t(a, b) values (:a, :b);",
+				""));
+
+		that(compile(dir)).is(false);
+		that(errors()).hasSize(1);
+		that(errors().get(0)).contains("Missing `delete` declaration");
+		that(Files.exists(dir.resolve("Regresql_Dao.java"))).is(false);
+
+		Files.writeString(dir.resolve("Dao.sql"), String.join("\n",
+				"--.insert",
+				"insert into t(a, b) values (:a, :b);",
+				"--.delete",
+				"delete from t;",
+				""));
+
+		that(compile(dir)).is(false);
+		that(errors().get(errors().size() - 1)).contains("Placeholder :b has no corresponding @Named parameter");
+	}
+
+	private boolean compile(Path dir) throws IOException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, Locale.ROOT, null)) {
+			JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics,
+					List.of("-d", dir.toString(), "-s", dir.toString(),
+							"-classpath", System.getProperty("java.class.path")),
+					null,
+					files.getJavaFileObjects(dir.resolve("Dao.java")));
+			task.setProcessors(List.of(new RegresqlProcessor()));
+			return task.call();
+		}
+	}
+
+	private List<String> errors() {
+		List<String> errors = new ArrayList<>();
+		for (Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()) {
+			if (d.getKind() == Diagnostic.Kind.ERROR) errors.add(d.getMessage(Locale.ROOT));
+		}
+		return errors;
+	}
+}
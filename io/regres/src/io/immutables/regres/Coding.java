@@ -1,22 +1,37 @@
 package io.immutables.regres;
 
+import io.immutables.Nullable;
 import io.immutables.Unreachable;
 import io.immutables.codec.Codec;
 import io.immutables.codec.Codec.*;
+import io.immutables.codec.Codecs;
 import io.immutables.codec.OkJson;
 import io.immutables.codec.Resolver;
+import io.immutables.collect.Vect;
 import okio.Buffer;
+import okio.BufferedSource;
+import okio.Okio;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.annotation.Annotation;
 import java.nio.charset.Charset;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Supplier;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.reflect.TypeToken;
 import com.squareup.moshi.JsonReader;
 import com.squareup.moshi.JsonWriter;
@@ -34,6 +49,9 @@ final class Coding {
  //       TODO OPTIMIZE Builtin types ?
  //       if (qualifier == null && type == )
         Codec<T> delegate = resolver.get(type, qualifier);
+        if (qualifier instanceof Jsonb && Codecs.isUnsupported(delegate)) {
+          return new JsonbCodec<>(resolver.get(type), false);
+        }
         if (t == Instant.class && qualifier == null) {
           return new Codec<T>() {
             @Override public T decode(In in) throws IOException {
@@ -55,13 +73,27 @@ final class Coding {
   }
 
   static final class ResultSetIn implements In {
+		private static final byte OBJECT = 0;
+		private static final byte INT = 1;
+		private static final byte LONG = 2;
+		private static final byte DOUBLE = 3;
+		private static final byte BOOLEAN = 4;
+		private static final byte STRING = 5;
+		private static final byte JSONB_BINARY_VERSION = 1;
+
 		private final ResultSet results;
 		private final int columnCount;
 		private final String[] names;
-		private final Object[] values;
-		private final @Field int[] indexes;
+		/** Getter to use for each column, derived from JDBC type in result set metadata. */
+		private final byte[] kinds;
+		/** Field for each column, or {@code -1} if column is not mapped to a field and should be skipped. */
+		private @Field int[] indexes;
 
 		private At peek = At.ARRAY;
+		/** Column value is read lazily, on the first peek or take, so skipped columns are not read. */
+		private boolean pending;
+		private long primitive;
+		private @Nullable Object value;
 		private int atRow = -1;
 		private int atColumn = -1;
 
@@ -72,17 +104,45 @@ final class Coding {
 			columnCount = meta.getColumnCount();
 
 			names = new String[columnCount];
-			values = new Object[columnCount];
+			kinds = new byte[columnCount];
 			indexes = new int[columnCount];
 			Arrays.fill(indexes, -1);
 
 			for (int i = 0; i < columnCount; i++) {
 				names[i] = meta.getColumnLabel(i + 1);
+				kinds[i] = kindOf(meta, i + 1);
 			}
 		}
 
+		private static byte kindOf(ResultSetMetaData meta, int column) throws SQLException {
+			switch (meta.getColumnType(column)) { // @formatter:off
+			case Types.TINYINT: //$FALL-THROUGH$
+			case Types.SMALLINT: //$FALL-THROUGH$
+			case Types.INTEGER: return INT;
+			case Types.BIGINT: return LONG;
+			case Types.REAL: //$FALL-THROUGH$
+			case Types.FLOAT: //$FALL-THROUGH$
+			case Types.DOUBLE: return DOUBLE;
+			case Types.BOOLEAN: return BOOLEAN;
+			// Some drivers (notably PostgreSQL) report boolean as BIT(1), while wider BIT(n) are bit strings
+			case Types.BIT: return meta.getPrecision(column) <= 1 ? BOOLEAN : OBJECT;
+			case Types.CHAR: //$FALL-THROUGH$
+			case Types.VARCHAR: //$FALL-THROUGH$
+			case Types.LONGVARCHAR: //$FALL-THROUGH$
+			case Types.NCHAR: //$FALL-THROUGH$
+			case Types.NVARCHAR: //$FALL-THROUGH$
+			case Types.LONGNVARCHAR: return STRING;
+			default: return OBJECT;
+			} // @formatter:on
+		}
+
 		private FieldIndex fieldIndex;
 
+		/** Number of rows read so far. */
+		int rows() {
+			return atRow + 1;
+		}
+
 		@Override
 		public Object adapts() {
 			return results;
@@ -90,6 +150,7 @@ final class Coding {
 
 		@Override
 		public At peek() throws IOException {
+			if (pending) readValue();
 			return peek;
 		}
 
@@ -115,15 +176,27 @@ final class Coding {
 			expect(peek == At.STRUCT, () -> "not at beginning of result set");
 			if (this.fieldIndex != fieldIndex || fieldIndex.isDynamic()) {
 				this.fieldIndex = fieldIndex;
-				for (int i = 0; i < columnCount; i++) {
-					indexes[i] = fieldIndex.nameToIndex(names[i]);
-				}
+				indexes = fieldIndex.isDynamic()
+						? mapColumns(fieldIndex)
+						: columnPlan(fieldIndex, names);
 			}
 			advanceColumn();
 		}
 
+		private int[] mapColumns(FieldIndex fieldIndex) {
+			int[] indexes = new int[columnCount];
+			for (int i = 0; i < columnCount; i++) {
+				indexes[i] = fieldIndex.nameToIndex(names[i]);
+			}
+			return indexes;
+		}
+
 		private void advanceColumn() {
-			atColumn++;
+			pending = false;
+			do {
+				atColumn++;
+			} while (atColumn < columnCount && indexes[atColumn] < 0);
+
 			if (atColumn >= columnCount) {
 				atColumn = -1;
 				peek = At.STRUCT_END;
@@ -132,27 +205,57 @@ final class Coding {
 			}
 		}
 
-		private void typeValue() {
-			Object v = values[atColumn];
-			if (v == null) {
-				peek = At.NULL;
-			} else if (v instanceof Long) {
-				peek = At.LONG;
-			} else if (v instanceof Integer) {
-				peek = At.INT;
-			} else if (v instanceof Number) {
-				peek = At.DOUBLE;
-			} else if (v instanceof Boolean) {
-				peek = At.BOOLEAN;
-			} else { // if (v instanceof String) // WHAT ABOUT OTHER/SPECIAL?
-				peek = At.STRING;
+		private void readValue() {
+			pending = false;
+			int column = atColumn + 1;
+			try {
+				switch (kinds[atColumn]) { // @formatter:off
+				case INT: primitive = results.getInt(column); peek = At.INT; break;
+				case LONG: primitive = results.getLong(column); peek = At.LONG; break;
+				case DOUBLE: primitive = Double.doubleToRawLongBits(results.getDouble(column)); peek = At.DOUBLE; break;
+				case BOOLEAN: primitive = results.getBoolean(column) ? 1 : 0; peek = At.BOOLEAN; break;
+				case STRING: value = results.getString(column); peek = At.STRING; break;
+				default: value = results.getObject(column); peek = typeOf(value);
+				} // @formatter:on
+				if (results.wasNull()) {
+					value = null;
+					peek = At.NULL;
+				}
+			} catch (SQLException ex) {
+				Unreachable.<RuntimeException>uncheckedThrow(ex);
 			}
 		}
 
+		private static At typeOf(@Nullable Object v) {
+			if (v == null) return At.NULL;
+			if (v instanceof Long) return At.LONG;
+			if (v instanceof Integer) return At.INT;
+			if (v instanceof Number) return At.DOUBLE;
+			if (v instanceof Boolean) return At.BOOLEAN;
+			// if (v instanceof String) // WHAT ABOUT OTHER/SPECIAL?
+			return At.STRING;
+		}
+
+		/** Current value boxed, for the (rare) cases it is requested in a type other than read. */
+		private @Nullable Object boxed() {
+			if (kinds[atColumn] == OBJECT || kinds[atColumn] == STRING || peek == At.NULL) return value;
+			switch (peek) { // @formatter:off
+			case INT: return (int) primitive;
+			case LONG: return primitive;
+			case DOUBLE: return Double.longBitsToDouble(primitive);
+			case BOOLEAN: return primitive != 0;
+			default: return value;
+			} // @formatter:on
+		}
+
+		private boolean holdsPrimitive() {
+			return kinds[atColumn] != OBJECT && kinds[atColumn] != STRING;
+		}
+
 		@Override
 		public @Field int takeField() throws IOException {
 			expect(peek == At.FIELD, () -> "not at column");
-			typeValue();
+			pending = true;
 			return indexes[atColumn];
 		}
 
@@ -164,49 +267,80 @@ final class Coding {
 
 		private void advanceRow() {
 			atColumn = -1;
+			pending = false;
 			try {
 				if (!results.next()) {
 					peek = At.ARRAY_END;
 				} else {
 					atRow++;
 					peek = At.STRUCT;
-					for (int i = 0; i < columnCount; i++) {
-						values[i] = results.getObject(i + 1);
-					}
 				}
 			} catch (SQLException ex) {
 				Unreachable.<RuntimeException>uncheckedThrow(ex);
 			}
 		}
 
+		/**
+		 * Takes current column value as a source of UTF-8 bytes, or {@code null} if column is SQL NULL.
+		 * For JSON and other driver specific column types the bytes are read as is, without
+		 * converting to string, the leading version byte of binary {@code jsonb} format is skipped.
+		 */
+		@Nullable BufferedSource takeBytes() throws IOException {
+			if (pending && kinds[atColumn] == OBJECT) {
+				pending = false;
+				@Nullable InputStream stream = null;
+				try {
+					stream = results.getBinaryStream(atColumn + 1);
+					if (results.wasNull()) stream = null;
+				} catch (SQLException ex) {
+					Unreachable.<RuntimeException>uncheckedThrow(ex);
+				}
+				advanceColumn();
+				if (stream == null) return null;
+				BufferedSource source = Okio.buffer(Okio.source(stream));
+				if (source.request(1) && source.buffer().getByte(0) == JSONB_BINARY_VERSION) {
+					source.skip(1);
+				}
+				return source;
+			}
+			if (pending) readValue();
+			@Nullable Object v = peek == At.NULL ? null : boxed();
+			advanceColumn();
+			return v != null ? new Buffer().writeUtf8(v.toString()) : null;
+		}
+
 		@Override
 		public CharSequence takeString() throws IOException {
-			String s = String.valueOf(values[atColumn]);
+			if (pending) readValue();
+			String s = String.valueOf(boxed());
 			advanceColumn();
 			return s;
 		}
 
 		@Override
 		public Object takeSpecial() throws IOException {
-			Object v = values[atColumn];
+			if (pending) readValue();
+			Object v = boxed();
 			advanceColumn();
 			return v;
 		}
 
 		@Override
 		public void takeNull() throws IOException {
+			if (pending) readValue();
 			expect(peek == At.NULL, () -> "not at null value");
 			advanceColumn();
 		}
 
 		@Override
 		public long takeLong() throws IOException {
+			if (pending) readValue();
 			long l;
 			switch (peek) { // @formatter:off
 			case INT: //$FALL-THROUGH$
-			case LONG: //$FALL-THROUGH$
-			case DOUBLE: l = ((Number)values[atColumn]).longValue(); break;
-			case STRING: l = Long.parseLong((String)values[atColumn]); break;
+			case LONG: l = holdsPrimitive() ? primitive : ((Number) value).longValue(); break;
+			case DOUBLE: l = holdsPrimitive() ? (long) Double.longBitsToDouble(primitive) : ((Number) value).longValue(); break;
+			case STRING: l = Long.parseLong((String) value); break;
 			default: unexpected("not at int value"); l = 0;
 			} // @formatter:on
 			advanceColumn();
@@ -215,12 +349,13 @@ final class Coding {
 
 		@Override
 		public int takeInt() throws IOException {
+			if (pending) readValue();
 			int i;
 			switch (peek) { // @formatter:off
 			case INT: //$FALL-THROUGH$
-			case LONG: //$FALL-THROUGH$
-			case DOUBLE: i = ((Number)values[atColumn]).intValue(); break;
-			case STRING: i = Integer.parseInt((String)values[atColumn]); break;
+			case LONG: i = holdsPrimitive() ? (int) primitive : ((Number) value).intValue(); break;
+			case DOUBLE: i = holdsPrimitive() ? (int) Double.longBitsToDouble(primitive) : ((Number) value).intValue(); break;
+			case STRING: i = Integer.parseInt((String) value); break;
 			default: unexpected("not at int value"); i = 0;
 			} // @formatter:on
 			advanceColumn();
@@ -229,12 +364,13 @@ final class Coding {
 
 		@Override
 		public double takeDouble() throws IOException {
+			if (pending) readValue();
 			double d;
 			switch (peek) { // @formatter:off
 			case INT: //$FALL-THROUGH$
-			case LONG: //$FALL-THROUGH$
-			case DOUBLE: d = ((Number)values[atColumn]).doubleValue(); break;
-			case STRING: d = Double.parseDouble((String)values[atColumn]); break;
+			case LONG: d = holdsPrimitive() ? primitive : ((Number) value).doubleValue(); break;
+			case DOUBLE: d = holdsPrimitive() ? Double.longBitsToDouble(primitive) : ((Number) value).doubleValue(); break;
+			case STRING: d = Double.parseDouble((String) value); break;
 			default: unexpected("not at double value"); d = 0.0;
 			} // @formatter:on
 			advanceColumn();
@@ -243,14 +379,15 @@ final class Coding {
 
 		@Override
 		public boolean takeBoolean() throws IOException {
+			if (pending) readValue();
 			boolean b;
 			switch (peek) { // @formatter:off
-			case BOOLEAN: b = (boolean) values[atColumn]; break;
+			case BOOLEAN: b = holdsPrimitive() ? primitive != 0 : (boolean) value; break;
 			case INT: //$FALL-THROUGH$
-			case LONG: //$FALL-THROUGH$
-			case DOUBLE: b = ((Number)values[atColumn]).intValue() != 0; break;
-			case STRING: b = Boolean.parseBoolean((String)values[atColumn]); break;
-			default: b = values[atColumn] != null;
+			case LONG: b = holdsPrimitive() ? primitive != 0 : ((Number) value).intValue() != 0; break;
+			case DOUBLE: b = holdsPrimitive() ? Double.longBitsToDouble(primitive) != 0 : ((Number) value).intValue() != 0; break;
+			case STRING: b = Boolean.parseBoolean((String) value); break;
+			default: b = value != null;
 			} // @formatter:on
 			advanceColumn();
 			return b;
@@ -280,32 +417,204 @@ final class Coding {
 		}
 	}
 
-	static class StatementParameterOut implements Out {
-		private static final Object MASKED_NULL = new Object();
+	/**
+	 * Column plans by field index, kept here rather than in {@link FieldIndex#put(Object)}, which is a
+	 * single slot other codecs (like {@link OkJson}) use to cache their own lookup structures.
+	 * Weak keys, so that field indexes of unloaded codecs can be collected.
+	 */
+	private static final LoadingCache<FieldIndex, ColumnPlans> columnPlans = CacheBuilder.newBuilder()
+			.weakKeys()
+			.build(CacheLoader.from(ColumnPlans::new));
+
+	static @Field int[] columnPlan(FieldIndex fieldIndex, String[] labels) {
+		return columnPlans.getUnchecked(fieldIndex).plan(labels);
+	}
+
+	/**
+	 * Column to field mappings for non-dynamic {@link FieldIndex}, one for each result set shape
+	 * (column labels), so that repeated executions of the same queries do not resolve names.
+	 * Fields are the ones known when the first plan is built. Names are not looked up via
+	 * {@link FieldIndex#nameToIndex(CharSequence)}, which auto-grows for unknown names, so columns
+	 * which do not match any of the known fields are always mapped to {@code -1} and skipped.
+	 */
+	private static final class ColumnPlans {
+		private final Map<String, Integer> fields = new HashMap<>();
+		private final ConcurrentMap<List<String>, int[]> plans = new ConcurrentHashMap<>();
+
+		ColumnPlans(FieldIndex fieldIndex) {
+			int known = fieldIndex.count();
+			for (@Field int f = 0; f < known; f++) {
+				fields.put(fieldIndex.indexToName(f).toString(), f);
+			}
+		}
+
+		@Field int[] plan(String[] labels) {
+			return plans.computeIfAbsent(Arrays.asList(labels.clone()), this::resolve);
+		}
+
+		private @Field int[] resolve(List<String> labels) {
+			@Field int[] indexes = new int[labels.size()];
+			for (int i = 0; i < indexes.length; i++) {
+				indexes[i] = fields.getOrDefault(labels.get(i), -1);
+			}
+			return indexes;
+		}
+	}
+
+	/**
+	 * Binding plan compiled once per access method. Resolves placeholder names to value slots up
+	 * front, so that encoding of arguments and filling of prepared statement parameters do not
+	 * involve any name lookups. The only exception are spread parameters having dynamic field
+	 * index (like maps), which are resolved by name for each field.
+	 */
+	static final class ParameterPlan {
+		private final String[] slotNames;
+		private final Map<String, Integer> slotsByName;
+		/** Slot for each JDBC parameter, i.e. for each placeholder in order of appearance. */
+		private final int[] placeholderSlots;
+		/** Slot for each method parameter, or {@code -1} if unused or spread. */
+		private final int[] parameterSlots;
+		private final String[] parameterNames;
+		private final @Nullable String[] spreadPrefixes;
+		/** Lazily computed slot mappings for spread parameters with non-dynamic field index. */
+		private final @Nullable SpreadSlots[] spreadSlots;
+
+		private ParameterPlan(Vect<String> placeholders, String[] parameterNames, @Nullable String[] spreadPrefixes) {
+			this.parameterNames = parameterNames;
+			this.spreadPrefixes = spreadPrefixes;
+			this.spreadSlots = new SpreadSlots[parameterNames.length];
+
+			Map<String, Integer> slots = new HashMap<>();
+			placeholderSlots = new int[placeholders.size()];
+			for (int i = 0; i < placeholderSlots.length; i++) {
+				placeholderSlots[i] = slots.computeIfAbsent(placeholders.get(i), k -> slots.size());
+			}
+			slotNames = new String[slots.size()];
+			slots.forEach((name, slot) -> slotNames[slot] = name);
+			slotsByName = slots;
+
+			parameterSlots = new int[parameterNames.length];
+			for (int i = 0; i < parameterSlots.length; i++) {
+				parameterSlots[i] = spreadPrefixes[i] == null ? slotOf(parameterNames[i]) : -1;
+			}
+		}
+
+		static ParameterPlan compile(Vect<String> placeholders, Vect<Regresql.ParameterProfile> parameters) {
+			String[] names = new String[parameters.size()];
+			String[] prefixes = new String[parameters.size()];
+			for (int i = 0; i < names.length; i++) {
+				Regresql.ParameterProfile p = parameters.get(i);
+				names[i] = p.name();
+				prefixes[i] = p.spread().orElse(null);
+			}
+			return new ParameterPlan(placeholders, names, prefixes);
+		}
+
+		int slotCount() {
+			return slotNames.length;
+		}
+
+		int slotOf(String name) {
+			@Nullable Integer slot = slotsByName.get(name);
+			return slot != null ? slot : -1;
+		}
+
+		int[] spreadSlots(int parameter, FieldIndex fields) {
+			@Nullable SpreadSlots cached = spreadSlots[parameter];
+			if (cached != null && cached.fields == fields) return cached.slots;
+
+			String prefix = spreadPrefixes[parameter];
+			int[] slots = new int[fields.count()];
+			for (int i = 0; i < slots.length; i++) {
+				slots[i] = slotOf(prefix + fields.indexToName(i));
+			}
+			// racy, but benign: always the same content for the same field index
+			spreadSlots[parameter] = new SpreadSlots(fields, slots);
+			return slots;
+		}
+
+		private static final class SpreadSlots {
+			final FieldIndex fields;
+			final int[] slots;
+
+			SpreadSlots(FieldIndex fields, int[] slots) {
+				this.fields = fields;
+				this.slots = slots;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "ParameterPlan(" + String.join(", ", slotNames) + ")";
+		}
+	}
+
+	/**
+	 * Collects encoded parameter values into the slots of {@link ParameterPlan}, keeping primitive
+	 * values unboxed, then fills them in as prepared statement parameters using typed setters.
+	 * Can be reused for each batch entry, as values are just overwritten in the same slots.
+	 */
+	static final class StatementParameterOut implements Out {
+		private static final byte UNSET = 0;
+		private static final byte NULL = 1;
+		private static final byte INT = 2;
+		private static final byte LONG = 3;
+		private static final byte DOUBLE = 4;
+		private static final byte BOOLEAN = 5;
+		private static final byte STRING = 6;
+		private static final byte SPECIAL = 7;
+
 		private enum SpreadState {
 			EXPECT, DOING, NONE
 		}
-		private final FieldIndex parameterIndex;
-		private final Map<String, Object> values = new HashMap<>();
+		private final ParameterPlan plan;
+		private final byte[] kinds;
+		private final long[] primitives;
+		private final Object[] objects;
 		private SpreadState spreading = SpreadState.NONE;
-		private String prefix = "";
-		private String field = "";
-		private FieldIndex spreadingIndex;
-
-		StatementParameterOut(FieldIndex parameterIndex) {
-			this.parameterIndex = parameterIndex;
+		private int parameter = -1;
+		private int slot = -1;
+		private @Field int field = -1;
+		private @Nullable FieldIndex spreadingIndex;
+		private @Nullable int[] spreadingSlots;
+
+		StatementParameterOut(ParameterPlan plan) {
+			this.plan = plan;
+			int count = plan.slotCount();
+			kinds = new byte[count];
+			primitives = new long[count];
+			objects = new Object[count];
+		}
+
+		void fill(PreparedStatement statement) throws SQLException, IOException {
+			int[] placeholders = plan.placeholderSlots;
+			for (int i = 0; i < placeholders.length; i++) {
+				int s = placeholders[i];
+				int p = i + 1;
+				switch (kinds[s]) { // @formatter:off
+				case INT: statement.setInt(p, (int) primitives[s]); break;
+				case LONG: statement.setLong(p, primitives[s]); break;
+				case DOUBLE: statement.setDouble(p, Double.longBitsToDouble(primitives[s])); break;
+				case BOOLEAN: statement.setBoolean(p, primitives[s] != 0); break;
+				case STRING: statement.setString(p, (String) objects[s]); break;
+				case SPECIAL: setSpecial(statement, p, objects[s]); break;
+				case NULL: statement.setObject(p, null); break;
+				default: unexpected("No value for placeholder :" + plan.slotNames[s]);
+				} // @formatter:on
+			}
 		}
 
-		Object get(String name) throws IOException {
-			Object v = values.get(name);
-			if (v == null) unexpected("No value for placeholder :" + name);
-			if (v == MASKED_NULL) return null;
-			return v;
+		private static void setSpecial(PreparedStatement statement, int p, Object value) throws SQLException {
+			if (value instanceof Instant) {
+				// Experimental, only for instant for now
+				statement.setTimestamp(p, new Timestamp(((Instant) value).toEpochMilli()));
+			} else {
+				statement.setObject(p, value);
+			}
 		}
 
-		void spread(String prefix) {
+		void spread() {
 			spreading = SpreadState.EXPECT;
-			this.prefix = prefix;
 		}
 
 		@Override
@@ -313,6 +622,7 @@ final class Coding {
 			if (spreading == SpreadState.EXPECT) {
 				spreading = SpreadState.DOING;
 				spreadingIndex = f;
+				spreadingSlots = f.isDynamic() ? null : plan.spreadSlots(parameter, f);
 			} else {
 				unexpected("Parameter at " + getPath() + " uses nested structure. Instead use @Spread or JSONB conversion");
 			}
@@ -322,19 +632,26 @@ final class Coding {
 		public void endStruct() throws IOException {
 			if (spreading == SpreadState.DOING) {
 				spreading = SpreadState.NONE;
-				prefix = "";
+				spreadingIndex = null;
+				spreadingSlots = null;
 			} else {
 				unexpected("Out of order end of struct at " + getPath());
 			}
 		}
 
-		private FieldIndex fields() {
-			return spreading == SpreadState.DOING ? spreadingIndex : parameterIndex;
-		}
-
 		@Override
 		public void putField(@Field int field) throws IOException {
-			this.field = prefix + fields().indexToName(field);
+			this.field = field;
+			if (spreading == SpreadState.DOING) {
+				if (spreadingSlots != null && field >= 0 && field < spreadingSlots.length) {
+					slot = spreadingSlots[field];
+				} else {
+					slot = plan.slotOf(plan.spreadPrefixes[parameter] + spreadingIndex.indexToName(field));
+				}
+			} else {
+				parameter = field;
+				slot = plan.parameterSlots[field];
+			}
 		}
 
 		@Override
@@ -347,39 +664,53 @@ final class Coding {
 			unexpected("Parameter at " + getPath() + " uses nested array. Instead use JSONB conversion.");
 		}
 
+		private void putPrimitive(byte kind, long bits) {
+			if (slot >= 0) {
+				kinds[slot] = kind;
+				primitives[slot] = bits;
+			}
+		}
+
+		private void putObject(byte kind, @Nullable Object o) {
+			if (slot >= 0) {
+				kinds[slot] = kind;
+				objects[slot] = o;
+			}
+		}
+
 		@Override
 		public void putInt(int i) throws IOException {
-			values.put(field, i);
+			putPrimitive(INT, i);
 		}
 
 		@Override
 		public void putLong(long l) throws IOException {
-			values.put(field, l);
+			putPrimitive(LONG, l);
 		}
 
 		@Override
 		public void putDouble(double d) throws IOException {
-			values.put(field, d);
+			putPrimitive(DOUBLE, Double.doubleToRawLongBits(d));
 		}
 
 		@Override
 		public void putBoolean(boolean b) throws IOException {
-			values.put(field, b);
+			putPrimitive(BOOLEAN, b ? 1 : 0);
 		}
 
 		@Override
 		public void putSpecial(Object o) throws IOException {
-			values.put(field, o);
+			putObject(SPECIAL, o);
 		}
 
 		@Override
 		public void putNull() throws IOException {
-			values.put(field, MASKED_NULL);
+			putObject(NULL, null);
 		}
 
 		@Override
 		public void putString(CharSequence s) throws IOException {
-			values.put(field, s.toString());
+			putObject(STRING, s.toString());
 		}
 
 		@Override
@@ -390,13 +721,88 @@ final class Coding {
 
 		@Override
 		public String getPath() {
-			return field;
+			if (spreading == SpreadState.DOING) {
+				return plan.spreadPrefixes[parameter] + spreadingIndex.indexToName(field);
+			}
+			return parameter >= 0 ? plan.parameterNames[parameter] : "";
 		}
 
+		/**
+		 * Values collected so far by placeholder name, as it was before values were kept in slots.
+		 * Primitives are boxed, SQL NULL is {@code null} value, unset placeholders are absent.
+		 */
 		@Override
-		public Object adapts() {
+		public Map<String, Object> adapts() {
+			Map<String, Object> values = new HashMap<>();
+			for (int s = 0; s < kinds.length; s++) {
+				if (kinds[s] != UNSET) values.put(plan.slotNames[s], boxed(s));
+			}
 			return values;
 		}
+
+		private @Nullable Object boxed(int s) {
+			switch (kinds[s]) { // @formatter:off
+			case INT: return (int) primitives[s];
+			case LONG: return primitives[s];
+			case DOUBLE: return Double.longBitsToDouble(primitives[s]);
+			case BOOLEAN: return primitives[s] != 0;
+			default: return objects[s];
+			} // @formatter:on
+		}
+	}
+
+	/**
+	 * Codec for {@link Jsonb} qualified values, used if resolver has no codec registered for this
+	 * qualifier. Column values are parsed directly from the bytes the driver received, instead of
+	 * going through intermediate string. Parameters are written as UTF-8 JSON and passed as
+	 * strings, which is the only form drivers accept for JSON values.
+	 */
+	static final class JsonbCodec<T> extends Codec<T> {
+		private final Codec<T> original;
+		private final boolean supportsNull;
+
+		JsonbCodec(Codec<T> original, boolean supportsNull) {
+			this.original = original;
+			this.supportsNull = supportsNull;
+		}
+
+		@Override
+		public T decode(In in) throws IOException {
+			@Nullable BufferedSource source;
+			if (in instanceof ResultSetIn) {
+				source = ((ResultSetIn) in).takeBytes();
+			} else if (in.peek() == At.NULL) {
+				in.takeNull();
+				source = null;
+			} else {
+				source = new Buffer().writeUtf8(in.takeString().toString());
+			}
+			if (source == null) {
+				if (supportsNull) return null;
+				throw new IOException("Non-null JSON expected at " + in.getPath());
+			}
+			try (JsonReader reader = JsonReader.of(source)) {
+				return original.decode(OkJson.in(reader));
+			}
+		}
+
+		@Override
+		public void encode(Out out, T instance) throws IOException {
+			Buffer buffer = new Buffer();
+			original.encode(OkJson.out(JsonWriter.of(buffer)), instance);
+			out.putString(buffer.readUtf8());
+		}
+
+		@Override
+		public Codec<T> toNullable() {
+			if (supportsNull) return this;
+			return new JsonbCodec<>(original.toNullable(), true);
+		}
+
+		@Override
+		public String toString() {
+			return "jsonb for " + original;
+		}
 	}
 
 	static class SingleRowDecoder extends Codec<Object> {
@@ -66,9 +66,11 @@ public class Errors {
   }
 
   private static StackTraceElement[] trimStackTrace(StackTraceElement[] stackTrace, Method method) {
-    return Vect.of(stackTrace)
-        .dropWhile(s -> !s.getClassName().contains(".$Proxy"))
-        .rangeFrom(1)
+    Vect<StackTraceElement> fromProxy = Vect.of(stackTrace)
+        .dropWhile(s -> !s.getClassName().contains(".$Proxy"));
+    // there's no proxy frame when method was executed asynchronously
+    Vect<StackTraceElement> callers = fromProxy.isEmpty() ? Vect.of(stackTrace) : fromProxy.rangeFrom(1);
+    return callers
         .prepend(new StackTraceElement(
             method.getDeclaringClass().getName(),
             method.getName(),
@@ -9,6 +9,10 @@ import java.lang.annotation.Target;
 
 /**
  * Maybe it's only temporary here.
+ * <p>
+ * Qualified values are converted to and from JSON by Regresql itself, column values are parsed
+ * directly from the bytes received by the driver. To decode only part of a large document, extract
+ * it in SQL (like {@code doc->'items' as items}) and read it using {@link SqlAccessor.Column}.
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target({ElementType.METHOD, ElementType.PARAMETER})
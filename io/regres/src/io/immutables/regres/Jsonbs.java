@@ -1,9 +1,25 @@
 package io.immutables.regres;
 
+import io.immutables.codec.Codec;
+import io.immutables.codec.Resolver;
+import com.google.common.reflect.TypeToken;
+
 public final class Jsonbs {
   private Jsonbs() {}
 
   public static Jsonb of() {
     return ImmutableJsonb.of();
   }
+
+  /**
+   * Codec factory to register for {@link Jsonb} qualifier. Column values are parsed directly from
+   * the bytes received by the driver, instead of going through intermediate string.
+   */
+  public static Codec.Factory codecs() {
+    return new Codec.Factory() {
+      @Override public <T> Codec<T> get(Resolver lookup, TypeToken<T> type) {
+        return new Coding.JsonbCodec<>(lookup.get(type), false);
+      }
+    };
+  }
 }
@@ -12,16 +12,20 @@ import com.google.common.collect.Multisets;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Sets.SetView;
 import com.google.common.io.Resources;
+import com.google.common.primitives.Primitives;
 import com.google.common.reflect.AbstractInvocationHandler;
 import com.google.common.reflect.TypeToken;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.immutables.Nullable;
 import io.immutables.Source;
 import io.immutables.Source.Position;
+import io.immutables.Unreachable;
 import io.immutables.codec.Codec;
 import io.immutables.codec.Codec.ContainerCodec;
-import io.immutables.codec.Codec.FieldIndex;
 import io.immutables.codec.Codecs;
 import io.immutables.codec.Resolver;
+import io.immutables.collect.IntVect;
+import io.immutables.collect.LongVect;
 import io.immutables.collect.Vect;
 import io.immutables.regres.Coding.StatementParameterOut;
 import io.immutables.regres.SqlAccessor.Batch;
@@ -33,22 +37,24 @@ import io.immutables.regres.SqlAccessor.UpdateCount;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.sql.Timestamp;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -56,6 +62,12 @@ import java.util.MissingResourceException;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -68,6 +80,15 @@ import static com.google.common.base.Preconditions.checkArgument;
  * Minimalistic toolkit for SQL access which is based on reflection proxies of interfaces defining data access methods
  * and underlying SQL code snippets (Dao.java + Dao.sql in classpath). In the SQL file {@code --.<methodName>} comments
  * are used to lead sections of SQL which corresponds to specific methods in Java interface.
+ * <p>
+ * Access methods may also declare {@link CompletableFuture CompletableFuture&lt;T&gt;} return type (where {@code T}
+ * is what would otherwise be returned, {@code Void} for {@code void}). Such methods are run on an executor, each
+ * call acquiring and recycling its own connection from the {@link ConnectionProvider} on the executing thread, so
+ * these calls do not participate in the connection handle which might be open on the calling thread.
+ * <p>
+ * When interface is annotated with {@link SqlAccessor.Generate} and {@code RegresqlProcessor} is run during
+ * compilation, the implementation generated by it is used instead of a proxy: SQL is parsed at compile time
+ * (with mismatches reported as compilation errors), and methods are dispatched without reflection.
  */
 // TODO Transactions/Control handle/with lambda
 // TODO Exception improvements/consistency
@@ -107,6 +128,8 @@ public final class Regresql {
   @Immutable
   interface MethodProfile {
     String name();
+    /** Method returns {@link CompletableFuture} and is executed asynchronously. */
+    boolean returnFuture();
     OptionalInt batchParameter();
     default boolean useBatching() {
       return batchParameter().isPresent();
@@ -124,14 +147,10 @@ public final class Regresql {
 
     Optional<Codec<Object>> returnTypeCodec();
 
+    /** Return type, unwrapped from {@link CompletableFuture} if {@link #returnFuture()}. */
     Type returnType();
 
-    @Derived
-    default FieldIndex parameterIndex() {
-      return Codec.knownFields(parameters().stream()
-          .map(ParameterProfile::name)
-          .toArray(String[]::new));
-    }
+    Coding.ParameterPlan parameterPlan();
 
     @Derived
     default Map<String, ParameterProfile> parametersByName() {
@@ -153,27 +172,62 @@ public final class Regresql {
     class Builder extends ImmutableRegresql.ParameterProfile.Builder {}
   }
 
-  @SuppressWarnings("unchecked") // cast guaranteed by Proxy contract, runtime verified
   public static <T> T create(Class<T> accessor, Resolver codecs, ConnectionProvider connections) {
+    return create(accessor, codecs, connections, null);
+  }
+
+  public static <T> T create(
+      Class<T> accessor,
+      Resolver codecs,
+      ConnectionProvider connections,
+      @Nullable Executor executor) {
+    return create(accessor, codecs, connections, executor, null);
+  }
+
+  /**
+   * Creates accessor which will run methods returning {@link CompletableFuture} using supplied executor.
+   * When executor is {@code null}, default one is used: virtual thread per task if supported by the JVM,
+   * otherwise bounded pool of daemon threads. When listener is not {@code null}, it will receive timings
+   * and counts for each call of access method, see {@link SqlMetrics}.
+   */
+  @SuppressWarnings("unchecked") // cast guaranteed by Proxy contract, runtime verified
+  public static <T> T create(
+      Class<T> accessor,
+      Resolver codecs,
+      ConnectionProvider connections,
+      @Nullable Executor executor,
+      @Nullable SqlListener listener) {
     checkArgument(accessor.isInterface() && accessor.getCanonicalName() != null,
         "%s is not valid SQL access interface", accessor);
 
+    @Nullable Constructor<?> generated = generatedConstructor(accessor);
+    if (generated != null) {
+      try {
+        return (T) generated.newInstance(new Setup(accessor, codecs, connections, executor, listener));
+      } catch (InvocationTargetException ex) {
+        throw Unreachable.<RuntimeException>uncheckedThrow(ex.getCause());
+      } catch (ReflectiveOperationException ex) {
+        throw new IllegalStateException("Cannot instantiate generated accessor for " + accessor, ex);
+      }
+    }
+
     return (T) Proxy.newProxyInstance(
         accessor.getClassLoader(),
         new Class<?>[]{accessor},
-        handlerFor(accessor, codecs, connections));
+        handlerFor(accessor, codecs, connections, executor, listener));
   }
 
   private static ImmutableMap<String, MethodProfile> compileProfiles(
       Class<?> accessor,
-      Set<String> methods,
+      Map<String, MethodSnippet> snippets,
       Resolver codecs) {
     ImmutableMap.Builder<String, MethodProfile> builder = ImmutableMap.builder();
 
     for (Method m : accessor.getMethods()) {
       String name = m.getName();
-      if (methods.contains(name)) {
-        builder.put(name, profileMethod(m, codecs));
+      @Nullable MethodSnippet snippet = snippets.get(name);
+      if (snippet != null) {
+        builder.put(name, profileMethod(m, snippet, codecs));
       }
       // ignore here everything else, either assume these kind of mismatches handled elsewhere
       // or just wish it will be ok.
@@ -182,7 +236,7 @@ public final class Regresql {
   }
 
   @SuppressWarnings("unchecked")
-  private static MethodProfile profileMethod(Method method, Resolver codecs) {
+  private static MethodProfile profileMethod(Method method, MethodSnippet snippet, Resolver codecs) {
     MethodProfile.Builder builder = new MethodProfile.Builder();
 
     @Nullable UpdateCount updateCount = method.getAnnotation(UpdateCount.class);
@@ -190,6 +244,17 @@ public final class Regresql {
     @Nullable Single single = method.getAnnotation(Single.class);
 
     Type returnType = method.getGenericReturnType();
+    boolean returnFuture = TypeToken.of(returnType).getRawType() == CompletableFuture.class;
+
+    if (returnFuture) {
+      returnType = TypeToken.of(returnType).resolveType(FUTURE_RESULT).getType();
+      if (returnType instanceof TypeVariable<?>) throw new IllegalStateException(
+          "CompletableFuture return type should have type argument on " + method);
+      // boxed Void and Integer/Long for update counts unwrapped to primitives
+      if (returnType == Void.class || (updateCount != null && returnType instanceof Class<?>)) {
+        returnType = Primitives.unwrap((Class<?>) returnType);
+      }
+    }
 
     if (updateCount != null && (column != null || single != null)) throw new IllegalStateException(
         "@UpdateCount and (@Column extraction or @Single result) cannot be used together on " + method);
@@ -206,6 +271,7 @@ public final class Regresql {
     Vect<ParameterProfile> parameters = profileParameters(method, codecs);
 
     builder.addAllParameters(parameters);
+    builder.parameterPlan(Coding.ParameterPlan.compile(snippet.placeholders(), parameters));
 
     boolean useBatch = false;
     for (int i = 0; i < parameters.size(); i++) {
@@ -246,6 +312,7 @@ public final class Regresql {
     }
 
     builder.name(method.getName());
+    builder.returnFuture(returnFuture);
     builder.returnType(returnType);
     builder.returnUpdateCount(returnUpdateCount);
     builder.extractColumn(column != null);
@@ -254,6 +321,7 @@ public final class Regresql {
   }
 
   private static final TypeVariable<?> ITERABLE_ELEMENT = Iterable.class.getTypeParameters()[0];
+  private static final TypeVariable<?> FUTURE_RESULT = CompletableFuture.class.getTypeParameters()[0];
 
   @SuppressWarnings("unchecked")
   private static Vect<ParameterProfile> profileParameters(Method m, Resolver codecs) {
@@ -306,7 +374,12 @@ public final class Regresql {
     return profiles.build();
   }
 
-  static InvocationHandler handlerFor(Class<?> accessor, Resolver resolve, ConnectionProvider provider) {
+  static InvocationHandler handlerFor(
+      Class<?> accessor,
+      Resolver resolve,
+      ConnectionProvider provider,
+      @Nullable Executor executor,
+      @Nullable SqlListener listener) {
     Set<String> methods = uniqueAccessMethods(accessor);
     Resolver codecs = Coding.wrap(resolve);
 
@@ -319,7 +392,7 @@ public final class Regresql {
     if (!methods.isEmpty()) {
       source = loadSqlSource(accessor);
       snippets = parseSnippets(source, methods);
-      profiles = compileProfiles(accessor, methods, codecs);
+      profiles = compileProfiles(accessor, snippets, codecs);
     } else {
       source = null;
       snippets = ImmutableMap.of();
@@ -340,31 +413,294 @@ public final class Regresql {
           throw new AssertionError("SQL method not defined: " + name);
         }
 
-        try (ConnectionProvider.Handle handle = provider.handle();
-            PreparedStatement statement = handle.connection.prepareStatement(snippet.preparedStatements())) {
-          prepareStatement(statement, profile, snippet, args);
-          return executeStatement(statement, profile);
-        } catch (SQLException sqlException) {
-          throw Errors.refineException(source, method, snippet, sqlException);
-        }
+        return dispatch(provider, listener, executor, accessor, source, method, snippet, profile, args);
       }
     };
   }
 
+  /** Prefix of the simple name of the accessor implementation generated at compile time. */
+  static final String GENERATED_PREFIX = "Regresql_";
+
+  /**
+   * Constructor of accessor implementation generated at compile time for interfaces annotated with
+   * {@link SqlAccessor.Generate}, or {@code null} if there's none and reflection proxy is to be used.
+   */
+  private static @Nullable Constructor<?> generatedConstructor(Class<?> accessor) {
+    String canonicalName = accessor.getCanonicalName();
+    Package packageObject = accessor.getPackage();
+    String packageName = packageObject != null ? packageObject.getName() : "";
+    String nestedName = packageName.isEmpty() ? canonicalName : canonicalName.substring(packageName.length() + 1);
+    String generatedName = (packageName.isEmpty() ? "" : packageName + ".")
+        + GENERATED_PREFIX + nestedName.replace('.', '_');
+    try {
+      Class<?> generated = Class.forName(generatedName, true, accessor.getClassLoader());
+      if (!accessor.isAssignableFrom(generated)) return null;
+      return generated.getConstructor(Setup.class);
+    } catch (ClassNotFoundException | NoSuchMethodException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Passed to the constructor of accessor implementation generated at compile time. Generated
+   * implementation has SQL already parsed and placeholders extracted into constants, these are handed
+   * over to {@link #calls} to get what is needed to execute access methods at runtime.
+   */
+  public static final class Setup {
+    private final Class<?> accessor;
+    private final Resolver codecs;
+    private final ConnectionProvider provider;
+    private final @Nullable Executor executor;
+    private final @Nullable SqlListener listener;
+
+    Setup(
+        Class<?> accessor,
+        Resolver codecs,
+        ConnectionProvider provider,
+        @Nullable Executor executor,
+        @Nullable SqlListener listener) {
+      this.accessor = accessor;
+      this.codecs = codecs;
+      this.provider = provider;
+      this.executor = executor;
+      this.listener = listener;
+    }
+
+    /**
+     * Method calls given compile time constants, for each method (by index): name, prepared statements,
+     * placeholders and, in ranges, 4 positions in SQL source: identifier begin and end, statements begin
+     * and end.
+     */
+    public Calls calls(String[] names, String[] statements, String[][] placeholders, int[] ranges) {
+      Map<String, Method> methods = new HashMap<>();
+      for (Method m : accessor.getMethods()) {
+        if (elibibleAccessMethod(m)) methods.put(m.getName(), m);
+      }
+      if (!methods.keySet().equals(ImmutableSet.copyOf(names))) throw new IllegalStateException(
+          "Generated implementation does not match methods of " + accessor + ", it needs to be recompiled");
+
+      // source is read only for error reporting and listeners, it's not parsed again
+      @Nullable SqlSource source = names.length > 0 ? loadSqlSource(accessor) : null;
+      Resolver resolver = Coding.wrap(codecs);
+
+      Method[] accessMethods = new Method[names.length];
+      MethodSnippet[] snippets = new MethodSnippet[names.length];
+      MethodProfile[] profiles = new MethodProfile[names.length];
+      for (int i = 0; i < names.length; i++) {
+        assert source != null;
+        int r = i * 4;
+        snippets[i] = new MethodSnippet.Builder()
+            .name(names[i])
+            .addPlaceholders(placeholders[i])
+            .identifierRange(Source.Range.of(source.get(ranges[r]), source.get(ranges[r + 1])))
+            .statementsRange(Source.Range.of(source.get(ranges[r + 2]), source.get(ranges[r + 3])))
+            .preparedStatements(statements[i])
+            .build();
+        accessMethods[i] = methods.get(names[i]);
+        profiles[i] = profileMethod(accessMethods[i], snippets[i], resolver);
+      }
+      return new Calls(this, source, accessMethods, snippets, profiles);
+    }
+  }
+
+  /**
+   * Executes access methods for the accessor implementation generated at compile time, methods are
+   * referred to by index, so there's no proxy dispatch and no lookup by name.
+   */
+  public static final class Calls {
+    private static final Object[] NO_ARGUMENTS = {};
+
+    private final Setup setup;
+    private final @Nullable SqlSource source;
+    private final Method[] methods;
+    private final MethodSnippet[] snippets;
+    private final MethodProfile[] profiles;
+
+    private Calls(
+        Setup setup,
+        @Nullable SqlSource source,
+        Method[] methods,
+        MethodSnippet[] snippets,
+        MethodProfile[] profiles) {
+      this.setup = setup;
+      this.source = source;
+      this.methods = methods;
+      this.snippets = snippets;
+      this.profiles = profiles;
+    }
+
+    public @Nullable Object invoke(int index) {
+      return invoke(index, NO_ARGUMENTS);
+    }
+
+    /**
+     * Invokes method by index. Checked exceptions are rethrown as is if declared by the method and are
+     * wrapped in {@link UndeclaredThrowableException} otherwise, the same way as proxy would do.
+     */
+    public @Nullable Object invoke(int index, Object[] args) {
+      return dispatch(setup.provider, setup.listener, setup.executor, setup.accessor, source,
+          methods[index], snippets[index], profiles[index], args);
+    }
+
+    public ConnectionProvider.Handle connectionHandle() {
+      try {
+        return setup.provider.handle();
+      } catch (SQLException ex) {
+        throw new UndeclaredThrowableException(ex);
+      }
+    }
+  }
+
+  /**
+   * Executes method or, if it returns future, schedules execution on the executor. Checked exceptions are
+   * rethrown as is if declared by the method and are wrapped in {@link UndeclaredThrowableException}
+   * otherwise, the same way as proxy would do. Future is completed exceptionally with the original
+   * exception (like {@link SQLException}) as a cause.
+   */
+  private static @Nullable Object dispatch(
+      ConnectionProvider provider,
+      @Nullable SqlListener listener,
+      @Nullable Executor executor,
+      Class<?> accessor,
+      @Nullable SqlSource source,
+      Method method,
+      MethodSnippet snippet,
+      MethodProfile profile,
+      Object[] args) {
+    if (profile.returnFuture()) {
+      return CompletableFuture.supplyAsync(() -> {
+        try {
+          return execute(provider, listener, accessor, source, method, snippet, profile, args);
+        } catch (Exception ex) {
+          throw Unreachable.<RuntimeException>uncheckedThrow(ex);
+        }
+      }, executor != null ? executor : DefaultExecutor.instance);
+    }
+    try {
+      return execute(provider, listener, accessor, source, method, snippet, profile, args);
+    } catch (RuntimeException ex) {
+      throw ex;
+    } catch (Exception ex) {
+      for (Class<?> declared : method.getExceptionTypes()) {
+        if (declared.isInstance(ex)) throw Unreachable.<RuntimeException>uncheckedThrow(ex);
+      }
+      throw new UndeclaredThrowableException(ex);
+    }
+  }
+
+  private static @Nullable Object execute(
+      ConnectionProvider provider,
+      @Nullable SqlListener listener,
+      Class<?> accessor,
+      @Nullable SqlSource source,
+      Method method,
+      MethodSnippet snippet,
+      MethodProfile profile,
+      Object[] args) throws SQLException, IOException {
+    if (listener == null) {
+      try (ConnectionProvider.Handle handle = provider.handle();
+          PreparedStatement statement = handle.connection.prepareStatement(snippet.preparedStatements())) {
+        prepareStatement(statement, profile, args);
+        return executeStatement(statement, profile, null);
+      } catch (SQLException sqlException) {
+        throw Errors.refineException(source, method, snippet, sqlException);
+      }
+    }
+
+    Metering metering = new Metering();
+    long started = System.nanoTime();
+    long prepared = started;
+    int batchSize = 0;
+    @Nullable Exception failure = null;
+    try (ConnectionProvider.Handle handle = provider.handle();
+        PreparedStatement statement = handle.connection.prepareStatement(snippet.preparedStatements())) {
+      batchSize = prepareStatement(statement, profile, args);
+      prepared = System.nanoTime();
+      return executeStatement(statement, profile, metering);
+    } catch (SQLException sqlException) {
+      failure = sqlException;
+      throw Errors.refineException(source, method, snippet, sqlException);
+    } catch (IOException decodingFailed) {
+      failure = decodingFailed;
+      throw decodingFailed;
+    } catch (RuntimeException unexpected) {
+      failure = unexpected;
+      throw unexpected;
+    } finally {
+      long finished = System.nanoTime();
+      if (prepared == started) prepared = finished; // failed before statement was executed
+      listener.executed(new SqlListener.Execution(
+          accessor, source, snippet,
+          prepared - started,
+          finished - prepared - metering.decodeNanos,
+          metering.decodeNanos,
+          metering.rows,
+          batchSize,
+          failure));
+    }
+  }
+
+  /** Collects decoding time and row count while executing statement. */
+  private static final class Metering {
+    long decodeNanos;
+    int rows;
+
+    Object decode(Codec<Object> codec, Coding.ResultSetIn in) throws IOException {
+      long started = System.nanoTime();
+      try {
+        return codec.decode(in);
+      } finally {
+        decodeNanos += System.nanoTime() - started;
+        rows += in.rows();
+      }
+    }
+  }
+
+  /**
+   * Used for methods returning {@link CompletableFuture} when no executor is specified. Virtual thread per
+   * task executor is looked up reflectively, as we still compile for the JVM versions which don't have it.
+   * Otherwise, pool of threads has bounded queue and, when it is full, calls are run by the calling thread,
+   * which slows down callers instead of queueing unbounded number of calls.
+   */
+  private static final class DefaultExecutor {
+    private static final int QUEUED_PER_THREAD = 64;
+
+    static final Executor instance = create();
+
+    private static Executor create() {
+      try {
+        return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (ReflectiveOperationException noVirtualThreads) {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            threads, threads,
+            30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(threads * QUEUED_PER_THREAD),
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("regresql-%d")
+                .build(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+      }
+    }
+  }
+
   private static boolean isConnectionHandleMethod(Method method) {
     return SqlAccessor.class.isAssignableFrom(method.getDeclaringClass())
         && method.getName().equals("connectionHandle")
         && method.getParameterCount() == 0;
   }
 
-  private static void prepareStatement(
+  /** Binds arguments to the statement, returns number of batch entries added or {@code 0} if not batching. */
+  private static int prepareStatement(
       PreparedStatement statement,
       MethodProfile profile,
-      MethodSnippet snippet,
       Object[] args) throws SQLException, IOException {
 
     Vect<ParameterProfile> parameters = profile.parameters();
-    StatementParameterOut out = new Coding.StatementParameterOut(profile.parameterIndex());
+    StatementParameterOut out = new Coding.StatementParameterOut(profile.parameterPlan());
 
     if (profile.useBatching()) {
       int batchIndex = profile.batchParameter().orElseThrow(AssertionError::new);
@@ -375,11 +711,13 @@ public final class Regresql {
       }
       ParameterProfile batcher = parameters.get(batchIndex);
       Object batch = args[batchIndex];
+      int batchSize = 0;
       if (batch instanceof Iterable<?>) {
         for (Object o : (Iterable<?>) batch) {
           putArgument(out, batcher, batchIndex, o);
-          fillStatement(statement, snippet.placeholders(), out);
+          out.fill(statement);
           statement.addBatch();
+          batchSize++;
         }
       } else {
         assert batch.getClass().isArray();
@@ -387,15 +725,18 @@ public final class Regresql {
         for (int i = 0; i < length; i++) {
           Object o = Array.get(batch, i);
           putArgument(out, batcher, batchIndex, o);
-          fillStatement(statement, snippet.placeholders(), out);
+          out.fill(statement);
           statement.addBatch();
         }
+        batchSize = length;
       }
+      return batchSize;
     } else {
       for (int i = 0; i < parameters.size(); i++) {
         putArgument(out, parameters.get(i), i, args[i]);
       }
-      fillStatement(statement, snippet.placeholders(), out);
+      out.fill(statement);
+      return 0;
     }
   }
 
@@ -403,28 +744,11 @@ public final class Regresql {
       throws IOException {
     out.putField(index);
     if (p.spread().isPresent()) {
-      out.spread(p.spread().get());
+      out.spread();
     }
     p.codec().encode(out, value);
   }
 
-  private static void fillStatement(
-      PreparedStatement statement,
-      Vect<String> placeholders,
-      StatementParameterOut out) throws SQLException, IOException {
-    int i = 1;
-    for (String p : placeholders) {
-      Object value = out.get(p);
-      if (value instanceof Instant) {
-        // Experimental, only for instant for now
-        statement.setTimestamp(i, new Timestamp(((Instant) value).toEpochMilli()));
-      } else {
-        statement.setObject(i, value);
-      }
-      i++;
-    }
-  }
-
   private static SqlSource loadSqlSource(Class<?> accessorInterface) throws AssertionError {
     String filename = resourceFilenameFor(accessorInterface);
     URL resource = accessorInterface.getResource(filename);
@@ -459,6 +783,16 @@ public final class Regresql {
 
   private static ImmutableMap<String, MethodSnippet> parseSnippets(SqlSource source, Set<String> methods) {
     Vect<MethodSnippet> snippets = parse(source.content(), source.lines());
+    List<Source.Problem> problems = snippetProblems(source, snippets, methods);
+
+    if (!problems.isEmpty()) throw new RuntimeException(
+        "\n" + Joiner.on("\n").join(problems));
+
+    return Maps.uniqueIndex(snippets, MethodSnippet::name);
+  }
+
+  /** Mismatches between snippets in SQL source and access methods, also reported at compile time. */
+  static List<Source.Problem> snippetProblems(SqlSource source, Vect<MethodSnippet> snippets, Set<String> methods) {
     ImmutableListMultimap<String, MethodSnippet> byName = Multimaps.index(snippets, m -> m.name());
 
     List<Source.Problem> problems = new ArrayList<>();
@@ -498,10 +832,7 @@ public final class Regresql {
       }
     }
 
-    if (!problems.isEmpty()) throw new RuntimeException(
-        "\n" + Joiner.on("\n").join(problems));
-
-    return Maps.uniqueIndex(snippets, MethodSnippet::name);
+    return problems;
   }
 
   private static Set<String> uniqueAccessMethods(Class<?> accessorInterface) {
@@ -540,7 +871,7 @@ public final class Regresql {
     return "/" + resourceFilename + ".sql";
   }
 
-  private static Vect<MethodSnippet> parse(CharSequence content, Source.Lines lines) {
+  static Vect<MethodSnippet> parse(CharSequence content, Source.Lines lines) {
     Vect.Builder<MethodSnippet> allMethods = Vect.builder();
 
     class Parser {
@@ -665,7 +996,7 @@ public final class Regresql {
     return allMethods.build();
   }
 
-  static Object executeStatement(PreparedStatement statement, MethodProfile profile)
+  static Object executeStatement(PreparedStatement statement, MethodProfile profile, @Nullable Metering metering)
       throws SQLException, IOException {
 
     Type returnType = profile.returnType();
@@ -706,7 +1037,7 @@ public final class Regresql {
         if (voidUpdateCount) {
           returnValue = null;
         } else if (largeUpdateCount) { // long update count
-          List<Long> updates = new ArrayList<>();
+          LongVect.Builder updates = LongVect.builderWithExpectedSize(1);
           for (long count; ; ) {
             count = statement.getLargeUpdateCount();
             if (count >= 0) {
@@ -716,12 +1047,12 @@ public final class Regresql {
             hasResultSet = statement.getMoreResults();
           }
           if (sumUpdateCount) {
-            returnValue = updates.stream().mapToLong(l -> l).sum();
+            returnValue = updates.build().sum();
           } else {
-            returnValue = updates.stream().mapToLong(l -> l).toArray();
+            returnValue = updates.build().toArray();
           }
         } else { // int update count
-          List<Integer> updates = new ArrayList<>();
+          IntVect.Builder updates = IntVect.builderWithExpectedSize(1);
           for (int count; ; ) {
             count = statement.getUpdateCount();
             if (count >= 0) {
@@ -731,9 +1062,9 @@ public final class Regresql {
             hasResultSet = statement.getMoreResults();
           }
           if (sumUpdateCount) {
-            returnValue = updates.stream().mapToInt(l -> l).sum();
+            returnValue = (int) updates.build().sum();
           } else {
-            returnValue = updates.stream().mapToInt(l -> l).toArray();
+            returnValue = updates.build().toArray();
           }
         }
       } else { // reading result set (not update count)
@@ -745,7 +1076,7 @@ public final class Regresql {
 
         if (hasResultSet) {
           Coding.ResultSetIn in = new Coding.ResultSetIn(statement.getResultSet());
-          returnValue = codec.decode(in);
+          returnValue = metering != null ? metering.decode(codec, in) : codec.decode(in);
           wasResultSet = true;
         }
 
@@ -759,7 +1090,7 @@ public final class Regresql {
                 "Only single result set can be processes, Use sql UNION ALL to merge multiple results");
 
             Coding.ResultSetIn in = new Coding.ResultSetIn(statement.getResultSet());
-            returnValue = codec.decode(in);
+            returnValue = metering != null ? metering.decode(codec, in) : codec.decode(in);
             wasResultSet = true;
           }
         }
@@ -6,6 +6,15 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 public interface SqlAccessor {
+	/**
+	 * Generates implementation of the access interface at compile time, having SQL snippets parsed into
+	 * constants, instead of creating reflection proxy at runtime. Requires {@code RegresqlProcessor}
+	 * annotation processor, when implementation is not generated, proxy will be used as usual.
+	 */
+	@Retention(RetentionPolicy.CLASS)
+	@Target(ElementType.TYPE)
+	public @interface Generate {}
+
 	/**
 	 * Applicable to int, long, int[], long[]. When non-array form is used, the returned cound will be
 	 * the sum of all update counts where multiple update counts could be returned for either multiple
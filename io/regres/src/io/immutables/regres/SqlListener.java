@@ -0,0 +1,88 @@
+package io.immutables.regres;
+
+import io.immutables.Nullable;
+import io.immutables.Source;
+import java.io.IOException;
+import java.sql.SQLException;
+
+/**
+ * Receives measurements for each call of SQL access method. Listener is notified on the thread which
+ * executed the statement (which is an executor thread for asynchronous methods), so implementations should
+ * be thread-safe and quick. See {@link SqlMetrics} for the aggregating implementation.
+ */
+public interface SqlListener {
+  void executed(Execution execution);
+
+  /**
+   * Timings and counts for a single call of access method. Prepare phase includes connection acquisition,
+   * statement preparation and parameter binding, decode phase is time spent reading and converting
+   * result sets, execute phase is the rest of statement execution.
+   */
+  final class Execution {
+    public final Class<?> accessor;
+    public final String method;
+    public final long prepareNanos;
+    public final long executeNanos;
+    public final long decodeNanos;
+    /** Number of result set rows read. */
+    public final int rows;
+    /** Number of batch entries if executed as batch, otherwise {@code 0}. */
+    public final int batchSize;
+    /** Failure of the call, {@link SQLException} or {@link IOException} if result could not be decoded. */
+    public final @Nullable Exception exception;
+    private final @Nullable Regresql.SqlSource source;
+    private final Regresql.MethodSnippet snippet;
+
+    Execution(
+        Class<?> accessor,
+        @Nullable Regresql.SqlSource source,
+        Regresql.MethodSnippet snippet,
+        long prepareNanos,
+        long executeNanos,
+        long decodeNanos,
+        int rows,
+        int batchSize,
+        @Nullable Exception exception) {
+      this.accessor = accessor;
+      this.method = snippet.name();
+      this.source = source;
+      this.snippet = snippet;
+      this.prepareNanos = prepareNanos;
+      this.executeNanos = executeNanos;
+      this.decodeNanos = decodeNanos;
+      this.rows = rows;
+      this.batchSize = batchSize;
+      this.exception = exception;
+    }
+
+    public long totalNanos() {
+      return prepareNanos + executeNanos + decodeNanos;
+    }
+
+    /** Name of {@code .sql} classpath resource containing statements. */
+    public String filename() {
+      return source != null ? source.filename() : "";
+    }
+
+    /** Range of statements in the {@code .sql} source for the method. */
+    public Source.Range range() {
+      return snippet.statementsRange();
+    }
+
+    /** Problem-like excerpt of the method statements in the {@code .sql} source, suitable for logging. */
+    public String describe(String message, String hint) {
+      if (source == null) return message + " " + hint;
+      return source.problemAt(range(), message, hint).toString();
+    }
+
+    @Override
+    public String toString() {
+      return accessor.getSimpleName() + "." + method + (exception != null ? " failed" : "")
+          + " prepare " + prepareNanos / 1000 + "\u00b5s"
+          + ", execute " + executeNanos / 1000 + "\u00b5s"
+          + ", decode " + decodeNanos / 1000 + "\u00b5s"
+          + ", rows " + rows
+          + (batchSize > 0 ? ", batch " + batchSize : "");
+    }
+  }
+}
@@ -0,0 +1,277 @@
+package io.immutables.regres;
+
+import com.google.common.collect.ImmutableMap;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Aggregating {@link SqlListener}: keeps per access method counters and latency histograms for prepare, execute and
+ * decode phases. Executions taking longer than slow query threshold are logged together with the excerpt of
+ * statements from the {@code .sql} source and are kept in a short list of recent slow queries.
+ */
+public final class SqlMetrics implements SqlListener {
+  private static final Logger logger = Logger.getLogger(SqlMetrics.class.getName());
+  private static final int RECENT_SLOW_LIMIT = 16;
+
+  private final ConcurrentMap<String, MethodMetrics> byMethod = new ConcurrentHashMap<>();
+  private final Deque<Slow> recentSlow = new ArrayDeque<>();
+  private final long slowThresholdNanos;
+
+  public SqlMetrics(Duration slowQueryThreshold) {
+    this.slowThresholdNanos = slowQueryThreshold.toNanos();
+  }
+
+  @Override
+  public void executed(Execution execution) {
+    byMethod.computeIfAbsent(execution.accessor.getName() + "." + execution.method, MethodMetrics::new)
+        .record(execution);
+
+    long total = execution.totalNanos();
+    if (total >= slowThresholdNanos) {
+      Slow slow = new Slow(execution.accessor.getSimpleName() + "." + execution.method, total,
+          execution.filename() + ":" + execution.range().begin);
+      synchronized (recentSlow) {
+        if (recentSlow.size() == RECENT_SLOW_LIMIT) recentSlow.removeFirst();
+        recentSlow.addLast(slow);
+      }
+      if (logger.isLoggable(Level.WARNING)) {
+        logger.warning(execution.describe(
+            "Slow query " + execution.accessor.getSimpleName() + "." + execution.method
+                + " took " + total / 1_000_000 + "ms",
+            execution.toString()));
+      }
+    }
+  }
+
+  /** Per method statistics keyed by accessor class name and method name: {@code "com.acme.Dao.method"}. */
+  public Map<String, Stats> snapshot() {
+    ImmutableMap.Builder<String, Stats> builder = ImmutableMap.builder();
+    byMethod.forEach((name, metrics) -> builder.put(name, metrics.snapshot()));
+    return builder.build();
+  }
+
+  /**
+   * Logs current statistics of each access method. Statistics change with every query, so they are logged on
+   * demand, like on shutdown, rather than reported on change.
+   */
+  public void logSnapshot() {
+    if (logger.isLoggable(Level.INFO)) {
+      snapshot().values().forEach(stats -> logger.info("SQL stats " + stats));
+    }
+  }
+
+  /** Recently logged slow queries, oldest first. */
+  public List<Slow> recentSlowQueries() {
+    synchronized (recentSlow) {
+      return List.copyOf(recentSlow);
+    }
+  }
+
+  public static final class Slow {
+    public final String method;
+    public final long nanos;
+    /** Location of statements in {@code .sql} source, like {@code "/com/acme/Dao.sql:12:1"}. */
+    public final String location;
+
+    Slow(String method, long nanos, String location) {
+      this.method = method;
+      this.nanos = nanos;
+      this.location = location;
+    }
+
+    @Override
+    public String toString() {
+      return method + " " + nanos / 1_000_000 + "ms " + location;
+    }
+  }
+
+  /** Statistics of access method, equal if nothing was recorded between snapshots. */
+  public static final class Stats {
+    public final String method;
+    public final long calls;
+    public final long errors;
+    public final long rows;
+    public final long batchEntries;
+    public final Histogram prepare;
+    public final Histogram execute;
+    public final Histogram decode;
+
+    Stats(
+        String method,
+        long calls,
+        long errors,
+        long rows,
+        long batchEntries,
+        Histogram prepare,
+        Histogram execute,
+        Histogram decode) {
+      this.method = method;
+      this.calls = calls;
+      this.errors = errors;
+      this.rows = rows;
+      this.batchEntries = batchEntries;
+      this.prepare = prepare;
+      this.execute = execute;
+      this.decode = decode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Stats)) return false;
+      Stats s = (Stats) o;
+      return method.equals(s.method)
+          && calls == s.calls
+          && errors == s.errors
+          && rows == s.rows
+          && batchEntries == s.batchEntries
+          && prepare.equals(s.prepare)
+          && execute.equals(s.execute)
+          && decode.equals(s.decode);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(method, calls, errors, rows, batchEntries);
+    }
+
+    @Override
+    public String toString() {
+      return method + " calls=" + calls + " errors=" + errors + " rows=" + rows
+          + (batchEntries > 0 ? " batch=" + batchEntries : "")
+          + " prepare" + prepare + " execute" + execute + " decode" + decode;
+    }
+  }
+
+  /**
+   * Snapshot of latency histogram with power of 2 microsecond buckets: bucket {@code i} counts durations
+   * less than {@code 2^i} microseconds (but not less than the previous bucket bound), the last bucket
+   * collects everything beyond.
+   */
+  public static final class Histogram {
+    static final int BUCKETS = 32;
+    private final long[] counts;
+    private final long count;
+    private final long sumNanos;
+
+    Histogram(long[] counts, long sumNanos) {
+      this.counts = counts;
+      this.sumNanos = sumNanos;
+      long c = 0;
+      for (long n : counts) c += n;
+      this.count = c;
+    }
+
+    public long count() {
+      return count;
+    }
+
+    public long count(int bucket) {
+      return counts[bucket];
+    }
+
+    public long meanNanos() {
+      return count > 0 ? sumNanos / count : 0;
+    }
+
+    /** Upper bound (in nanoseconds) of the bucket which contains specified quantile. */
+    public long quantileNanos(double quantile) {
+      if (count == 0) return 0;
+      long rank = (long) Math.ceil(quantile * count);
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) return (1L << i) * 1000;
+      }
+      return Long.MAX_VALUE;
+    }
+
+    static int bucketOf(long nanos) {
+      long micros = nanos / 1000;
+      return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Histogram
+          && sumNanos == ((Histogram) o).sumNanos
+          && Arrays.equals(counts, ((Histogram) o).counts);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(counts);
+    }
+
+    @Override
+    public String toString() {
+      return "(mean=" + meanNanos() / 1000 + "\u00b5s"
+          + " p50\u2264" + quantileNanos(0.5) / 1000 + "\u00b5s"
+          + " p99\u2264" + quantileNanos(0.99) / 1000 + "\u00b5s)";
+    }
+  }
+
+  private static final class Recorder {
+    private final AtomicLongArray counts = new AtomicLongArray(Histogram.BUCKETS);
+    private final LongAdder sumNanos = new LongAdder();
+
+    void record(long nanos) {
+      counts.incrementAndGet(Histogram.bucketOf(nanos));
+      sumNanos.add(nanos);
+    }
+
+    Histogram snapshot() {
+      long[] c = new long[Histogram.BUCKETS];
+      for (int i = 0; i < c.length; i++) {
+        c[i] = counts.get(i);
+      }
+      return new Histogram(c, sumNanos.sum());
+    }
+  }
+
+  private static final class MethodMetrics {
+    private final String method;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder batchEntries = new LongAdder();
+    private final Recorder prepare = new Recorder();
+    private final Recorder execute = new Recorder();
+    private final Recorder decode = new Recorder();
+
+    MethodMetrics(String method) {
+      this.method = method;
+    }
+
+    void record(Execution e) {
+      calls.increment();
+      if (e.exception != null) errors.increment();
+      rows.add(e.rows);
+      batchEntries.add(e.batchSize);
+      prepare.record(e.prepareNanos);
+      execute.record(e.executeNanos);
+      decode.record(e.decodeNanos);
+    }
+
+    Stats snapshot() {
+      return new Stats(method,
+          calls.sum(),
+          errors.sum(),
+          rows.sum(),
+          batchEntries.sum(),
+          prepare.snapshot(),
+          execute.snapshot(),
+          decode.snapshot());
+    }
+  }
+}
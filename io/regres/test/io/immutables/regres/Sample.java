@@ -5,6 +5,7 @@ import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface Sample extends SqlAccessor {
 	@UpdateCount
@@ -79,4 +80,11 @@ public interface Sample extends SqlAccessor {
   @Single
   @Column
   String insertAndGetJsonb(@Named("map") @Jsonb Map<String, Integer> map) throws SQLException;
+
+  @Single
+  @Column
+  CompletableFuture<String> selectConcatAsync(@Named("a") String a, @Named("b") String b);
+
+  @UpdateCount
+  CompletableFuture<Integer> selectFailAsync();
 }
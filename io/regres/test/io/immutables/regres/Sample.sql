@@ -95,3 +95,11 @@ select a || '-' || b from chu;
 insert into bu(a, b, c) values (999, 'JSONB', :map::jsonb);
 
 select c from bu where a = 999
+
+--.selectConcatAsync
+
+select :a || :b;
+
+--.selectFailAsync
+
+select * from not_existing_table;
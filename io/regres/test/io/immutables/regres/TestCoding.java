@@ -0,0 +1,340 @@
+package io.immutables.regres;
+
+import io.immutables.Nullable;
+import io.immutables.codec.Codec;
+import io.immutables.codec.Codec.FieldIndex;
+import io.immutables.codec.Codec.In;
+import io.immutables.codec.Codecs;
+import io.immutables.codec.OkJson;
+import io.immutables.codec.Resolver;
+import io.immutables.collect.Vect;
+import okio.Buffer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import com.google.common.reflect.TypeToken;
+import com.squareup.moshi.JsonReader;
+import com.squareup.moshi.JsonWriter;
+import org.junit.Test;
+import static io.immutables.that.Assert.that;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+public class TestCoding {
+	@Test
+	public void columnsMappedToKnownFields() throws Exception {
+		FieldIndex fields = Codec.knownFields("a", "b");
+		ResultSet results = results(new String[] {"a", "x", "b"}, new int[] {Types.INTEGER, Types.VARCHAR, Types.VARCHAR},
+				new Object[] {1, "X", "B"},
+				new Object[] {2, "Y", null});
+
+		that(rows(new Coding.ResultSetIn(results), fields)).isOf("a=1 b=B", "a=2 b=null");
+	}
+
+	@Test
+	public void columnPlanKeepsFieldIndexIntact() throws Exception {
+		FieldIndex fields = Codec.knownFields("a", "b");
+		fields.put("cached by other codec");
+		ResultSet results = results(new String[] {"b", "z"}, new int[] {Types.BIGINT, Types.VARCHAR},
+				new Object[] {3L, "Z"});
+
+		that(rows(new Coding.ResultSetIn(results), fields)).isOf("b=3");
+		that(fields.get()).same("cached by other codec");
+		that(fields.count()).is(2);
+	}
+
+	@Test
+	public void columnPlansForDifferentLabels() throws Exception {
+		FieldIndex fields = Codec.knownFields("a", "b");
+		for (int i = 0; i < 2; i++) {
+			ResultSet ab = results(new String[] {"a", "b"}, new int[] {Types.INTEGER, Types.INTEGER},
+					new Object[] {1, 2});
+			ResultSet ba = results(new String[] {"b", "a"}, new int[] {Types.INTEGER, Types.INTEGER},
+					new Object[] {3, 4});
+
+			that(rows(new Coding.ResultSetIn(ab), fields)).isOf("a=1 b=2");
+			that(rows(new Coding.ResultSetIn(ba), fields)).isOf("b=3 a=4");
+		}
+	}
+
+	@Test
+	public void unknownColumnsSkippedAfterIndexGrows() throws Exception {
+		FieldIndex fields = Codec.knownFields("a");
+		ResultSet before = results(new String[] {"a"}, new int[] {Types.INTEGER},
+				new Object[] {1});
+		that(rows(new Coding.ResultSetIn(before), fields)).isOf("a=1");
+
+		// some other codec reading unknown field auto-grows index
+		fields.nameToIndex("y");
+
+		ResultSet after = results(new String[] {"a", "y"}, new int[] {Types.INTEGER, Types.VARCHAR},
+				new Object[] {2, "Y"});
+		that(rows(new Coding.ResultSetIn(after), fields)).isOf("a=2");
+	}
+
+	@Test
+	public void jsonbRegisteredCodec() throws Exception {
+		Resolver resolver = Codecs.builtin()
+				.add(new OkJson.JsonStringFactory("  "), Jsonbs.of(), 0)
+				.toResolver();
+		Codec<Map<String, Integer>> codec = Coding.wrap(resolver).get(MAP_TYPE, Jsonbs.of());
+
+		that(codec).same(resolver.get(MAP_TYPE, Jsonbs.of()));
+		String json = encodeString(codec, Map.of("a", 1));
+		that(json).is("{\n  \"a\": 1\n}");
+		that(decodeString(codec, json)).equalTo(Map.of("a", 1));
+	}
+
+	@Test
+	public void jsonbStreamingFactory() throws Exception {
+		Resolver resolver = Codecs.builtin()
+				.add(Jsonbs.codecs(), Jsonbs.of(), 0)
+				.toResolver();
+		Codec<Map<String, Integer>> codec = Coding.wrap(resolver).get(MAP_TYPE, Jsonbs.of());
+
+		that(codec).instanceOf(Coding.JsonbCodec.class);
+		that(decodeString(codec, encodeString(codec, Map.of("a", 1)))).equalTo(Map.of("a", 1));
+	}
+
+	@Test
+	public void jsonbFallbackCodec() throws Exception {
+		Resolver resolver = Codecs.builtin().toResolver();
+		Codec<Map<String, Integer>> codec = Coding.wrap(resolver).get(MAP_TYPE, Jsonbs.of());
+
+		that(codec).instanceOf(Coding.JsonbCodec.class);
+		String json = encodeString(codec, Map.of("a", 1));
+		that(json).is("{\"a\":1}");
+		that(decodeString(codec, json)).equalTo(Map.of("a", 1));
+
+		// column bytes as received for binary jsonb, with leading version byte
+		ResultSet results = results(new String[] {"j"}, new int[] {Types.OTHER},
+				new Object[] {"\u0001" + json});
+		In in = new Coding.ResultSetIn(results);
+		in.beginArray();
+		in.beginStruct(Codec.arbitraryFields());
+		in.takeField();
+		that(codec.decode(in)).equalTo(Map.of("a", 1));
+	}
+
+	@Test
+	public void typedSetters() throws Exception {
+		Coding.ParameterPlan plan = Coding.ParameterPlan.compile(
+				Vect.of("i", "l", "d", "b", "s", "i", "n", "t"),
+				Vect.of(parameter("i"), parameter("l"), parameter("d"), parameter("b"),
+						parameter("s"), parameter("n"), parameter("t")));
+		Coding.StatementParameterOut out = new Coding.StatementParameterOut(plan);
+		Instant instant = Instant.ofEpochMilli(1000);
+
+		out.putField(0);
+		out.putInt(1);
+		out.putField(1);
+		out.putLong(2L);
+		out.putField(2);
+		out.putDouble(0.5);
+		out.putField(3);
+		out.putBoolean(true);
+		out.putField(4);
+		out.putString("S");
+		out.putField(5);
+		out.putNull();
+		out.putField(6);
+		out.putSpecial(instant);
+
+		List<String> calls = new ArrayList<>();
+		out.fill(statement(calls));
+		that(calls).isOf(
+				"setInt(1, 1)",
+				"setLong(2, 2)",
+				"setDouble(3, 0.5)",
+				"setBoolean(4, true)",
+				"setString(5, S)",
+				"setInt(6, 1)",
+				"setObject(7, null)",
+				"setTimestamp(8, " + new Timestamp(1000) + ")");
+
+		Map<String, Object> values = new HashMap<>();
+		values.put("i", 1);
+		values.put("l", 2L);
+		values.put("d", 0.5);
+		values.put("b", true);
+		values.put("s", "S");
+		values.put("n", null);
+		values.put("t", instant);
+		that(out.adapts()).equalTo(values);
+	}
+
+	@Test
+	public void unsetPlaceholder() throws Exception {
+		Coding.ParameterPlan plan = Coding.ParameterPlan.compile(
+				Vect.of("a", "b"),
+				Vect.of(parameter("a"), parameter("b")));
+		Coding.StatementParameterOut out = new Coding.StatementParameterOut(plan);
+		out.putField(0);
+		out.putInt(1);
+
+		that(out.adapts()).equalTo(Map.of("a", 1));
+		that(() -> out.fill(statement(new ArrayList<>()))).thrown(IOException.class);
+	}
+
+	@Test
+	public void spreadSlots() throws Exception {
+		Coding.ParameterPlan plan = Coding.ParameterPlan.compile(
+				Vect.of("u.b", "c", "u.a"),
+				Vect.of(parameter("u", "u."), parameter("c")));
+		FieldIndex fields = Codec.knownFields("a", "b");
+		FieldIndex other = Codec.knownFields("b", "x");
+
+		int[] slots = plan.spreadSlots(0, fields);
+		that(slots).isOf(plan.slotOf("u.a"), plan.slotOf("u.b"));
+		that(plan.spreadSlots(0, fields) == slots).is(true);
+		that(plan.spreadSlots(0, other)).isOf(plan.slotOf("u.b"), -1);
+
+		Coding.StatementParameterOut out = new Coding.StatementParameterOut(plan);
+		out.putField(1);
+		out.putString("C");
+		out.putField(0);
+		out.spread();
+		out.beginStruct(fields);
+		out.putField(1);
+		out.putString("B");
+		out.putField(0);
+		out.putString("A");
+		out.endStruct();
+
+		List<String> calls = new ArrayList<>();
+		out.fill(statement(calls));
+		that(calls).isOf("setString(1, B)", "setString(2, C)", "setString(3, A)");
+	}
+
+	@Test
+	public void spreadDynamicFields() throws Exception {
+		Coding.ParameterPlan plan = Coding.ParameterPlan.compile(
+				Vect.of("a", "b"),
+				Vect.of(parameter("m", "")));
+		Codec<Map<String, String>> codec = Codecs.builtin().toResolver().get(new TypeToken<Map<String, String>>() {});
+
+		Coding.StatementParameterOut out = new Coding.StatementParameterOut(plan);
+		out.putField(0);
+		out.spread();
+		codec.encode(out, Map.of("b", "B", "a", "A", "z", "Z"));
+
+		List<String> calls = new ArrayList<>();
+		out.fill(statement(calls));
+		that(calls).isOf("setString(1, A)", "setString(2, B)");
+	}
+
+	private static Regresql.ParameterProfile parameter(String name) {
+		return parameter(name, null);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Regresql.ParameterProfile parameter(String name, @Nullable String spread) {
+		return new Regresql.ParameterProfile.Builder()
+				.name(name)
+				.batch(false)
+				.spread(Optional.ofNullable(spread))
+				.codec((Codec<Object>) (Codec<?>) Codecs.builtin().toResolver().get(String.class))
+				.type(TypeToken.of(String.class))
+				.build();
+	}
+
+	/** Prepared statement which records parameter setter calls. */
+	private static PreparedStatement statement(List<String> calls) {
+		return proxy(PreparedStatement.class, (method, args) -> {
+			calls.add(method + "(" + args[0] + ", " + args[1] + ")");
+			return null;
+		});
+	}
+
+	private static <T> String encodeString(Codec<T> codec, T value) throws IOException {
+		Buffer buffer = new Buffer();
+		codec.encode(OkJson.out(JsonWriter.of(buffer)), value);
+		return JsonReader.of(buffer).nextString();
+	}
+
+	private static <T> T decodeString(Codec<T> codec, String json) throws IOException {
+		Buffer buffer = new Buffer();
+		JsonWriter.of(buffer).value(json).flush();
+		return codec.decode(OkJson.in(JsonReader.of(buffer)));
+	}
+
+	private static final TypeToken<Map<String, Integer>> MAP_TYPE = new TypeToken<>() {};
+
+	private static List<String> rows(In in, FieldIndex fields) throws IOException {
+		List<String> rows = new ArrayList<>();
+		in.beginArray();
+		while (in.hasNext()) {
+			StringBuilder row = new StringBuilder();
+			in.beginStruct(fields);
+			while (in.hasNext()) {
+				@Codec.Field int f = in.takeField();
+				if (row.length() > 0) row.append(' ');
+				row.append(fields.indexToName(f)).append('=');
+				if (in.peek() == Codec.At.NULL) {
+					in.takeNull();
+					row.append("null");
+				} else {
+					row.append(in.takeString());
+				}
+			}
+			in.endStruct();
+			rows.add(row.toString());
+		}
+		in.endArray();
+		return rows;
+	}
+
+	/** Result set over in-memory rows, supports only what {@link Coding.ResultSetIn} calls. */
+	static ResultSet results(String[] labels, int[] types, Object[]... rows) {
+		ResultSetMetaData meta = proxy(ResultSetMetaData.class, (method, args) -> {
+			switch (method) { // @formatter:off
+			case "getColumnCount": return labels.length;
+			case "getColumnLabel": return labels[(int) args[0] - 1];
+			case "getColumnType": return types[(int) args[0] - 1];
+			case "getPrecision": return 0;
+			default: throw new UnsupportedOperationException(method);
+			} // @formatter:on
+		});
+		int[] row = {-1};
+		Object[] last = {null};
+		return proxy(ResultSet.class, (method, args) -> {
+			switch (method) { // @formatter:off
+			case "getMetaData": return meta;
+			case "next": return ++row[0] < rows.length;
+			case "wasNull": return last[0] == null;
+			default:
+			} // @formatter:on
+			Object v = last[0] = rows[row[0]][(int) args[0] - 1];
+			switch (method) { // @formatter:off
+			case "getInt": return v != null ? ((Number) v).intValue() : 0;
+			case "getLong": return v != null ? ((Number) v).longValue() : 0L;
+			case "getDouble": return v != null ? ((Number) v).doubleValue() : 0.0;
+			case "getBoolean": return v != null && (Boolean) v;
+			case "getString": return v != null ? v.toString() : null;
+			case "getObject": return v;
+			case "getBinaryStream": return v != null ? new ByteArrayInputStream(v.toString().getBytes(UTF_8)) : null;
+			default: throw new UnsupportedOperationException(method);
+			} // @formatter:on
+		});
+	}
+
+	interface Handler {
+		Object handle(String method, Object[] args) throws SQLException;
+	}
+
+	static <T> T proxy(Class<T> type, Handler handler) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+				(p, method, args) -> handler.handle(method.getName(), args)));
+	}
+}
@@ -8,6 +8,7 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -84,4 +85,10 @@ public class TestRegresql {
     that(jsonb).is("{\"a\": 1}"); // mind formatting
     sample.dropTable();
   }
+
+  @Test
+  public void async() throws Exception {
+    that(sample.selectConcatAsync("a", "b").get()).is("ab");
+    that(() -> sample.selectFailAsync().get()).thrown(ExecutionException.class);
+  }
 }
@@ -0,0 +1,137 @@
+package io.immutables.regres;
+
+import io.immutables.Nullable;
+import io.immutables.Source;
+import io.immutables.codec.Codecs;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import org.junit.Test;
+import static io.immutables.that.Assert.that;
+
+public class TestSqlMetrics {
+	@Test
+	public void bucketing() {
+		that(SqlMetrics.Histogram.bucketOf(0)).is(0);
+		that(SqlMetrics.Histogram.bucketOf(999)).is(0);
+		that(SqlMetrics.Histogram.bucketOf(1_000)).is(1);
+		that(SqlMetrics.Histogram.bucketOf(1_999)).is(1);
+		that(SqlMetrics.Histogram.bucketOf(2_000)).is(2);
+		that(SqlMetrics.Histogram.bucketOf(3_999)).is(2);
+		that(SqlMetrics.Histogram.bucketOf(4_000)).is(3);
+		that(SqlMetrics.Histogram.bucketOf(Long.MAX_VALUE)).is(SqlMetrics.Histogram.BUCKETS - 1);
+	}
+
+	@Test
+	public void quantiles() {
+		long[] counts = new long[SqlMetrics.Histogram.BUCKETS];
+		counts[0] = 50;
+		counts[3] = 49;
+		counts[10] = 1;
+		SqlMetrics.Histogram h = new SqlMetrics.Histogram(counts, 100_000);
+
+		that(h.count()).is(100L);
+		that(h.meanNanos()).is(1_000L);
+		that(h.quantileNanos(0.5)).is(1_000L);
+		that(h.quantileNanos(0.51)).is(8_000L);
+		that(h.quantileNanos(0.99)).is(8_000L);
+		that(h.quantileNanos(1.0)).is(1_024_000L);
+
+		SqlMetrics.Histogram empty = new SqlMetrics.Histogram(new long[SqlMetrics.Histogram.BUCKETS], 0);
+		that(empty.meanNanos()).is(0L);
+		that(empty.quantileNanos(0.5)).is(0L);
+	}
+
+	@Test
+	public void stats() {
+		SqlMetrics metrics = new SqlMetrics(Duration.ofSeconds(1));
+		metrics.executed(execution("a", 1_000, 3, null));
+		metrics.executed(execution("a", 5_000, 0, new SQLException()));
+		metrics.executed(execution("a", 1_000, 0, new IOException()));
+		metrics.executed(execution("b", 1_000, 1, null));
+
+		SqlMetrics.Stats a = metrics.snapshot().get(TestSqlMetrics.class.getName() + ".a");
+		that(a.calls).is(3L);
+		that(a.errors).is(2L);
+		that(a.rows).is(3L);
+		that(a.execute.count()).is(3L);
+		that(a.execute.count(SqlMetrics.Histogram.bucketOf(1_000))).is(2L);
+		that(a.execute.count(SqlMetrics.Histogram.bucketOf(5_000))).is(1L);
+		that(metrics.snapshot().get(TestSqlMetrics.class.getName() + ".b").calls).is(1L);
+
+		that(metrics.snapshot()).equalTo(metrics.snapshot());
+		metrics.executed(execution("b", 1_000, 1, null));
+		that(metrics.snapshot().get(TestSqlMetrics.class.getName() + ".a")).equalTo(a);
+		that(metrics.snapshot().get(TestSqlMetrics.class.getName() + ".b").calls).is(2L);
+	}
+
+	@Test
+	public void slowQueryLog() {
+		SqlMetrics metrics = new SqlMetrics(Duration.ofMillis(1));
+		List<String> logged = new ArrayList<>();
+		Handler handler = new Handler() {
+			@Override public void publish(LogRecord record) {
+				logged.add(record.getMessage());
+			}
+
+			@Override public void flush() {}
+
+			@Override public void close() {}
+		};
+		Logger logger = Logger.getLogger(SqlMetrics.class.getName());
+		logger.addHandler(handler);
+		try {
+			metrics.executed(execution("fast", 999_999, 0, null));
+			for (int i = 0; i < 20; i++) {
+				metrics.executed(execution("slow", (2 + i) * 1_000_000L, 0, null));
+			}
+		} finally {
+			logger.removeHandler(handler);
+		}
+
+		that(logged).hasSize(20);
+		that(logged.get(0)).startsWith("Slow query TestSqlMetrics.slow took 2ms");
+
+		List<SqlMetrics.Slow> slow = metrics.recentSlowQueries();
+		that(slow).hasSize(16);
+		that(slow.get(0).method).is("TestSqlMetrics.slow");
+		that(slow.get(0).nanos).is(6_000_000L);
+		that(slow.get(15).nanos).is(21_000_000L);
+	}
+
+	@Test
+	public void unexpectedFailureRecorded() {
+		Connection connection = (Connection) Proxy.newProxyInstance(
+				Connection.class.getClassLoader(),
+				new Class<?>[] {Connection.class},
+				(proxy, method, args) -> {
+					if (method.getName().equals("prepareStatement")) throw new IllegalStateException("Unexpected");
+					return null;
+				});
+		List<SqlListener.Execution> executions = new ArrayList<>();
+		Sample sample = Regresql.create(Sample.class, Codecs.builtin().toResolver(), () -> connection, null,
+				executions::add);
+
+		that(() -> { sample.createTable(); }).thrown(IllegalStateException.class);
+		that(executions).hasSize(1);
+		that(executions.get(0).exception).instanceOf(IllegalStateException.class);
+	}
+
+	private static SqlListener.Execution execution(String method, long executeNanos, int rows, @Nullable Exception exception) {
+		Source.Range range = Source.Range.of(Source.Position.of(0, 1, 1));
+		Regresql.MethodSnippet snippet = new Regresql.MethodSnippet.Builder()
+				.name(method)
+				.identifierRange(range)
+				.statementsRange(range)
+				.preparedStatements("")
+				.build();
+		return new SqlListener.Execution(TestSqlMetrics.class, null, snippet, 0, executeNanos, 0, rows, 0, exception);
+	}
+}